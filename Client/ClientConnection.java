@@ -1,28 +1,43 @@
 package Client;
 
+import Server.BinaryProtocol;
+import Server.Category;
 import java.io.*;
 import java.net.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 import javax.swing.JOptionPane;
 import javax.swing.SwingUtilities;
 
 public class ClientConnection {
 
-    private Socket socket; // Sunucuya bağlanmak için kullanılan soket
-    private BufferedReader in; // Sunucudan gelen mesajları okumak için kullanılan okuyucu
-    private PrintWriter out; // Sunucuya mesaj göndermek için kullanılan yazıcı
+    private static final long RECONNECT_WINDOW_MILLIS = 30_000; // Bağlantı koptuğunda yeniden bağlanmanın deneneceği süre
+    private static final long RECONNECT_DELAY_MILLIS = 1_000; // Yeniden bağlanma denemeleri arasındaki bekleme
+    // Sunucudan bu süre boyunca hiç veri gelmezse PING gönderilir; bir süre daha cevap gelmezse bağlantı kopmuş sayılır
+    private static final int HEARTBEAT_MILLIS = 20_000;
+    // Puan tabanlı eşleştirmede sunucuya bildirilecek beceri puanı (ör. -Dyahtzee.rating=1200; verilmezse bildirilmez)
+    private static final String RATING = System.getProperty("yahtzee.rating");
+
+    private final String serverIP; // Sunucunun adresi (yeniden bağlanırken kullanılır)
+    private final int port; // Sunucunun portu
+    private volatile Socket socket; // Sunucuya bağlanmak için kullanılan soket
+    private volatile DataInputStream in; // Sunucudan gelen satırları ve ikili çerçeveleri okumak için kullanılan akış
+    private volatile DataOutputStream out; // Sunucuya satır veya çerçeve göndermek için kullanılan akış
+    private volatile boolean binary = false; // Sunucu ikili protokolü onayladıysa true (mesajlar iki yönde de çerçevedir)
+    private final List<ByteBuffer> pendingFrames = new ArrayList<>(); // Sunucu onaylayana kadar bekletilen giden çerçeveler
+    private volatile String sessionToken; // Sunucunun verdiği oturum anahtarı (bağlantı koparsa koltuğa dönmek için)
     private GameGUI gui; // Oyunun grafik arayüzü (GUI) nesnesi
 
     // ClientConnection sınıfının yapıcı metodu
     public ClientConnection(String serverIP, int port, GameGUI gui) {
         this.gui = gui; // GUI referansını ayarla
+        this.serverIP = serverIP;
+        this.port = port;
 
         try {
-            // Belirtilen IP adresi ve porta sahip sunucuya bağlan
-            socket = new Socket(serverIP, port);
-            // Soketin giriş akışından mesajları okumak için BufferedReader oluştur
-            in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
-            // Soketin çıkış akışına mesaj yazmak için PrintWriter oluştur (auto-flush açık)
-            out = new PrintWriter(socket.getOutputStream(), true);
+            connect(RATING != null ? "RATING:" + RATING.trim() : null); // Sunucuya bağlan, puanı bildir ve ikili protokolü iste
             // GUI'ye bu bağlantı nesnesini set et
             this.gui.setConnection(this);
 
@@ -36,135 +51,373 @@ public class ClientConnection {
         }
     }
 
-    // Sunucudan gelen mesajları dinleyen metod
+    // Sunucuya yeni bir soket açan ve ikili protokolü isteyen metod. firstLine null değilse (ör. RESUME)
+    // protokol isteğinden önce gönderilir: sunucu bağlantıyı ilk satırına göre lobiye, koltuğuna veya izleyicilere alır.
+    private synchronized void connect(String firstLine) throws IOException {
+        // Belirtilen IP adresi ve porta sahip sunucuya bağlan
+        socket = new Socket(serverIP, port);
+        socket.setSoTimeout(HEARTBEAT_MILLIS); // Yarı açık bağlantıda okuma sonsuza kadar beklemesin
+        // Soketin giriş akışından mesajları okumak için DataInputStream oluştur
+        in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        // Soketin çıkış akışına mesaj yazmak için DataOutputStream oluştur (her mesajdan sonra boşaltılır)
+        out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        binary = false; // Yeni bağlantı, sunucu onaylayana kadar metin olarak okunur
+        pendingFrames.clear(); // Kopan bağlantıya ait bekleyen çerçeveler yeni bağlantıya gönderilmez
+        // Sunucudan ikili protokolü iste. Sunucudan gelen mesajlar onay satırı gelene kadar metin
+        // olarak okunur; giden komutlar da onaya kadar bekletilir ve onay gelince çerçeve olarak gönderilir.
+        if (firstLine != null) {
+            writeLine(firstLine);
+        }
+        writeLine(BinaryProtocol.HELLO);
+    }
+
+    // Bağlantı koptuğunda oturum anahtarıyla sunucuya yeniden bağlanmayı deneyen metod.
+    // Sunucu koltuğu bir süre tuttuğu için oyun kaldığı yerden devam eder.
+    private boolean reconnect() {
+        String token = sessionToken;
+        if (token == null) {
+            return false; // Henüz bir odaya yerleşilmedi; dönülecek bir koltuk yok
+        }
+        long deadline = System.currentTimeMillis() + RECONNECT_WINDOW_MILLIS;
+        while (System.currentTimeMillis() < deadline) {
+            try {
+                connect("RESUME:" + token); // Sunucu koltuğa yerleştirip oyunun durumunu gönderir
+                System.out.println("Sunucuya yeniden bağlanıldı.");
+                return true;
+            } catch (IOException e) {
+                System.out.println("Yeniden bağlanılamadı, tekrar denenecek: " + e.getMessage());
+            }
+            try {
+                Thread.sleep(RECONNECT_DELAY_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return false;
+    }
+
+    // Sunucudan gelen mesajları dinleyen metod. Bağlantı koparsa yeniden bağlanmayı dener;
+    // başaramazsa kullanıcıyı bilgilendirip uygulamayı kapatır.
     private void listenForMessages() {
-        try {
-            String message;
-            // Sunucudan mesaj gelmeye devam ettiği sürece döngüyü sürdür
-            while ((message = in.readLine()) != null) {
-                System.out.println("[SERVER] " + message); // Gelen mesajı konsola yazdır
+        while (true) {
+            try {
+                readMessages();
+                System.out.println("Sunucu bağlantıyı kapattı.");
+            } catch (IOException e) {
+                System.out.println("Sunucudan bağlantı kesildi: " + e.getMessage());
+            } finally {
+                // Bağlantıyı kapat (hata olsa da olmasa da)
+                closeConnection();
+            }
+            if (!reconnect()) {
+                break;
+            }
+        }
+        // Yeniden bağlanılamadıysa hata mesajı göster ve uygulamayı kapat
+        SwingUtilities.invokeLater(() -> {
+            JOptionPane.showMessageDialog(gui, "Sunucuyla bağlantı kesildi.", "Bağlantı Hatası", JOptionPane.ERROR_MESSAGE);
+            gui.dispose(); // GUI penceresini kapat
+            System.exit(1); // Uygulamayı sonlandır
+        });
+    }
 
-                // Mesaj "DICE:" ile başlıyorsa zar değerlerini güncelle
-                if (message.startsWith("DICE:")) {
-                    // "DICE:" kısmını atla ve boşluklara göre ayır
-                    String[] parts = message.substring(5).split(" ");
-                    int[] values = new int[5]; // 5 adet zar değeri için dizi oluştur
-                    try {
-                        // Her bir parçayı tamsayıya çevir ve diziye kaydet
-                        for (int i = 0; i < 5; i++) {
-                            values[i] = Integer.parseInt(parts[i]);
-                        }
-                        // GUI güncellemelerini Swing Event Dispatch Thread (EDT) üzerinde çalıştır
-                        SwingUtilities.invokeLater(() -> {
-                            gui.updateDice(values); // Zar değerlerini GUI'de güncelle
-                        });
-                    } catch (NumberFormatException e) {
-                        // Sayısal dönüşüm hatası olursa konsola yazdır
-                        System.err.println("Hata: Sunucudan gelen DICE mesajındaki değerler sayı değil: " + message);
+    // Bağlantı açık kaldığı sürece sunucudan gelen mesajları okuyan metod
+    private void readMessages() throws IOException {
+        String message;
+        boolean pingSent = false; // Sessizlik nedeniyle PING gönderildi ve henüz veri gelmedi
+        // Sunucudan mesaj gelmeye devam ettiği sürece döngüyü sürdür
+        while (true) {
+            if (binary) { // Sunucu ikili protokolü onayladıysa çerçeve oku
+                int high;
+                try {
+                    high = in.read();
+                } catch (SocketTimeoutException e) {
+                    if (pingSent) {
+                        throw e; // PING'e de cevap gelmedi; bağlantı kopmuş sayılır ve yeniden bağlanılır
                     }
+                    writeFrame(BinaryProtocol.encodePing(), "PING");
+                    pingSent = true;
+                    continue;
+                }
+                pingSent = false;
+                if (high == -1) {
+                    break;
+                }
+                int length = (high << 8) | in.readUnsignedByte();
+                byte[] body = new byte[length];
+                in.readFully(body);
+                handleFrame(ByteBuffer.wrap(body));
+                continue;
+            }
+            if ((message = readLine()) == null) {
+                break;
+            }
+            System.out.println("[SERVER] " + message); // Gelen mesajı konsola yazdır
 
-                } else if (message.startsWith("TURN:")) { // Mesaj "TURN:" ile başlıyorsa sıra bilgisini güncelle
-                    try {
-                        // "TURN:" kısmını atla, boşlukları temizle ve tamsayıya çevir
-                        int index = Integer.parseInt(message.substring(5).trim());
-                        // GUI güncellemelerini Swing Event Dispatch Thread (EDT) üzerinde çalıştır
-                        SwingUtilities.invokeLater(() -> {
-                            gui.updateTurn(index); // Sıra bilgisini GUI'de güncelle
-                        });
-                    } catch (NumberFormatException e) {
-                        // Sayısal dönüşüm hatası olursa konsola yazdır
-                        System.err.println("Hata: Sunucudan gelen TURN mesajındaki değer sayı değil: " + message);
-                    }
+            if (message.equals(BinaryProtocol.HELLO)) { // Sunucu ikili protokolü onayladı
+                enableBinary();
+                continue;
+            }
+            handleTextMessage(message);
+        }
+    }
 
-                } else if (message.startsWith("INDEX:")) { // Mesaj "INDEX:" ile başlıyorsa oyuncu indeksini set et
-                    try {
-                        // "INDEX:" kısmını atla, boşlukları temizle ve tamsayıya çevir
-                        int myIndex = Integer.parseInt(message.substring(6).trim());
-                        // GUI güncellemelerini Swing Event Dispatch Thread (EDT) üzerinde çalıştır
-                        SwingUtilities.invokeLater(() -> {
-                            gui.setMyPlayerIndex(myIndex); // Kendi oyuncu indeksini GUI'ye set et
-                        });
-                    } catch (NumberFormatException e) {
-                        // Sayısal dönüşüm hatası olursa konsola yazdır
-                        System.err.println("Hata: Sunucudan gelen INDEX mesajındaki değer sayı değil: " + message);
+    // Sunucudan gelen tek bir ikili çerçeveyi işleyen metod
+    private void handleFrame(ByteBuffer frame) {
+        int opcode = frame.get() & 0xFF;
+        switch (opcode) {
+            case BinaryProtocol.OP_DICE: {
+                int[] values = new int[5];
+                BinaryProtocol.unpackDice(frame.getShort() & 0xFFFF, values); // Paketlenmiş zar anahtarını aç
+                SwingUtilities.invokeLater(() -> gui.updateDice(values)); // Zar değerlerini GUI'de güncelle
+                break;
+            }
+            case BinaryProtocol.OP_SCORE: {
+                int row = frame.get() & 0xFF;
+                int col = frame.get() & 0xFF;
+                int score = frame.getShort() & 0xFFFF;
+                SwingUtilities.invokeLater(() -> gui.addScoreIfNotUsed(row, col, score)); // Skoru GUI'ye ekle
+                break;
+            }
+            case BinaryProtocol.OP_TURN: {
+                int index = frame.get() & 0xFF;
+                SwingUtilities.invokeLater(() -> gui.updateTurn(index)); // Sıra bilgisini GUI'de güncelle
+                break;
+            }
+            case BinaryProtocol.OP_INDEX: {
+                int myIndex = frame.get() & 0xFF;
+                SwingUtilities.invokeLater(() -> gui.setMyPlayerIndex(myIndex)); // Kendi oyuncu indeksini GUI'ye set et
+                break;
+            }
+            case BinaryProtocol.OP_STATE: { // Yeniden bağlandıktan sonra oyunun tam durumu
+                int playerCount = frame.get() & 0xFF;
+                int turn = frame.get() & 0xFF;
+                int diceKey = frame.getShort() & 0xFFFF;
+                int[] usedMasks = new int[playerCount];
+                int[][] scores = new int[playerCount][Category.COUNT];
+                for (int p = 0; p < playerCount; p++) {
+                    usedMasks[p] = frame.getShort() & 0xFFFF;
+                    for (int c = 0; c < Category.COUNT; c++) {
+                        scores[p][c] = frame.get() & 0xFF;
                     }
-
-                } else if (message.startsWith("SCORE:")) { // Mesaj "SCORE:" ile başlıyorsa skor bilgisini güncelle
-                    // "SCORE:" kısmını atla ve virgüllere göre ayır
-                    String[] parts = message.substring(6).split(",");
-                    if (parts.length == 3) { // Mesajın 3 parçadan oluştuğundan emin ol
-                        try {
-                            // Satır, sütun ve skor değerlerini tamsayıya çevir
-                            int row = Integer.parseInt(parts[0].trim());
-                            int col = Integer.parseInt(parts[1].trim());
-                            int score = Integer.parseInt(parts[2].trim());
-
-                            // GUI güncellemelerini Swing Event Dispatch Thread (EDT) üzerinde çalıştır
-                            SwingUtilities.invokeLater(() -> {
-                                gui.addScoreIfNotUsed(row, col, score); // Skoru GUI'ye ekle (eğer kullanılmamışsa)
-                            });
-
-                        } catch (NumberFormatException e) {
-                            // Sayısal dönüşüm hatası olursa konsola yazdır
-                            System.err.println("Hata: Sunucudan gelen SCORE mesajındaki sayısal değerler hatalı: " + message);
-                        } catch (Exception e) {
-                            // Diğer genel hatalar için yakalama bloğu
-                            System.err.println("Hata: Sunucudan gelen SCORE mesajı işlenirken genel hata oluştu: " + message);
-                            e.printStackTrace();
+                }
+                SwingUtilities.invokeLater(() -> {
+                    gui.setPlayerCount(playerCount); // Skor tablosunu odanın oyuncu sayısına göre boyutlandır
+                    for (int p = 0; p < playerCount; p++) {
+                        for (int c = 0; c < Category.COUNT; c++) {
+                            if ((usedMasks[p] & (1 << c)) != 0) {
+                                gui.addScoreIfNotUsed(c + 1, p, scores[p][c]); // Satır = kategori ID'si + 1
+                            }
                         }
-                    } else {
-                        // Mesaj formatı hatalıysa konsola yazdır
-                        System.err.println("Hata: Sunucudan gelen SCORE mesaj formatı hatalı: " + message);
                     }
-                } else if (message.startsWith("GAME_OVER_SUMMARY:")) { // Mesaj oyun bitiş özetini içeriyorsa
+                    if (diceKey != BinaryProtocol.NO_DICE) {
+                        int[] values = new int[5];
+                        BinaryProtocol.unpackDice(diceKey, values);
+                        gui.updateDice(values); // Sıradaki oyuncunun zarlarını göster
+                    }
+                    gui.updateTurn(turn); // Sıra bilgisini GUI'de güncelle
+                });
+                break;
+            }
+            case BinaryProtocol.OP_PING: // Sunucu bağlantının canlı olup olmadığını soruyor
+                writeFrame(BinaryProtocol.encodePong(), "PONG");
+                break;
+            case BinaryProtocol.OP_PONG: // Gönderdiğimiz PING'in cevabı; okuma zaten sessizliği sıfırladı
+                break;
+            case BinaryProtocol.OP_TEXT: {
+                String message = BinaryProtocol.decodeText(frame);
+                System.out.println("[SERVER] " + message); // Gelen mesajı konsola yazdır
+                handleTextMessage(message);
+                break;
+            }
+            default:
+                System.err.println("Hata: Sunucudan bilinmeyen çerçeve türü geldi: " + opcode);
+        }
+    }
+
+    // Sunucudan gelen tek bir metin mesajını işleyen metod (metin protokolü ve TEXT çerçeveleri için)
+    private void handleTextMessage(String message) {
+        // Mesaj "DICE:" ile başlıyorsa zar değerlerini güncelle
+        if (message.startsWith("DICE:")) {
+            // "DICE:" kısmını atla ve boşluklara göre ayır
+            String[] parts = message.substring(5).split(" ");
+            int[] values = new int[5]; // 5 adet zar değeri için dizi oluştur
+            try {
+                // Her bir parçayı tamsayıya çevir ve diziye kaydet
+                for (int i = 0; i < 5; i++) {
+                    values[i] = Integer.parseInt(parts[i]);
+                }
+                // GUI güncellemelerini Swing Event Dispatch Thread (EDT) üzerinde çalıştır
+                SwingUtilities.invokeLater(() -> {
+                    gui.updateDice(values); // Zar değerlerini GUI'de güncelle
+                });
+            } catch (NumberFormatException e) {
+                // Sayısal dönüşüm hatası olursa konsola yazdır
+                System.err.println("Hata: Sunucudan gelen DICE mesajındaki değerler sayı değil: " + message);
+            }
+
+        } else if (message.startsWith("TURN:")) { // Mesaj "TURN:" ile başlıyorsa sıra bilgisini güncelle
+            try {
+                // "TURN:" kısmını atla, boşlukları temizle ve tamsayıya çevir
+                int index = Integer.parseInt(message.substring(5).trim());
+                // GUI güncellemelerini Swing Event Dispatch Thread (EDT) üzerinde çalıştır
+                SwingUtilities.invokeLater(() -> {
+                    gui.updateTurn(index); // Sıra bilgisini GUI'de güncelle
+                });
+            } catch (NumberFormatException e) {
+                // Sayısal dönüşüm hatası olursa konsola yazdır
+                System.err.println("Hata: Sunucudan gelen TURN mesajındaki değer sayı değil: " + message);
+            }
+
+        } else if (message.startsWith("INDEX:")) { // Mesaj "INDEX:" ile başlıyorsa oyuncu indeksini set et
+            try {
+                // "INDEX:" kısmını atla, boşlukları temizle ve tamsayıya çevir
+                int myIndex = Integer.parseInt(message.substring(6).trim());
+                // GUI güncellemelerini Swing Event Dispatch Thread (EDT) üzerinde çalıştır
+                SwingUtilities.invokeLater(() -> {
+                    gui.setMyPlayerIndex(myIndex); // Kendi oyuncu indeksini GUI'ye set et
+                });
+            } catch (NumberFormatException e) {
+                // Sayısal dönüşüm hatası olursa konsola yazdır
+                System.err.println("Hata: Sunucudan gelen INDEX mesajındaki değer sayı değil: " + message);
+            }
+
+        } else if (message.startsWith("SCORE:")) { // Mesaj "SCORE:" ile başlıyorsa skor bilgisini güncelle
+            // "SCORE:" kısmını atla ve virgüllere göre ayır
+            String[] parts = message.substring(6).split(",");
+            if (parts.length == 3) { // Mesajın 3 parçadan oluştuğundan emin ol
+                try {
+                    // Satır, sütun ve skor değerlerini tamsayıya çevir
+                    int row = Integer.parseInt(parts[0].trim());
+                    int col = Integer.parseInt(parts[1].trim());
+                    int score = Integer.parseInt(parts[2].trim());
+
                     // GUI güncellemelerini Swing Event Dispatch Thread (EDT) üzerinde çalıştır
                     SwingUtilities.invokeLater(() -> {
-                        gui.showGameOverSummary(); // Oyun bitiş özetini göster
+                        gui.addScoreIfNotUsed(row, col, score); // Skoru GUI'ye ekle (eğer kullanılmamışsa)
                     });
 
-                } else if (message.startsWith("INFO:")) { // Mesaj genel bilgi içeriyorsa
-                    String infoMessage = message.substring(5).trim(); // "INFO:" kısmını atla ve boşlukları temizle
-                    // Oyun sonu mesajlarını kontrol et
-                    if (infoMessage.startsWith("Oyun bitti! Sonuçlar hesaplanıyor...")
-                            || infoMessage.startsWith("Oyun berabere bitti!")
-                            || infoMessage.startsWith("Kazanan:")) {
-
-                        // GUI güncellemelerini Swing Event Dispatch Thread (EDT) üzerinde çalıştır
-                        SwingUtilities.invokeLater(() -> {
-                            gui.addGameOverMessage(infoMessage); // Oyun bitiş mesajını GUI'ye ekle
-                        });
-                    } else if (infoMessage.equals("Yeni oyun başlıyor. Lütfen bekleyin.")) {
-                        gui.resetGUIForNewGameRequest(); // Yeni oyun isteği için GUI'yi sıfırla
-                    } else {
-                        // Diğer bilgi mesajlarını konsola yazdır (GUI'de gösterilmeyenler)
-                        SwingUtilities.invokeLater(() -> {
-                            System.out.println("INFO (GUI'de gösterilmeyen): " + infoMessage);
-                        });
-                    }
+                } catch (NumberFormatException e) {
+                    // Sayısal dönüşüm hatası olursa konsola yazdır
+                    System.err.println("Hata: Sunucudan gelen SCORE mesajındaki sayısal değerler hatalı: " + message);
+                } catch (Exception e) {
+                    // Diğer genel hatalar için yakalama bloğu
+                    System.err.println("Hata: Sunucudan gelen SCORE mesajı işlenirken genel hata oluştu: " + message);
+                    e.printStackTrace();
                 }
+            } else {
+                // Mesaj formatı hatalıysa konsola yazdır
+                System.err.println("Hata: Sunucudan gelen SCORE mesaj formatı hatalı: " + message);
             }
-        } catch (IOException e) {
-            // Bağlantı kesilirse hata mesajı göster ve uygulamayı kapat
-            System.out.println("Sunucudan bağlantı kesildi.");
+        } else if (message.startsWith("PLAYERS:")) { // Odadaki oyuncu sayısı; skor tablosu buna göre boyutlanır
+            try {
+                int count = Integer.parseInt(message.substring(8).trim());
+                SwingUtilities.invokeLater(() -> gui.setPlayerCount(count));
+            } catch (NumberFormatException e) {
+                System.err.println("Hata: Sunucudan gelen PLAYERS mesajındaki değer sayı değil: " + message);
+            }
+
+        } else if (message.startsWith("SESSION:")) { // Sunucunun verdiği oturum anahtarını sakla
+            sessionToken = message.substring(8).trim();
+
+        } else if (message.startsWith("GAME_OVER_SUMMARY:")) { // Mesaj oyun bitiş özetini içeriyorsa
+            // GUI güncellemelerini Swing Event Dispatch Thread (EDT) üzerinde çalıştır
             SwingUtilities.invokeLater(() -> {
-                JOptionPane.showMessageDialog(gui, "Sunucuyla bağlantı kesildi.", "Bağlantı Hatası", JOptionPane.ERROR_MESSAGE);
-                gui.dispose(); // GUI penceresini kapat
-                System.exit(1); // Uygulamayı sonlandır
+                gui.showGameOverSummary(); // Oyun bitiş özetini göster
             });
-        } finally {
-            // Bağlantıyı kapat (hata olsa da olmasa da)
-            closeConnection();
+
+        } else if (message.startsWith("INFO:")) { // Mesaj genel bilgi içeriyorsa
+            String infoMessage = message.substring(5).trim(); // "INFO:" kısmını atla ve boşlukları temizle
+            // Oyun sonu mesajlarını kontrol et
+            if (infoMessage.startsWith("Oyun bitti! Sonuçlar hesaplanıyor...")
+                    || infoMessage.startsWith("Oyun berabere bitti!")
+                    || infoMessage.startsWith("Kazanan:")) {
+
+                // GUI güncellemelerini Swing Event Dispatch Thread (EDT) üzerinde çalıştır
+                SwingUtilities.invokeLater(() -> {
+                    gui.addGameOverMessage(infoMessage); // Oyun bitiş mesajını GUI'ye ekle
+                });
+            } else if (infoMessage.equals("Yeni oyun başlıyor. Lütfen bekleyin.")) {
+                gui.resetGUIForNewGameRequest(); // Yeni oyun isteği için GUI'yi sıfırla
+            } else {
+                // Diğer bilgi mesajlarını konsola yazdır (GUI'de gösterilmeyenler)
+                SwingUtilities.invokeLater(() -> {
+                    System.out.println("INFO (GUI'de gösterilmeyen): " + infoMessage);
+                });
+            }
         }
     }
 
-    // Sunucuya mesaj göndermek için metod
-    public void sendMessage(String msg) {
-        if (out != null) { // PrintWriter nesnesi null değilse (yani bağlantı açıksa)
-            out.println(msg); // Mesajı sunucuya gönder
+    // Soketten UTF-8 kodlu tek bir satır okuyan metod (satır sonu olmadan, akış bittiyse null)
+    private String readLine() throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) != -1) {
+            if (b == '\n') {
+                break;
+            }
+            line.write(b);
+        }
+        if (b == -1 && line.size() == 0) {
+            return null;
+        }
+        String text = new String(line.toByteArray(), StandardCharsets.UTF_8);
+        return text.endsWith("\r") ? text.substring(0, text.length() - 1) : text;
+    }
+
+    // Sunucuya metin satırı olarak mesaj gönderen metod (yalnızca protokol isteği için)
+    private synchronized void writeLine(String msg) throws IOException {
+        out.write((msg + "\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    // Sunucu ikili protokolü onayladığında iki yönü de çerçeveye geçiren ve bekleyen çerçeveleri gönderen metod
+    private synchronized void enableBinary() {
+        binary = true;
+        for (ByteBuffer frame : pendingFrames) {
+            writeFrame(frame, "bekleyen komut");
+        }
+        pendingFrames.clear();
+    }
+
+    // Sunucuya hazır bir ikili çerçeve gönderen metod (onaydan önce gönderilenler bekletilir)
+    private synchronized void writeFrame(ByteBuffer frame, String description) {
+        if (!binary) {
+            pendingFrames.add(frame); // Sunucu henüz metin satırı bekliyor; çerçeve onaydan sonra gönderilir
+            return;
+        }
+        if (out != null) { // Akış null değilse (yani bağlantı açıksa)
+            try {
+                out.write(frame.array(), frame.arrayOffset() + frame.position(), frame.remaining());
+                out.flush();
+            } catch (IOException e) {
+                System.err.println("Hata: Mesaj gönderilemedi: " + description + " (" + e.getMessage() + ")");
+            }
         } else {
             // Bağlantı kapalıysa hata mesajı yazdır
-            System.err.println("Hata: Sunucu bağlantısı kapalı, mesaj gönderilemedi: " + msg);
+            System.err.println("Hata: Sunucu bağlantısı kapalı, mesaj gönderilemedi: " + description);
+        }
+    }
+
+    // Sunucuya mesaj göndermek için metod (RESTART, QUIT gibi komutlar TEXT çerçevesiyle gider)
+    public void sendMessage(String msg) {
+        writeFrame(BinaryProtocol.encodeText(msg), msg);
+    }
+
+    // Sunucuya zar atma isteği gönderen metod (heldMask: bit i = i. zar tutuluyor)
+    public void sendRoll(int heldMask) {
+        writeFrame(BinaryProtocol.encodeRoll(heldMask), "ROLL");
+    }
+
+    // Sunucuya seçilen kategoriye skor kaydetme isteği gönderen metod
+    public void sendMove(String category, int row, int col) {
+        Category selected = Category.fromName(category);
+        if (selected == null) {
+            System.err.println("Hata: Bilinmeyen kategori, MOVE gönderilemedi: " + category);
+            return;
         }
+        writeFrame(BinaryProtocol.encodeMove(selected, row, col), "MOVE:" + category);
     }
 
     // Bağlantıyı kapatmak için metod
@@ -388,6 +388,24 @@ public class GameGUI extends javax.swing.JFrame {
         System.out.println("Bu istemcinin oyuncu indeksi: " + myPlayerIndex);
     }
 
+    /**
+     * Skor tablosunu odadaki oyuncu sayısı kadar sütuna ayarlar. Mevcut
+     * sütunlardaki skorlar korunur.
+     *
+     * @param count Odadaki oyuncu sayısı.
+     */
+    public void setPlayerCount(int count) {
+        if (count < 1 || count == scoreTableModel.getColumnCount()) {
+            return; // Tablo zaten bu boyutta.
+        }
+        String[] names = new String[count];
+        for (int i = 0; i < count; i++) {
+            names[i] = "Oyuncu " + (i + 1);
+        }
+        scoreTableModel.setColumnIdentifiers(names); // Sütun sayısını da ayarlar.
+        System.out.println("Skor tablosu " + count + " oyunculu olarak ayarlandı.");
+    }
+
     /**
      * İstemci-sunucu bağlantısını sağlayan ClientConnection nesnesini ayarlar.
      *
@@ -608,21 +626,17 @@ public class GameGUI extends javax.swing.JFrame {
             return;
         }
         JToggleButton[] toggleButtons = {d1, d2, d3, d4, d5}; // Zar tutma butonları.
-        StringBuilder heldIndices = new StringBuilder(); // Tutulan zar indekslerini toplamak için.
+        int heldMask = 0; // Tutulan zarların bit maskesi (bit i = i. zar tutuluyor).
 
-        // Hangi zarların tutulduğunu belirle ve sunucuya göndermek için virgülle ayrılmış bir string oluştur.
+        // Hangi zarların tutulduğunu belirle ve sunucuya göndermek için maskeye ekle.
         for (int i = 0; i < 5; i++) {
             if (toggleButtons[i].isSelected()) {
-                if (heldIndices.length() > 0) {
-                    heldIndices.append(",");
-                }
-                heldIndices.append(i); // Tutulan zarın indeksini ekle.
+                heldMask |= 1 << i; // Tutulan zarın bitini işaretle.
             }
         }
 
-        // Sunucuya "ROLL" komutu ile tutulan zar indekslerini gönder.
-        // Eğer hiçbir zar tutulmadıysa sadece "ROLL" gönderilir.
-        connection.sendMessage("ROLL" + (heldIndices.length() > 0 ? ":" + heldIndices.toString() : ""));
+        // Sunucuya "ROLL" komutu ile tutulan zarların maskesini gönder.
+        connection.sendRoll(heldMask);
 
         rollCount++; // Zar atma sayacını artır.
 
@@ -760,17 +774,10 @@ public class GameGUI extends javax.swing.JFrame {
         // Seçilen kategori adını al ve küçük harfe çevir.
         String category = categoryTable.getValueAt(selectedRow, 0).toString().toLowerCase();
 
-        // Zar değerlerini sunucuya gönderilecek string formatına çevir.
-        StringBuilder sb = new StringBuilder();
-        for (int val : diceValues) {
-            sb.append(val).append(" ");
-        }
-
-        // Sunucuya "MOVE" komutu ile kategori, zar değerleri, seçilen satır ve sütun bilgilerini gönder.
-        // Sunucu bu bilgileri alıp skoru hesaplayacak, geçerliliğini kontrol edecek ve tabloyu güncelleyecek.
+        // Sunucuya "MOVE" komutu ile kategori, seçilen satır ve sütun bilgilerini gönder.
+        // Sunucu zarları kendi durumundan alıp skoru hesaplayacak, geçerliliğini kontrol edecek ve tabloyu güncelleyecek.
         if (connection != null) {
-            // Mesaj formatı: MOVE:kategori:zar1 zar2 zar3 zar4 zar5:satirIndeksi:sutunIndeksi
-            connection.sendMessage("MOVE:" + category + ":" + sb.toString().trim() + ":" + selectedRow + ":" + selectedColumn);
+            connection.sendMove(category, selectedRow, selectedColumn);
         }
 
         // Hamle gönderildikten sonra zar atma ve skor gönderme butonlarını devre dışı bırak.
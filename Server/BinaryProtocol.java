@@ -0,0 +1,219 @@
+package Server;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * BinaryProtocol, metin protokolünün yanında kullanılabilen sıkıştırılmış
+ * ikili çerçeve biçimini tanımlar. İstemci bağlantıdan sonra "PROTO:BIN"
+ * satırını gönderir; sunucu aynı satırla onaylarsa o andan itibaren iki yön
+ * de ikili çerçeve kullanır. Onay gelmezse bağlantı metin protokolünde kalır.
+ *
+ * Çerçeve biçimi: [uzunluk: 2 bayt][opcode: 1 bayt][veri]. Uzunluk, opcode
+ * dahil gövdenin bayt sayısıdır. Beş zar 6 tabanında tek bir sayıya
+ * (0-7775) paketlenerek 2 bayta sığar; kategoriler 1 baytlık ID
+ * (Category.ordinal()) ile taşınır.
+ */
+public final class BinaryProtocol {
+
+    /** İkili protokole geçmek için gönderilen ve onay olarak geri gelen metin satırı. */
+    public static final String HELLO = "PROTO:BIN";
+    /** Bir çerçeve gövdesinin (opcode + veri) alabileceği en büyük uzunluk. */
+    public static final int MAX_FRAME_LENGTH = 0xFFFF;
+
+    // Sunucudan istemciye giden çerçeveler.
+    public static final int OP_DICE = 0x01; // [zar anahtarı: 2 bayt]
+    public static final int OP_SCORE = 0x02; // [satır: 1 bayt][sütun: 1 bayt][puan: 2 bayt]
+    public static final int OP_TURN = 0x03; // [oyuncu indeksi: 1 bayt]
+    public static final int OP_INDEX = 0x04; // [oyuncu indeksi: 1 bayt]
+    // Her iki yönde de kullanılabilen, metin protokolündeki tam bir satırı taşıyan çerçeve (INFO, RESTART, QUIT vb.).
+    public static final int OP_TEXT = 0x05; // [UTF-8 metin]
+    // Yeniden bağlanan oyuncuya oyunun tamamını tek çerçevede gönderir:
+    // [oyuncu sayısı: 1][sıra: 1][zar anahtarı: 2 (zar atılmadıysa 0xFFFF)], ardından her oyuncu için
+    // [kullanılan kategori maskesi: 2][13 kategori puanı: 13 x 1].
+    public static final int OP_STATE = 0x06;
+    /** STATE çerçevesinde sıradaki oyuncunun henüz zar atmadığını belirten zar anahtarı. */
+    public static final int NO_DICE = 0xFFFF;
+    // Her iki yönde de kullanılan canlılık çerçeveleri (veri yok). PING alan taraf PONG ile cevap verir.
+    public static final int OP_PING = 0x07;
+    public static final int OP_PONG = 0x08;
+    // İstemciden sunucuya giden çerçeveler.
+    public static final int OP_ROLL = 0x10; // [tutulan zar maskesi: 1 bayt]
+    public static final int OP_MOVE = 0x11; // [kategori ID: 1 bayt][satır: 1 bayt][sütun: 1 bayt]
+
+    private BinaryProtocol() {
+    }
+
+    /**
+     * Beş zarı 6 tabanında tek bir sayıya paketler.
+     * @param dice 1-6 arası beş zar değeri.
+     * @return 0-7775 arası zar anahtarı.
+     */
+    public static int packDice(int[] dice) {
+        int key = 0;
+        for (int i = dice.length - 1; i >= 0; i--) {
+            key = key * 6 + (dice[i] - 1);
+        }
+        return key;
+    }
+
+    /**
+     * packDice ile paketlenmiş zar anahtarını açar.
+     * @param key 0-7775 arası zar anahtarı.
+     * @param dice Değerlerin yazılacağı 5 elemanlı dizi.
+     */
+    public static void unpackDice(int key, int[] dice) {
+        for (int i = 0; i < dice.length; i++) {
+            dice[i] = key % 6 + 1;
+            key /= 6;
+        }
+    }
+
+    /**
+     * Verilen gövde uzunluğu için başlığı yazılmış bir çerçeve tamponu ayırır.
+     * @param opcode Çerçevenin opcode'u.
+     * @param payloadLength Opcode hariç veri uzunluğu.
+     * @return Veri yazılmaya hazır tampon.
+     */
+    private static ByteBuffer frame(int opcode, int payloadLength) {
+        ByteBuffer buffer = ByteBuffer.allocate(3 + payloadLength);
+        buffer.putShort((short) (1 + payloadLength));
+        buffer.put((byte) opcode);
+        return buffer;
+    }
+
+    /**
+     * Zar değerlerini taşıyan DICE çerçevesini oluşturur.
+     * @param dice Beş zar değeri.
+     * @return Gönderilmeye hazır çerçeve.
+     */
+    public static ByteBuffer encodeDice(int[] dice) {
+        ByteBuffer buffer = frame(OP_DICE, 2);
+        buffer.putShort((short) packDice(dice));
+        return buffer.flip();
+    }
+
+    /**
+     * Skor tablosu güncellemesini taşıyan SCORE çerçevesini oluşturur.
+     * @param row Skor tablosundaki satır.
+     * @param column Skor tablosundaki sütun (oyuncu).
+     * @param score Kaydedilen puan.
+     * @return Gönderilmeye hazır çerçeve.
+     */
+    public static ByteBuffer encodeScore(int row, int column, int score) {
+        ByteBuffer buffer = frame(OP_SCORE, 4);
+        buffer.put((byte) row).put((byte) column).putShort((short) score);
+        return buffer.flip();
+    }
+
+    /**
+     * Sıradaki oyuncuyu bildiren TURN çerçevesini oluşturur.
+     * @param playerIndex Sıradaki oyuncunun indeksi.
+     * @return Gönderilmeye hazır çerçeve.
+     */
+    public static ByteBuffer encodeTurn(int playerIndex) {
+        ByteBuffer buffer = frame(OP_TURN, 1);
+        buffer.put((byte) playerIndex);
+        return buffer.flip();
+    }
+
+    /**
+     * Karşı tarafın hâlâ bağlı olup olmadığını soran PING çerçevesini oluşturur.
+     * @return Gönderilmeye hazır çerçeve.
+     */
+    public static ByteBuffer encodePing() {
+        return frame(OP_PING, 0).flip();
+    }
+
+    /**
+     * PING çerçevesine cevap olan PONG çerçevesini oluşturur.
+     * @return Gönderilmeye hazır çerçeve.
+     */
+    public static ByteBuffer encodePong() {
+        return frame(OP_PONG, 0).flip();
+    }
+
+    /**
+     * Oyuncuya kendi indeksini bildiren INDEX çerçevesini oluşturur.
+     * @param playerIndex Oyuncunun indeksi.
+     * @return Gönderilmeye hazır çerçeve.
+     */
+    public static ByteBuffer encodeIndex(int playerIndex) {
+        ByteBuffer buffer = frame(OP_INDEX, 1);
+        buffer.put((byte) playerIndex);
+        return buffer.flip();
+    }
+
+    /**
+     * Bir metin protokolü satırını taşıyan TEXT çerçevesini oluşturur.
+     * @param text Satır sonu olmadan metin satırı.
+     * @return Gönderilmeye hazır çerçeve.
+     */
+    public static ByteBuffer encodeText(String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        int length = Math.min(bytes.length, MAX_FRAME_LENGTH - 1); // Çok uzun metinler çerçeveye sığacak şekilde kesilir.
+        while (length < bytes.length && (bytes[length] & 0xC0) == 0x80) {
+            length--; // Kesme noktası çok baytlı bir karakterin ortasına düşmesin.
+        }
+        ByteBuffer buffer = frame(OP_TEXT, length);
+        buffer.put(bytes, 0, length);
+        return buffer.flip();
+    }
+
+    /**
+     * Yeniden bağlanan oyuncuya gönderilen STATE çerçevesini oluşturur. İki kişilik bir oyun
+     * başlık dahil 37 bayt tutar.
+     * @param state Oyunun güncel durumu.
+     * @param playerCount Oyuncu sayısı.
+     * @return Gönderilmeye hazır çerçeve.
+     */
+    public static ByteBuffer encodeState(GameState state, int playerCount) {
+        ByteBuffer buffer = frame(OP_STATE, 4 + playerCount * (2 + Category.COUNT));
+        int current = state.getCurrentPlayerIndex();
+        int[] dice = state.getCurrentPlayerDice();
+        buffer.put((byte) playerCount).put((byte) current);
+        buffer.putShort((short) (ScoreTable.isValidRoll(dice) ? packDice(dice) : NO_DICE));
+        for (int p = 0; p < playerCount; p++) {
+            buffer.putShort((short) state.getUsedMask(p));
+            for (Category category : Category.values()) {
+                buffer.put((byte) state.getScore(p, category));
+            }
+        }
+        return buffer.flip();
+    }
+
+    /**
+     * Zar atma isteğini taşıyan ROLL çerçevesini oluşturur.
+     * @param heldMask Tutulan zarların bit maskesi (bit i = i. zar tutuluyor).
+     * @return Gönderilmeye hazır çerçeve.
+     */
+    public static ByteBuffer encodeRoll(int heldMask) {
+        ByteBuffer buffer = frame(OP_ROLL, 1);
+        buffer.put((byte) heldMask);
+        return buffer.flip();
+    }
+
+    /**
+     * Skor kaydetme isteğini taşıyan MOVE çerçevesini oluşturur.
+     * @param category Seçilen kategori.
+     * @param row Skor tablosundaki satır.
+     * @param column Skor tablosundaki sütun.
+     * @return Gönderilmeye hazır çerçeve.
+     */
+    public static ByteBuffer encodeMove(Category category, int row, int column) {
+        ByteBuffer buffer = frame(OP_MOVE, 3);
+        buffer.put((byte) category.ordinal()).put((byte) row).put((byte) column);
+        return buffer.flip();
+    }
+
+    /**
+     * Bir TEXT çerçevesinin verisini metne çevirir.
+     * @param body Konumu opcode'dan sonraki ilk baytta olan çerçeve gövdesi.
+     * @return Çerçevedeki metin satırı.
+     */
+    public static String decodeText(ByteBuffer body) {
+        byte[] bytes = new byte[body.remaining()];
+        body.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
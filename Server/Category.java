@@ -0,0 +1,76 @@
+package Server;
+
+/**
+ * Category, Yahtzee'deki 13 puan kategorisini temsil eder. Sıra, istemcideki
+ * skor tablosunun satır sırasıyla aynıdır; bu yüzden ordinal() değeri hem
+ * ikili protokoldeki 1 baytlık kategori ID'si (satır - 1) hem de ScoreTable ve
+ * GameState içindeki dizi indeksi olarak kullanılır. Kategori adları yalnızca
+ * metin protokolünün sınırında çözülür; hamle yolunun geri kalanı enum ile
+ * çalışır ve String karşılaştırması ya da hash hesaplaması yapmaz.
+ */
+public enum Category {
+
+    ONES("ones"),
+    TWOS("twos"),
+    THREES("threes"),
+    FOURS("fours"),
+    FIVES("fives"),
+    SIXES("sixes"),
+    THREE_OF_A_KIND("three of a kind"),
+    FOUR_OF_A_KIND("four of a kind"),
+    SMALL_STRAIGHT("small straight"),
+    LARGE_STRAIGHT("large straight"),
+    FULL_HOUSE("full house"),
+    CHANCE("chance"),
+    YAHTZEE("yahtzee");
+
+    /** Kategori sayısı. */
+    public static final int COUNT = 13;
+
+    private static final Category[] VALUES = values(); // values() her çağrıda dizi kopyaladığı için bir kez alınır.
+
+    private final String name; // Metin protokolündeki küçük harfli kategori adı.
+
+    Category(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Kategorinin metin protokolündeki küçük harfli adını döndürür.
+     * @return Kategori adı (ör. "three of a kind").
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Kategorinin üst bölümde (Ones-Sixes) olup olmadığını döndürür.
+     * @return Üst bölüm kategorisiyse true.
+     */
+    public boolean isUpperSection() {
+        return ordinal() <= SIXES.ordinal();
+    }
+
+    /**
+     * Kategori ID'sine (ordinal) karşılık gelen kategoriyi döndürür.
+     * @param id Kategori ID'si.
+     * @return Kategori, ID geçersizse null.
+     */
+    public static Category fromId(int id) {
+        return id >= 0 && id < COUNT ? VALUES[id] : null;
+    }
+
+    /**
+     * Kategori adını (büyük/küçük harf duyarsız) kategoriye çevirir.
+     * @param name Kategori adı.
+     * @return Kategori, ad bilinmiyorsa null.
+     */
+    public static Category fromName(String name) {
+        for (Category category : VALUES) {
+            if (category.name.equalsIgnoreCase(name)) {
+                return category;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,204 @@
+package Server;
+
+/**
+ * CommandParser, metin protokolündeki sık gelen ROLL ve MOVE komutlarını
+ * String oluşturmadan doğrudan gelen bayt tamponundan çözer. Sonuç, nesnenin
+ * alanlarına yazılır (tutulan zarlar 5 bitlik maske, kategori Category
+ * sabiti olarak); böylece her komutta trim, toUpperCase, split ve ArrayList
+ * ayırmaları yapılmaz.
+ *
+ * Her bağlantı kendi örneğini kullanır ve bu örnek yalnızca o bağlantının
+ * okuma thread'inden çağrılır; bu yüzden sınıf thread güvenli değildir.
+ * Çözülemeyen veya hatalı komutlarda parse false döner ve çağıran, hata
+ * mesajlarını üreten metin yoluna (GameManager.handleCommand) geri döner.
+ */
+public final class CommandParser {
+
+    public static final int NONE = 0; // Komut çözülemedi.
+    public static final int ROLL = 1; // ROLL[:i,j,...]
+    public static final int MOVE = 2; // MOVE:kategori:zarlar:satır:sütun
+
+    private int type = NONE; // Son çözülen komutun türü.
+    private int heldMask; // ROLL: tutulan zarların bit maskesi (bit i = i. zar tutuluyor).
+    private Category category; // MOVE: seçilen kategori.
+    private int row; // MOVE: istemcinin skor tablosundaki satır.
+    private int column; // MOVE: istemcinin skor tablosundaki sütun.
+    private int pos; // Çözümleme sırasında tampondaki konum.
+
+    /**
+     * Verilen bayt aralığındaki komut satırını çözer.
+     * @param buf Komut baytlarını içeren tampon.
+     * @param offset Satırın başladığı konum.
+     * @param length Satır sonu karakteri olmadan satırın uzunluğu.
+     * @return Satır geçerli bir ROLL veya MOVE komutuysa true.
+     */
+    public boolean parse(byte[] buf, int offset, int length) {
+        type = NONE;
+        int end = offset + length;
+        // Baştaki ve sondaki boşlukları atla (String.trim ile aynı kural).
+        while (offset < end && (buf[offset] & 0xFF) <= ' ') {
+            offset++;
+        }
+        while (end > offset && (buf[end - 1] & 0xFF) <= ' ') {
+            end--;
+        }
+        if (matchesIgnoreCase(buf, offset, end, "ROLL")) {
+            return parseRoll(buf, offset + 4, end);
+        }
+        if (matchesIgnoreCase(buf, offset, end, "MOVE:")) {
+            return parseMove(buf, offset + 5, end);
+        }
+        return false;
+    }
+
+    public int getType() {
+        return type;
+    }
+
+    public int getHeldMask() {
+        return heldMask;
+    }
+
+    public Category getCategory() {
+        return category;
+    }
+
+    public int getRow() {
+        return row;
+    }
+
+    public int getColumn() {
+        return column;
+    }
+
+    /**
+     * "ROLL" sonrasını çözer: boş veya ":" ile başlayan virgülle ayrılmış zar indeksleri.
+     */
+    private boolean parseRoll(byte[] buf, int from, int end) {
+        int mask = 0;
+        if (from < end) {
+            if (buf[from] != ':') {
+                return false;
+            }
+            pos = from + 1;
+            while (pos < end) {
+                int index = parseInt(buf, end, ',');
+                if (index < 0 || index > 4) {
+                    return false; // Geçersiz indeks: hata mesajı metin yolunda yazdırılır.
+                }
+                mask |= 1 << index;
+                if (pos < end) {
+                    pos++; // ',' karakterini atla.
+                }
+            }
+        }
+        heldMask = mask;
+        type = ROLL;
+        return true;
+    }
+
+    /**
+     * "MOVE:" sonrasını çözer: kategori:zarlar:satır:sütun. Zar değerleri sunucudaki
+     * durumdan alındığı için yalnızca atlanır.
+     */
+    private boolean parseMove(byte[] buf, int from, int end) {
+        int categoryEnd = indexOf(buf, from, end, ':');
+        if (categoryEnd < 0) {
+            return false;
+        }
+        Category selected = findCategory(buf, from, categoryEnd);
+        int diceEnd = indexOf(buf, categoryEnd + 1, end, ':');
+        if (selected == null || diceEnd < 0) {
+            return false;
+        }
+        pos = diceEnd + 1;
+        int selectedRow = parseInt(buf, end, ':');
+        if (selectedRow < 0 || pos >= end) {
+            return false;
+        }
+        pos++; // ':' karakterini atla.
+        int selectedColumn = parseInt(buf, end, ':');
+        if (selectedColumn < 0 || pos != end) {
+            return false;
+        }
+        category = selected;
+        row = selectedRow;
+        column = selectedColumn;
+        type = MOVE;
+        return true;
+    }
+
+    /**
+     * pos konumundan başlayarak, isteğe bağlı boşluklarla çevrili negatif olmayan bir tamsayı okur.
+     * pos, sayıdan sonraki ayırıcıda (veya satır sonunda) bırakılır.
+     * @return Okunan sayı; sayı yoksa veya ayırıcıdan önce başka karakter varsa -1.
+     */
+    private int parseInt(byte[] buf, int end, char separator) {
+        while (pos < end && buf[pos] == ' ') {
+            pos++;
+        }
+        int value = 0;
+        int digits = 0;
+        while (pos < end && buf[pos] >= '0' && buf[pos] <= '9' && digits < 9) {
+            value = value * 10 + (buf[pos++] - '0');
+            digits++;
+        }
+        while (pos < end && buf[pos] == ' ') {
+            pos++;
+        }
+        if (digits == 0 || (pos < end && buf[pos] != separator)) {
+            return -1;
+        }
+        return value;
+    }
+
+    /**
+     * Kategori adını (büyük/küçük harf duyarsız, baştaki ve sondaki boşluklar hariç) kategoriye çevirir.
+     * @return Kategori, bilinmeyen bir adsa null.
+     */
+    private static Category findCategory(byte[] buf, int from, int end) {
+        while (from < end && buf[from] == ' ') {
+            from++;
+        }
+        while (end > from && buf[end - 1] == ' ') {
+            end--;
+        }
+        for (int i = 0; i < Category.COUNT; i++) {
+            Category category = Category.fromId(i);
+            String name = category.getName();
+            if (end - from == name.length() && matchesIgnoreCase(buf, from, end, name)) {
+                return category;
+            }
+        }
+        return null;
+    }
+
+    private static int indexOf(byte[] buf, int from, int end, char c) {
+        for (int i = from; i < end; i++) {
+            if (buf[i] == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Tamponun from konumundan başlayan baytların verilen ASCII önekle (büyük/küçük harf duyarsız) eşleşip eşleşmediğini kontrol eder.
+     */
+    private static boolean matchesIgnoreCase(byte[] buf, int from, int end, String prefix) {
+        if (end - from < prefix.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            int b = buf[from + i];
+            if (b >= 'A' && b <= 'Z') {
+                b += 'a' - 'A';
+            }
+            int c = Character.toLowerCase(prefix.charAt(i));
+            if (b != c) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,270 @@
+package Server;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * ConnectionOutput, giden kuyruğu olan bir oyuncu bağlantısının (PlayerHandler, NioConnection)
+ * gönderme tarafıdır. Mesajları bağlantının protokolüne göre (metin satırı veya BinaryProtocol
+ * çerçevesi) kodlar ve sınırlı bir OutboundQueue'ya ekler. Protokol geçişi ile mesajların kuyruğa
+ * eklenmesi aynı kilitle sıralanır; böylece geçişten önce kuyruğa giren her şey metin, sonra giren
+ * her şey çerçeve olarak gider. Kuyruk taşarsa bağlantı sonlandırılır.
+ *
+ * Kuyruğu sokete veya kanala yazmak bağlantının işidir: kuyruğa yazılacak bir mesaj girdiğinde
+ * (açık bir mesaj dizisi yoksa) bağlantının verdiği yazma isteği çağrılır ve bağlantı kuyruğu
+ * drainTo ile boşaltır.
+ */
+final class ConnectionOutput {
+
+    private final PlayerConnection owner; // Kuyruk taşarsa sonlandırılacak bağlantı.
+    private final Runnable writeRequest; // Kuyruğun yazılmasını başlatan istek (yazma görevi veya olay döngüsü).
+    private final OutboundQueue outbound = new OutboundQueue(OutboundQueue.DEFAULT_CAPACITY); // Gönderilmeyi bekleyen mesajlar.
+    private final ReentrantLock modeLock = new ReentrantLock(); // Protokol geçişi ile mesajların kuyruğa eklenmesini sıralar.
+    private final AtomicInteger batchDepth = new AtomicInteger(); // Açık beginBatch sayısı; sıfırdan büyükken yazma istenmez.
+    private volatile boolean binary = false; // İstemci ikili protokole geçtiyse true.
+    private volatile boolean overflowed = false; // Giden kuyruk taştı ve bağlantı sonlandırılıyor.
+    private volatile boolean closed = false; // Bağlantı kapandı; yeni mesajlar atılır.
+
+    /**
+     * ConnectionOutput sınıfının yapıcı metodudur.
+     * @param owner Mesajları gönderilen bağlantı.
+     * @param writeRequest Kuyrukta yazılacak mesaj olduğunda çağrılan istek; hiçbir zaman beklememelidir.
+     */
+    ConnectionOutput(PlayerConnection owner, Runnable writeRequest) {
+        this.owner = owner;
+        this.writeRequest = writeRequest;
+    }
+
+    /**
+     * İstemcinin ikili protokole geçip geçmediğini döndürür.
+     * @return İkili protokoldeyse true.
+     */
+    boolean isBinary() {
+        return binary;
+    }
+
+    /**
+     * İstemcinin ikili protokol isteğini onaylar. Onay satırı ve bayrağın değişmesi aynı kilit
+     * altında yapılır; böylece onaydan önce kuyruğa giren her şey metin, sonra giren her şey
+     * çerçeve olarak gider.
+     * @return Bağlantı ikili protokole geçtiyse true; zaten ikili protokoldeyse false.
+     */
+    boolean switchToBinary() {
+        modeLock.lock();
+        try {
+            if (binary) {
+                return false;
+            }
+            sendMessage(BinaryProtocol.HELLO);
+            binary = true;
+            return true;
+        } finally {
+            modeLock.unlock();
+        }
+    }
+
+    /**
+     * Bir metin mesajını (ikili protokolde TEXT çerçevesi olarak) giden kuyruğa ekler.
+     * @param message Satır sonu olmadan mesaj.
+     */
+    void sendMessage(String message) {
+        modeLock.lock();
+        try {
+            enqueue(binary ? BinaryProtocol.encodeText(message) : encodeLine(message), OutboundQueue.OTHER);
+        } finally {
+            modeLock.unlock();
+        }
+    }
+
+    /**
+     * Bir kez kodlanmış yayın mesajını, baytlarını kopyalamadan giden kuyruğa ekler.
+     * @param message Odadaki tüm alıcılarla paylaşılan mesaj.
+     */
+    void sendShared(SharedMessage message) {
+        modeLock.lock();
+        try {
+            enqueue(binary ? message.frameView() : message.lineView(), message.getKind());
+        } finally {
+            modeLock.unlock();
+        }
+    }
+
+    /**
+     * Zar değerlerini gönderir.
+     * @param dice Beş zar değeri.
+     */
+    void sendDice(int[] dice) {
+        modeLock.lock();
+        try {
+            enqueue(binary ? BinaryProtocol.encodeDice(dice) : encodeLine(SharedMessage.diceLine(dice)), OutboundQueue.DICE);
+        } finally {
+            modeLock.unlock();
+        }
+    }
+
+    /**
+     * Bir skor tablosu güncellemesi gönderir.
+     * @param row Skor tablosundaki satır.
+     * @param column Skor tablosundaki sütun (oyuncu).
+     * @param score Kaydedilen puan.
+     */
+    void sendScore(int row, int column, int score) {
+        modeLock.lock();
+        try {
+            enqueue(binary ? BinaryProtocol.encodeScore(row, column, score)
+                    : encodeLine("SCORE:" + row + "," + column + "," + score), OutboundQueue.OTHER);
+        } finally {
+            modeLock.unlock();
+        }
+    }
+
+    /**
+     * Sıranın hangi oyuncuda olduğunu gönderir.
+     * @param playerIndex Sıradaki oyuncunun indeksi.
+     */
+    void sendTurn(int playerIndex) {
+        modeLock.lock();
+        try {
+            enqueue(binary ? BinaryProtocol.encodeTurn(playerIndex) : encodeLine("TURN:" + playerIndex), OutboundQueue.TURN);
+        } finally {
+            modeLock.unlock();
+        }
+    }
+
+    /**
+     * İstemciye kendi oyuncu indeksini gönderir.
+     * @param playerIndex Oyuncunun indeksi.
+     */
+    void sendIndex(int playerIndex) {
+        modeLock.lock();
+        try {
+            enqueue(binary ? BinaryProtocol.encodeIndex(playerIndex) : encodeLine("INDEX:" + playerIndex), OutboundQueue.OTHER);
+        } finally {
+            modeLock.unlock();
+        }
+    }
+
+    /**
+     * Oyunun güncel durumunu gönderir: ikili protokolde tek bir STATE çerçevesi, metin
+     * protokolünde SCORE, DICE ve TURN satırları.
+     * @param state Oyunun güncel durumu.
+     * @param playerCount Oyuncu sayısı.
+     */
+    void sendState(GameState state, int playerCount) {
+        modeLock.lock();
+        try {
+            enqueue(binary ? BinaryProtocol.encodeState(state, playerCount)
+                    : encodeLine(SharedMessage.stateLines(state, playerCount)), OutboundQueue.OTHER);
+        } finally {
+            modeLock.unlock();
+        }
+    }
+
+    /**
+     * Canlılık sorusu (PING) gönderir.
+     */
+    void sendPing() {
+        modeLock.lock();
+        try {
+            if (binary) {
+                enqueue(BinaryProtocol.encodePing(), OutboundQueue.PING);
+            } else {
+                enqueue(encodeLine("PING"), OutboundQueue.OTHER);
+            }
+        } finally {
+            modeLock.unlock();
+        }
+    }
+
+    /**
+     * İstemcinin PING'ine PONG ile cevap verir.
+     */
+    void sendPong() {
+        modeLock.lock();
+        try {
+            enqueue(binary ? BinaryProtocol.encodePong() : encodeLine("PONG"), OutboundQueue.OTHER);
+        } finally {
+            modeLock.unlock();
+        }
+    }
+
+    /**
+     * Bir mesaj dizisinin başladığını bildirir; endBatch'e kadar yazma istenmez.
+     */
+    void beginBatch() {
+        batchDepth.incrementAndGet();
+    }
+
+    /**
+     * Mesaj dizisini bitirir ve biriken mesajlar varsa yazılmalarını ister.
+     */
+    void endBatch() {
+        if (batchDepth.decrementAndGet() == 0 && outbound.size() > 0) {
+            writeRequest.run();
+        }
+    }
+
+    /**
+     * Kuyruktaki mesajları yazılmak üzere verilen diziye taşır.
+     * @param batch Mesajların konacağı dizi.
+     * @return Taşınan mesaj sayısı.
+     */
+    int drainTo(ByteBuffer[] batch) {
+        return outbound.drainTo(batch);
+    }
+
+    /**
+     * Giden kuyrukta gönderilmeyi bekleyen mesaj sayısını döndürür.
+     * @return Kuyruk derinliği.
+     */
+    int size() {
+        return outbound.size();
+    }
+
+    /**
+     * Giden kuyruğun bağlantı açıldığından beri ulaştığı en büyük derinliği döndürür.
+     * @return En büyük derinlik.
+     */
+    int getHighWater() {
+        return outbound.getHighWater();
+    }
+
+    /**
+     * Bağlantı kapandığında kuyruğu boşaltır; bundan sonra gönderilen mesajlar atılır.
+     */
+    void close() {
+        closed = true;
+        outbound.clear();
+    }
+
+    /**
+     * Hazır bir mesajı giden kuyruğa ekler ve açık bir mesaj dizisi yoksa yazılmasını ister.
+     * Kuyruk taşarsa bağlantı sonlandırılır; oyuncunun koltuğu tutulur ve yeniden bağlandığında
+     * oyunun güncel durumunu alır.
+     * @param message Metin satırı veya BinaryProtocol tarafından oluşturulmuş çerçeve.
+     * @param kind Mesajın OutboundQueue türü.
+     */
+    private void enqueue(ByteBuffer message, byte kind) {
+        if (closed) {
+            return;
+        }
+        if (!outbound.offer(message, kind)) {
+            if (!overflowed) {
+                overflowed = true;
+                Log.warn(Log.Category.CONNECTION, "Oyuncu {} giden kuyruğu doldu ({} mesaj), bağlantı sonlandırılıyor.",
+                        owner.getPlayerId(), OutboundQueue.DEFAULT_CAPACITY);
+                owner.reap();
+            }
+            return;
+        }
+        if (batchDepth.get() == 0) {
+            writeRequest.run();
+        }
+    }
+
+    private static ByteBuffer encodeLine(String message) {
+        return ByteBuffer.wrap((message + "\n").getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,45 @@
+package Server;
+
+/**
+ * DetachedPlayer, bağlantısı olmayan bir oyuncu koltuğudur. Sunucu yeniden
+ * başladığında günlükten kurtarılan odalardaki oyuncuların soketleri artık
+ * yoktur; oda, oyuncular yeniden bağlanana kadar bu yer tutucularla açık
+ * kalır. Gönderilen tüm mesajlar sessizce atılır.
+ */
+class DetachedPlayer implements PlayerConnection {
+
+    private int playerId; // Koltuğun oda içindeki ID'si.
+
+    /**
+     * Belirtilen koltuk için bağlantısız bir oyuncu oluşturur.
+     * @param playerId Oyuncunun oda içindeki ID'si.
+     */
+    DetachedPlayer(int playerId) {
+        this.playerId = playerId;
+    }
+
+    @Override
+    public int getPlayerId() {
+        return playerId;
+    }
+
+    @Override
+    public void setPlayerId(int playerId) {
+        this.playerId = playerId;
+    }
+
+    @Override
+    public void setGameManager(GameManager gameManager) {
+        // Bağlantı olmadığı için iletilecek komut da yoktur.
+    }
+
+    @Override
+    public void sendMessage(String message) {
+        // Bağlantı yok; mesaj atılır.
+    }
+
+    @Override
+    public void closeConnection() {
+        // Kapatılacak bir bağlantı yok.
+    }
+}
@@ -1,5 +1,7 @@
 package Server;
 
+import java.util.concurrent.ThreadLocalRandom;
+
 /**
  * Bu sınıf, tek bir zarı (dice) temsil eder ve zarın değerini yönetir. Her bir
  * zarın 1 ile 6 arasında bir değeri olabilir ve bu değer atma işlemiyle
@@ -32,12 +34,12 @@ public class Dice {
 
     /**
      * Zarı rastgele atar ve 1 ile 6 arasında yeni bir değer belirler.
-     * Math.random() metodu 0.0 (dahil) ile 1.0 (hariç) arasında bir double
-     * değer döndürür. Bu değer 6 ile çarpılır (0.0 - 5.999...), tamsayıya
-     * çevrilir (0-5) ve 1 eklenir (1-6).
+     * Tüm thread'lerin paylaştığı Math.random() üreticisi yerine çağıran
+     * thread'e ait ThreadLocalRandom kullanılır; böylece farklı thread'lerden
+     * yapılan atışlar ortak bir üretici üzerinde çekişmez.
      */
     public void roll() {
-        this.value = (int) (Math.random() * 6) + 1;
+        this.value = ThreadLocalRandom.current().nextInt(1, 7);
     }
 
     /**
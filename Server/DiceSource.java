@@ -0,0 +1,18 @@
+package Server;
+
+/**
+ * DiceSource, bir oyun odasının zar atışlarını üreten kaynaktır. Her oda
+ * (GameState) kendi kaynağına sahiptir; böylece odalar ortak bir rastgele
+ * sayı üreticisi üzerinde çekişmez ve farklı kaynaklar (ör. sabit tohumlu
+ * veya test amaçlı) oyun mantığı değişmeden takılabilir.
+ */
+public interface DiceSource {
+
+    /**
+     * Maskede işaretli olmayan zarları yeniden atar. Yeni bir dizi ayırmaz;
+     * değerler verilen dizinin içine yazılır.
+     * @param dice 5 elemanlı zar dizisi; tutulan zarlar değişmeden kalır.
+     * @param heldMask Tutulacak zarların bit maskesi (bit i = i. zar tutuluyor).
+     */
+    void roll(int[] dice, int heldMask);
+}
@@ -0,0 +1,397 @@
+package Server;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * GameJournal, tüm odalardaki oyun durum geçişlerini (oyun başlangıcı/sıfırlama,
+ * zar atışı, skor kaydı, oyun sonu) sabit boyutlu ikili kayıtlar olarak yalnızca
+ * sona ekleyen bir günlüktür. Kayıtlar belleğe eşlenmiş (memory-mapped) segment
+ * dosyalarına yazılır; hamle yolundaki maliyet, kısa bir kilit altında 32
+ * baytlık bir bellek kopyasıdır. Diske zorla yazma (force) hamle yolunda
+ * yapılmaz: arka plandaki bir thread, son yazmadan bu yana birikmiş tüm
+ * kayıtları birkaç milisaniyede bir tek seferde diske işler (group commit).
+ *
+ * Günlük, belirli aralıklarla arka planda bir anlık görüntü (GameSnapshot)
+ * alır: son anlık görüntüden bu yana yazılan kayıtlar ayrı tutulan oyun
+ * durumlarına uygulanır, durumlar tek bir dosyaya yazılır ve tamamen kapsanan
+ * segmentler silinir. Sunucu yeniden başladığında en son anlık görüntü yüklenir
+ * ve yalnızca ondan sonraki kayıtlar (günlüğün kuyruğu) uygulanır; kurtarma
+ * süresi toplam günlük uzunluğuyla değil, canlı oda sayısı ve anlık görüntü
+ * aralığıyla orantılıdır.
+ *
+ * Kayıt biçimi (32 bayt): [tür: 1][oyuncu: 1][veri: 1][oyuncu sayısı: 1][boş: 4]
+ * [oda ID'si: 8][değer: 8 (START için tohum, SESSION için oturum anahtarı)][zaman damgası: 8 (ms)].
+ * Sıra ilerlemesi (nextTurn) her MOVE'un sonucu olduğundan ayrı bir kayıt tutmaz.
+ */
+public class GameJournal implements Closeable {
+
+    public static final int RECORD_SIZE = 32; // Tek bir kaydın bayt cinsinden boyutu.
+    private static final int DEFAULT_SEGMENT_SIZE = 4 * 1024 * 1024; // Varsayılan segment boyutu (131072 kayıt).
+    private static final long DEFAULT_SYNC_MILLIS = 5; // Varsayılan group commit aralığı.
+    private static final long DEFAULT_SNAPSHOT_MILLIS = 30_000; // Varsayılan anlık görüntü aralığı.
+    private static final String SNAPSHOT_FILE = "snapshot.bin"; // En son anlık görüntünün dosya adı.
+    private static final String SEGMENT_PREFIX = "journal-"; // Segment dosya adlarının öneki.
+    private static final String SEGMENT_SUFFIX = ".seg"; // Segment dosya adlarının soneki.
+
+    // Kayıt türleri. 0, segmentin henüz yazılmamış (sıfırlarla dolu) kısmını işaretler.
+    static final int START = 1; // Yeni oyun (veya sıfırlama): oyuncu sayısı ve tohum.
+    static final int ROLL = 2; // Zar atışı: oyuncu ve tutulan zar maskesi.
+    static final int MOVE = 3; // Skor kaydı: oyuncu ve kategori.
+    static final int END = 4; // Oyun bitti veya oda kapandı.
+    static final int SESSION = 5; // Bir koltuğa verilen oturum anahtarı: oyuncu ve anahtar.
+
+    private final Path directory; // Segment dosyalarının bulunduğu dizin.
+    private final int segmentSize; // Her segmentin bayt cinsinden boyutu (RECORD_SIZE'ın katı).
+    private final ReentrantLock lock = new ReentrantLock(); // Eklemeleri ve segment değişimini sıralar.
+    private final Map<Long, GameState> recovered; // Açılışta kurtarılan, devam eden oyunlar.
+    private final Map<Long, long[]> recoveredSessions; // Kurtarılan odaların koltuklarının oturum anahtarları.
+    private final GameSnapshot snapshot; // Anlık görüntü thread'inin günlükten kurduğu oyun durumları.
+    private final ScheduledExecutorService syncer; // Group commit thread'i.
+    private final ScheduledExecutorService snapshotter; // Anlık görüntü thread'i.
+    private FileChannel channel; // Yazılan segmentin dosya kanalı.
+    private MappedByteBuffer segment; // Yazılan segmentin eşlenmiş belleği.
+    private int segmentIndex; // Yazılan segmentin sıra numarası.
+    private volatile boolean dirty = false; // Son force'tan bu yana yeni kayıt eklendi mi.
+    private volatile long published; // Yazılmış son kaydın sonu: [segment numarası: 32 bit][bayt konumu: 32 bit].
+    private volatile long syncCount = 0; // Diske yapılan group commit sayısı.
+
+    /**
+     * Varsayılan segment boyutu, group commit ve anlık görüntü aralıklarıyla günlüğü açar.
+     * @param directory Segment dosyalarının dizini (yoksa oluşturulur).
+     * @throws IOException Dizin veya segmentler okunamaz/yazılamazsa.
+     */
+    public GameJournal(Path directory) throws IOException {
+        this(directory, DEFAULT_SNAPSHOT_MILLIS);
+    }
+
+    /**
+     * Varsayılan segment boyutu ve group commit aralığıyla günlüğü açar.
+     * @param directory Segment dosyalarının dizini (yoksa oluşturulur).
+     * @param snapshotMillis Anlık görüntü aralığı (ms).
+     * @throws IOException Dizin veya segmentler okunamaz/yazılamazsa.
+     */
+    public GameJournal(Path directory, long snapshotMillis) throws IOException {
+        this(directory, DEFAULT_SEGMENT_SIZE, DEFAULT_SYNC_MILLIS, snapshotMillis);
+    }
+
+    /**
+     * Günlüğü açar: en son anlık görüntüyü yükleyip günlüğün kuyruğunu uygular, kurtarılan
+     * durumun yeni bir anlık görüntüsünü yazar, kapsanan segmentleri siler ve group commit ile
+     * anlık görüntü thread'lerini başlatır.
+     * @param directory Segment dosyalarının dizini (yoksa oluşturulur).
+     * @param segmentSize Segment boyutu (bayt).
+     * @param syncMillis Group commit aralığı (ms).
+     * @param snapshotMillis Anlık görüntü aralığı (ms).
+     * @throws IOException Dizin, segmentler veya anlık görüntü okunamaz/yazılamazsa.
+     */
+    public GameJournal(Path directory, int segmentSize, long syncMillis, long snapshotMillis) throws IOException {
+        this.directory = directory;
+        this.segmentSize = Math.max(RECORD_SIZE, segmentSize / RECORD_SIZE * RECORD_SIZE);
+        Files.createDirectories(directory);
+
+        long start = System.nanoTime();
+        snapshot = GameSnapshot.load(directory.resolve(SNAPSHOT_FILE));
+        int fromSnapshot = snapshot.getGames().size();
+        List<Path> oldSegments = listSegments();
+        long tail = 0;
+        for (Path path : oldSegments) {
+            tail += readSegment(path, Integer.MAX_VALUE);
+        }
+        segmentIndex = snapshot.getSegment();
+        if (!oldSegments.isEmpty()) {
+            segmentIndex = Math.max(segmentIndex, segmentNumber(oldSegments.get(oldSegments.size() - 1)) + 1);
+        }
+
+        // Kurtarılan durum yeni segmentin başını kapsayan bir anlık görüntü olur; eski segmentlere artık gerek yoktur.
+        snapshot.setPosition(segmentIndex, 0);
+        byte[] data = snapshot.toBytes();
+        GameSnapshot.write(data, directory.resolve(SNAPSHOT_FILE));
+        GameSnapshot copy = GameSnapshot.fromBytes(data); // Canlı odalara anlık görüntüden bağımsız kopyalar verilir.
+        recovered = copy.getGames();
+        recoveredSessions = copy.getSessions();
+        for (GameState state : recovered.values()) {
+            state.setVerbose(true);
+        }
+        for (Path path : oldSegments) {
+            Files.deleteIfExists(path);
+        }
+        openSegment();
+        if (Log.isEnabled(Log.Category.JOURNAL, Log.Level.INFO)) {
+            Log.info(Log.Category.JOURNAL, "{}", String.format("Günlük kurtarma: anlık görüntüden %d oda, kuyruktan %d kayıt, %d canlı oda, %.1f ms",
+                    fromSnapshot, tail, recovered.size(), (System.nanoTime() - start) / 1e6));
+        }
+
+        syncer = newDaemonScheduler("journal-sync");
+        syncer.scheduleWithFixedDelay(this::sync, syncMillis, syncMillis, TimeUnit.MILLISECONDS);
+        snapshotter = newDaemonScheduler("journal-snapshot");
+        snapshotter.scheduleWithFixedDelay(this::takeSnapshot, snapshotMillis, snapshotMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private static ScheduledExecutorService newDaemonScheduler(String name) {
+        return Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, name);
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Açılışta günlükten kurtarılan ve henüz bitmemiş oyunları döndürür.
+     * @return Oda ID'si -> kaldığı yerden sürdürülebilecek oyun durumu.
+     */
+    public Map<Long, GameState> getRecoveredGames() {
+        return recovered;
+    }
+
+    /**
+     * Kurtarılan odaların koltuklarına verilmiş oturum anahtarlarını döndürür.
+     * @return Oda ID'si -> oyuncu ID'sine göre oturum anahtarları (verilmemişse 0).
+     */
+    public Map<Long, long[]> getRecoveredSessions() {
+        return recoveredSessions;
+    }
+
+    /**
+     * Diske yapılmış group commit sayısını döndürür.
+     * @return Force sayısı.
+     */
+    public long getSyncCount() {
+        return syncCount;
+    }
+
+    /**
+     * Bir odada yeni bir oyunun başladığını (veya oyunun sıfırlandığını) kaydeder.
+     * @param roomId Oda ID'si.
+     * @param playerCount Oyuncu sayısı.
+     * @param seed Oyunun zar tohumu.
+     */
+    public void recordStart(long roomId, int playerCount, long seed) {
+        append(START, roomId, 0, 0, playerCount, seed);
+    }
+
+    /**
+     * Bir zar atışını kaydeder.
+     * @param roomId Oda ID'si.
+     * @param playerId Zarı atan oyuncu.
+     * @param heldMask Tutulan zarların bit maskesi.
+     */
+    public void recordRoll(long roomId, int playerId, int heldMask) {
+        append(ROLL, roomId, playerId, heldMask, 0, 0);
+    }
+
+    /**
+     * Bir skor kaydını kaydeder.
+     * @param roomId Oda ID'si.
+     * @param playerId Hamleyi yapan oyuncu.
+     * @param category Seçilen kategori.
+     */
+    public void recordMove(long roomId, int playerId, Category category) {
+        append(MOVE, roomId, playerId, category.ordinal(), 0, 0);
+    }
+
+    /**
+     * Bir koltuğa verilen oturum anahtarını kaydeder; sunucu yeniden başladığında oyuncular bu
+     * anahtarla kurtarılan odadaki koltuklarına dönebilir.
+     * @param roomId Oda ID'si.
+     * @param playerId Koltuğun oyuncu ID'si.
+     * @param token Oturum anahtarı.
+     */
+    public void recordSession(long roomId, int playerId, long token) {
+        append(SESSION, roomId, playerId, 0, 0, token);
+    }
+
+    /**
+     * Odadaki oyunun bittiğini veya odanın kapandığını kaydeder; kurtarmada bu oyun atlanır.
+     * @param roomId Oda ID'si.
+     */
+    public void recordEnd(long roomId) {
+        append(END, roomId, 0, 0, 0, 0);
+    }
+
+    /**
+     * Tek bir kaydı yazılan segmente ekler. Segment dolduysa yenisine geçilir.
+     */
+    private void append(int type, long roomId, int playerId, int data, int playerCount, long value) {
+        lock.lock();
+        try {
+            if (segment.remaining() < RECORD_SIZE) {
+                segment.force(); // Dolan segmentteki kayıtlar kaybolmasın.
+                channel.close();
+                segmentIndex++;
+                openSegment();
+            }
+            segment.put((byte) type).put((byte) playerId).put((byte) data).put((byte) playerCount).putInt(0);
+            segment.putLong(roomId).putLong(value).putLong(System.currentTimeMillis());
+            published = ((long) segmentIndex << 32) | segment.position();
+            dirty = true;
+        } catch (IOException e) {
+            Log.warn(Log.Category.JOURNAL, "Günlük segmenti değiştirilemedi: {}", e.getMessage());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Son force'tan bu yana eklenen tüm kayıtları tek seferde diske işler (group commit).
+     * Force kilit dışında yapılır; bu sırada hamle thread'leri eklemeye devam edebilir.
+     */
+    private void sync() {
+        if (!dirty) {
+            return;
+        }
+        dirty = false;
+        MappedByteBuffer current = segment;
+        try {
+            current.force();
+            syncCount++;
+        } catch (RuntimeException e) {
+            Log.warn(Log.Category.JOURNAL, "Günlük diske yazılamadı: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Son anlık görüntüden bu yana yayınlanmış kayıtları anlık görüntünün oyun durumlarına
+     * uygular, anlık görüntüyü dosyaya yazar ve tamamen kapsanan segmentleri siler. Anlık
+     * görüntü thread'inde çalışır; hamle thread'leri yalnızca published alanını yazar ve
+     * beklemez.
+     */
+    private void takeSnapshot() {
+        try {
+            long start = System.nanoTime();
+            long position = published;
+            int lastSegment = (int) (position >>> 32);
+            int lastOffset = (int) position;
+            if (lastSegment == snapshot.getSegment() && lastOffset == snapshot.getOffset()) {
+                return; // Son anlık görüntüden bu yana yeni kayıt yok.
+            }
+            int firstSegment = snapshot.getSegment();
+            long applied = 0;
+            for (int index = firstSegment; index <= lastSegment; index++) {
+                Path path = segmentPath(index);
+                if (Files.exists(path)) {
+                    applied += readSegment(path, index == lastSegment ? lastOffset : Integer.MAX_VALUE);
+                }
+            }
+            snapshot.setPosition(lastSegment, lastOffset);
+            byte[] data = snapshot.toBytes();
+            GameSnapshot.write(data, directory.resolve(SNAPSHOT_FILE));
+            for (int index = firstSegment; index < lastSegment; index++) {
+                Files.deleteIfExists(segmentPath(index)); // Anlık görüntü bu segmentin tamamını kapsıyor.
+            }
+            if (Log.isEnabled(Log.Category.JOURNAL, Log.Level.INFO)) {
+                Log.info(Log.Category.JOURNAL, "{}", String.format("Anlık görüntü: %d oda, %d kayıt uygulandı, %d bayt, %.1f ms",
+                        snapshot.getGames().size(), applied, data.length, (System.nanoTime() - start) / 1e6));
+            }
+        } catch (IOException | RuntimeException e) {
+            Log.warn(Log.Category.JOURNAL, "Anlık görüntü alınamadı: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Arka plan thread'lerini durdurur, bekleyen kayıtları diske işler ve segmenti kapatır.
+     */
+    @Override
+    public void close() throws IOException {
+        snapshotter.shutdownNow();
+        syncer.shutdownNow();
+        lock.lock();
+        try {
+            segment.force();
+            channel.close();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * segmentIndex numaralı yeni segment dosyasını oluşturur ve belleğe eşler.
+     */
+    private void openSegment() throws IOException {
+        channel = FileChannel.open(segmentPath(segmentIndex), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        published = (long) segmentIndex << 32;
+    }
+
+    private Path segmentPath(int index) {
+        return directory.resolve(String.format("%s%06d%s", SEGMENT_PREFIX, index, SEGMENT_SUFFIX));
+    }
+
+    /**
+     * Dizindeki segment dosyalarını sıra numarasına göre sıralı döndürür.
+     */
+    private List<Path> listSegments() throws IOException {
+        List<Path> segments = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path path : stream) {
+                segments.add(path);
+            }
+        }
+        Collections.sort(segments); // Sıfırla doldurulmuş numaralar sayesinde ad sırası yazma sırasıdır.
+        return segments;
+    }
+
+    private static int segmentNumber(Path path) {
+        String name = path.getFileName().toString();
+        return Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    /**
+     * Bir segmentteki, anlık görüntünün henüz kapsamadığı kayıtları sırayla anlık görüntüye
+     * uygular ve anlık görüntünün konumunu ilerletir. Anlık görüntünün segmentinden önceki
+     * segmentler zaten kapsandığı için atlanır.
+     * @param path Segment dosyası.
+     * @param limit Segmentte okunacak son bayt konumu (hariç).
+     * @return Uygulanan kayıt sayısı.
+     */
+    private long readSegment(Path path, int limit) throws IOException {
+        int index = segmentNumber(path);
+        if (index < snapshot.getSegment()) {
+            return 0;
+        }
+        int from = index == snapshot.getSegment() ? snapshot.getOffset() : 0;
+        long applied = 0;
+        try (FileChannel in = FileChannel.open(path, StandardOpenOption.READ)) {
+            int end = (int) Math.min(in.size(), limit);
+            ByteBuffer buffer = ByteBuffer.allocate(Math.max(0, end - from));
+            while (buffer.hasRemaining() && in.read(buffer, from + buffer.position()) >= 0) {
+                // Okunacak aralığın tamamı tampona alınır.
+            }
+            buffer.flip();
+            int position = from;
+            while (buffer.remaining() >= RECORD_SIZE) {
+                int type = buffer.get() & 0xFF;
+                int playerId = buffer.get() & 0xFF;
+                int data = buffer.get() & 0xFF;
+                int playerCount = buffer.get() & 0xFF;
+                buffer.getInt();
+                long roomId = buffer.getLong();
+                long value = buffer.getLong();
+                buffer.getLong(); // Zaman damgası kurtarmada kullanılmaz.
+                if (type == 0) {
+                    break; // Segmentin yazılmamış kısmı.
+                }
+                snapshot.apply(type, roomId, playerId, data, playerCount, value);
+                position += RECORD_SIZE;
+                applied++;
+            }
+            snapshot.setPosition(index, position);
+        }
+        return applied;
+    }
+}
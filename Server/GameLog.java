@@ -0,0 +1,178 @@
+package Server;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * GameLog, tek bir oyunun yeniden oynatılabilir kaydıdır: zar kaynağının
+ * tohumu, oyuncu sayısı ve kabul edilen her ROLL (tutulan zar maskesi) ile
+ * MOVE (kategori) olayı. Zarlar tohumdan yeniden üretildiği ve puanlar
+ * zarlardan hesaplandığı için yalnızca oyuncu kararları saklanır; oyun
+ * bittiğinde oyuncuların toplam puanları da doğrulama için eklenir.
+ *
+ * Her olay tek bir int olarak saklanır: [tür: 4 bit][boş: 12 bit][oyuncu: 8 bit][veri: 8 bit].
+ * Tipik bir iki kişilik oyun yaklaşık 100 olay (400 bayt) tutar.
+ */
+public class GameLog {
+
+    public static final int ROLL = 1; // Veri: tutulan zarların bit maskesi.
+    public static final int MOVE = 2; // Veri: Category.ordinal().
+
+    private final long seed; // Oyunun zar kaynağının tohumu.
+    private final int playerCount; // Oyundaki oyuncu sayısı.
+    private int[] events = new int[64]; // Kodlanmış olaylar.
+    private int size; // Kayıtlı olay sayısı.
+    private int[] finalTotals; // Oyun bittiyse oyuncuların toplam puanları, bitmediyse null.
+
+    /**
+     * Yeni ve boş bir oyun kaydı oluşturur.
+     * @param seed Oyunun zar kaynağının tohumu.
+     * @param playerCount Oyundaki oyuncu sayısı.
+     */
+    public GameLog(long seed, int playerCount) {
+        this.seed = seed;
+        this.playerCount = playerCount;
+    }
+
+    /**
+     * Oyunun zar kaynağının tohumunu döndürür.
+     * @return Tohum.
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Oyundaki oyuncu sayısını döndürür.
+     * @return Oyuncu sayısı.
+     */
+    public int getPlayerCount() {
+        return playerCount;
+    }
+
+    /**
+     * Kayıtlı olay sayısını döndürür.
+     * @return Olay sayısı.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Bir zar atışını kaydeder.
+     * @param playerId Zarı atan oyuncu.
+     * @param heldMask Tutulan zarların bit maskesi.
+     */
+    public void recordRoll(int playerId, int heldMask) {
+        append(encode(ROLL, playerId, heldMask));
+    }
+
+    /**
+     * Bir kategoriye yapılan skor kaydını kaydeder.
+     * @param playerId Hamleyi yapan oyuncu.
+     * @param category Seçilen kategori.
+     */
+    public void recordMove(int playerId, Category category) {
+        append(encode(MOVE, playerId, category.ordinal()));
+    }
+
+    /**
+     * Oyunun bittiğini ve oyuncuların toplam puanlarını kaydeder.
+     * @param totals Oyuncu ID'sine göre toplam puanlar.
+     */
+    public void complete(int[] totals) {
+        this.finalTotals = Arrays.copyOf(totals, totals.length);
+    }
+
+    /**
+     * Oyun bittiyse oyuncuların kayıtlı toplam puanlarını döndürür.
+     * @return Toplam puanlar, oyun bitmediyse null.
+     */
+    public int[] getFinalTotals() {
+        return finalTotals;
+    }
+
+    /**
+     * i. olayın türünü döndürür.
+     * @param i Olayın sırası (0..size()-1).
+     * @return ROLL veya MOVE.
+     */
+    public int getType(int i) {
+        return events[i] >>> 28;
+    }
+
+    /**
+     * i. olayı yapan oyuncuyu döndürür.
+     * @param i Olayın sırası (0..size()-1).
+     * @return Oyuncu ID'si.
+     */
+    public int getPlayer(int i) {
+        return (events[i] >>> 8) & 0xFF;
+    }
+
+    /**
+     * i. olayın verisini döndürür.
+     * @param i Olayın sırası (0..size()-1).
+     * @return ROLL için tutulan zarların bit maskesi, MOVE için Category.ordinal().
+     */
+    public int getData(int i) {
+        return events[i] & 0xFF;
+    }
+
+    private static int encode(int type, int playerId, int data) {
+        return (type << 28) | ((playerId & 0xFF) << 8) | (data & 0xFF);
+    }
+
+    private void append(int event) {
+        if (size == events.length) {
+            events = Arrays.copyOf(events, size * 2);
+        }
+        events[size++] = event;
+    }
+
+    /**
+     * Kaydı ikili biçimde yazar: tohum, oyuncu sayısı, olay sayısı, olaylar ve
+     * (varsa) toplam puanlar.
+     * @param out Hedef akış.
+     * @throws IOException Yazma hatası oluşursa.
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeLong(seed);
+        out.writeByte(playerCount);
+        out.writeInt(size);
+        for (int i = 0; i < size; i++) {
+            out.writeInt(events[i]);
+        }
+        out.writeBoolean(finalTotals != null);
+        if (finalTotals != null) {
+            for (int total : finalTotals) {
+                out.writeShort(total);
+            }
+        }
+    }
+
+    /**
+     * writeTo ile yazılmış bir kaydı okur.
+     * @param in Kaynak akış.
+     * @return Okunan kayıt.
+     * @throws IOException Okuma hatası oluşursa veya kayıt yarıda kesilmişse.
+     */
+    public static GameLog readFrom(DataInput in) throws IOException {
+        GameLog log = new GameLog(in.readLong(), in.readUnsignedByte());
+        int count = in.readInt();
+        log.events = new int[Math.max(count, 1)];
+        for (int i = 0; i < count; i++) {
+            log.events[i] = in.readInt();
+        }
+        log.size = count;
+        if (in.readBoolean()) {
+            log.finalTotals = new int[log.playerCount];
+            for (int i = 0; i < log.playerCount; i++) {
+                log.finalTotals[i] = in.readUnsignedShort();
+            }
+        }
+        return log;
+    }
+}
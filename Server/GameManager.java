@@ -1,39 +1,265 @@
 package Server;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Queue;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger; // Atomik işlemler için kullanılır, özellikle sayaçlar için güvenlidir.
 
 /**
  * GameManager sınıfı, Yahtzee oyununun sunucu tarafındaki tüm oyun mantığını yönetir.
  * Oyuncuların girişlerini işler, zar atma, skor hesaplama ve tur yönetimi gibi işlemleri yürütür.
+ *
+ * Her oda tek yazıcılı bir aktördür. Bağlantı, zamanlayıcı ve oda kaydı thread'lerinden
+ * çağrılan public metodlar oda durumuna dokunmaz; komutu çözer ve odanın kilitsiz posta
+ * kutusuna bir mesaj ekler. Mesajlar RoomScheduler'ın işçi thread'lerinde, aynı anda
+ * yalnızca bir işçide ve geliş sırasıyla işlenir. Bu yüzden oyun durumu, oyuncu listesi
+ * ve tur süresi kilitsiz tutulur; "oda thread'inde" denilen metodlar yalnızca bir mesajın
+ * içinden çağrılır.
  */
 public class GameManager {
 
-    private List<PlayerHandler> players; // Oyuna bağlı tüm oyuncuları (PlayerHandler nesnelerini) tutan liste.
+    // Oyuna bağlı tüm oyuncuları (PlayerConnection nesnelerini) tutan liste. Yalnızca oda thread'inde değiştirilir.
+    private List<PlayerConnection> players;
     private GameState gameState; // Oyunun mevcut durumunu (zar değerleri, skor tablosu, mevcut tur vb.) tutan nesne.
     private AtomicInteger restartRequests; // Yeni oyun başlatma isteklerini sayan atomik sayaç.
     private int requiredPlayers; // Oyunun başlaması için gereken oyuncu sayısı (veya başlangıçtaki oyuncu sayısı).
     private boolean gameEnded = false; // Oyunun sona erip ermediğini belirten bayrak.
+    private boolean closed = false; // Oda kayıttan kaldırıldı mı (koltuklara yeniden oturulamaz).
+    private final Queue<Runnable> mailbox = new ConcurrentLinkedQueue<>(); // Odaya gönderilen, henüz işlenmemiş mesajlar.
+    private final AtomicBoolean scheduled = new AtomicBoolean(false); // Posta kutusu bir işçinin kuyruğunda veya işleniyor mu.
+    private final RoomScheduler scheduler; // Posta kutusunu işleyen işçi havuzu.
+    private final Runnable drainTask = this::drain; // Her zamanlamada yeni bir nesne oluşturmamak için.
+    // Sıradaki oyuncu (üst bitler) ve bu turda attığı zar sayısı (alt 8 bit); oyun bittiyse -1. Oda thread'i
+    // yazar, bağlantı thread'leri kuralları çiğneyen komutları posta kutusuna eklemeden reddetmek için okur.
+    private volatile int turnGate;
+
+    private static final String NOT_YOUR_TURN = "INFO:Sıra sizde değil. Lütfen bekleyin.";
+    private static final String NO_ROLLS_LEFT = "INFO:Bu tur için zar atma hakkınız kalmadı. Lütfen bir kategori seçin.";
+    private static final String ROLL_FIRST = "INFO:Skor hesaplamak için zar atılmış olmalı.";
+    private static final String NO_HOLD_ON_FIRST_ROLL = "INFO:Turun ilk atışında zar tutulamaz.";
+    private static final String GAME_IS_OVER = "INFO:Oyun bitti. Yeni oyun için RESTART gönderin.";
+    private final long roomId; // Bu oyunun sunucu içindeki oda ID'si.
+    private final RoomRegistry registry; // Odanın kayıtlı olduğu oda kaydı (tek oyunlu kullanımda null).
+    private final SplittableRandom gameSeeds; // Bu odada başlayan her oyunun zar tohumunu üretir.
+    private final GameJournal journal; // Durum geçişlerinin yazıldığı kalıcı günlük (yoksa null).
+    private final long[] sessionTokens; // Koltukların oturum anahtarları (oyuncu ID'sine göre, verilmemişse 0).
+    private final TimerWheel turnTimer; // Tur sürelerini izleyen çark (tur süresi kapalıysa null).
+    private final long turnMillis; // Sıradaki oyuncunun hamle yapması için tanınan süre (ms).
+    private TimerWheel.Timeout turnTimeout; // Şu anki turun süresi (oda thread'inde değiştirilir).
+    private final SpectatorFanout fanout; // İzleyicilere dağıtım aşaması (tek oyunlu kullanımda null).
+    private final SpectatorFanout.Group spectators = new SpectatorFanout.Group(this); // Odayı izleyen bağlantılar.
 
     /**
      * GameManager sınıfının yapıcı metodudur.
      * Oyun yöneticisini belirtilen oyuncu listesiyle başlatır.
-     * @param players Oyuna katılan PlayerHandler nesnelerinin listesi.
+     * @param players Oyuna katılan PlayerConnection nesnelerinin listesi.
      */
-    public GameManager(List<PlayerHandler> players) {
-        this.players = players; // Oyuncu listesini set et.
+    public GameManager(List<? extends PlayerConnection> players) {
+        this(players, 0, null);
+    }
+
+    /**
+     * Bir oda kaydına ait GameManager oluşturur.
+     * @param players Odaya yerleştirilen oyuncular.
+     * @param roomId Odanın ID'si.
+     * @param registry Odanın kayıtlı olduğu RoomRegistry (oyuncu ayrıldığında oda buradan kaldırılır).
+     */
+    public GameManager(List<? extends PlayerConnection> players, long roomId, RoomRegistry registry) {
+        this(players, roomId, registry, null);
+    }
+
+    /**
+     * Günlükten kurtarılan bir oyunu sürdüren GameManager oluşturur.
+     * @param players Odadaki oyuncular.
+     * @param roomId Odanın ID'si.
+     * @param registry Odanın kayıtlı olduğu RoomRegistry.
+     * @param recovered Günlükten kurtarılmış oyun durumu; null ise yeni bir oyun başlar.
+     */
+    GameManager(List<? extends PlayerConnection> players, long roomId, RoomRegistry registry, GameState recovered) {
+        this.roomId = roomId;
+        this.registry = registry;
+        this.journal = registry != null ? registry.getJournal() : null;
+        this.players = new ArrayList<>(players); // Oyuncu listesini set et.
         this.requiredPlayers = players.size(); // Gerekli oyuncu sayısını mevcut oyuncu sayısına eşitle.
-        this.gameState = new GameState(players.size()); // Oyuncu sayısına göre yeni bir GameState oluştur.
+        this.sessionTokens = new long[players.size()];
+        this.turnMillis = registry != null ? registry.getTurnMillis() : 0;
+        this.turnTimer = turnMillis > 0 ? registry.getTurnTimer() : null;
+        this.fanout = registry != null ? registry.getFanout() : null;
+        this.scheduler = registry != null ? registry.getScheduler() : RoomScheduler.common();
+        this.gameSeeds = new SplittableRandom(registry != null ? registry.roomSeed(roomId) : ThreadLocalRandom.current().nextLong());
+        this.gameState = recovered != null ? recovered : newGameState(); // Oyuncu sayısına göre yeni bir GameState oluştur.
         this.restartRequests = new AtomicInteger(0); // Yeniden başlatma istek sayacını sıfırla.
         this.gameEnded = false; // Oyunun henüz bitmediğini işaretle.
+        updateTurnGate();
+    }
+
+    /**
+     * Yeni bir oyun için tohumlu zar kaynağı ve olay kaydı olan bir GameState oluşturur.
+     * Aynı tohum ve olay kaydıyla ReplayEngine oyunu birebir yeniden kurabilir.
+     * @return Yeni oyun durumu.
+     */
+    private GameState newGameState() {
+        long seed = gameSeeds.nextLong();
+        if (journal != null) {
+            journal.recordStart(roomId, players.size(), seed);
+        }
+        return new GameState(players.size(), new SplittableDiceSource(seed), new GameLog(seed, players.size()));
+    }
+
+    /**
+     * Şu anki oyunun olay kaydını (tohum ve kabul edilen ROLL/MOVE olayları) döndürür.
+     * @return Oyun kaydı.
+     */
+    public GameLog getGameLog() {
+        return gameState.getGameLog();
+    }
+
+    /**
+     * Odanın ID'sini döndürür.
+     * @return Oda ID'si.
+     */
+    public long getRoomId() {
+        return roomId;
+    }
+
+    /**
+     * Odadaki oyuncu bağlantılarını döndürür.
+     * @return Oyuncu listesi (yalnızca oda thread'inde tutarlıdır).
+     */
+    public List<? extends PlayerConnection> getPlayers() {
+        return players;
+    }
+
+    /**
+     * Odanın posta kutusuna bir mesaj ekler; herhangi bir thread'den çağrılabilir ve hiçbir zaman
+     * beklemez. Posta kutusu boşsa oda bir işçiye verilir; mesajlar geliş sırasıyla işlenir.
+     * @param message Oda thread'inde çalıştırılacak iş.
+     */
+    void post(Runnable message) {
+        mailbox.add(message);
+        if (scheduled.compareAndSet(false, true)) {
+            scheduler.schedule(drainTask);
+        }
+    }
+
+    /**
+     * Posta kutusundaki en fazla RoomScheduler.getBatchSize kadar mesajı bir işçi thread'inde
+     * işler (bir etkinleştirme). Aynı anda yalnızca bir işçi bu metodu çalıştırır (scheduled
+     * bayrağı). Mesajların ürettiği tüm yayınlar tek bir mesaj dizisinde toplanır ve her
+     * bağlantıya etkinleştirmenin sonunda birlikte gönderilir.
+     */
+    private void drain() {
+        long start = System.nanoTime();
+        int limit = scheduler.getBatchSize();
+        int processed = 0;
+        List<PlayerConnection> batch = beginBatch();
+        try {
+            while (processed < limit) {
+                Runnable message = mailbox.poll();
+                if (message == null) {
+                    break;
+                }
+                processed++;
+                try {
+                    message.run();
+                } catch (RuntimeException e) {
+                    Log.error(Log.Category.ROOM, "Oda {} mesajı işlenirken hata oluştu", roomId, e);
+                }
+            }
+        } finally {
+            endBatch(batch);
+            scheduler.recordActivation(processed, System.nanoTime() - start);
+            scheduled.set(false);
+            // Bayrak bırakılmadan hemen önce eklenen mesajı kaçırmamak için kutu yeniden kontrol edilir.
+            if (!mailbox.isEmpty() && scheduled.compareAndSet(false, true)) {
+                scheduler.schedule(drainTask);
+            }
+        }
+    }
+
+    /**
+     * Odaya bir izleyici ekler. İzleyici önce oyunun güncel durumunu, ardından DICE, SCORE ve
+     * TURN akışını alır; komut gönderemez.
+     * @param spectator İzleyicinin bağlantısı.
+     */
+    void addSpectator(PlayerConnection spectator) {
+        spectators.add(spectator);
+        fanout.publish(spectators, null, roomId); // Yeni izleyici durum mesajını dağıtım aşamasından alır.
+    }
+
+    /**
+     * Bir izleyiciyi odadan çıkarır.
+     * @param spectator İzleyicinin bağlantısı.
+     */
+    void removeSpectator(PlayerConnection spectator) {
+        spectators.remove(spectator);
+    }
+
+    /**
+     * Tüm izleyicileri odadan çıkarır (oda kapandığında).
+     * @return Çıkarılan izleyicilerin bağlantıları.
+     */
+    List<PlayerConnection> removeAllSpectators() {
+        return spectators.clear();
+    }
+
+    /**
+     * Odayı izleyen bağlantı sayısını döndürür.
+     * @return İzleyici sayısı.
+     */
+    public int getSpectatorCount() {
+        return spectators.size();
+    }
+
+    /**
+     * Geride kalan veya yeni katılan izleyiciler için güncel durum mesajı ister. Dağıtım thread'inden
+     * çağrılır; durum oda thread'inde oluşturulur ve o ana kadar yayınlanan olaylardan sonra
+     * dağıtım aşamasına bırakılır.
+     */
+    void requestState() {
+        post(() -> fanout.publishState(spectators, SharedMessage.state(gameState, players.size()), roomId));
+    }
+
+    /**
+     * Bir olayı odanın izleyicilerine dağıtılmak üzere dağıtım aşamasına bırakır. İzleyici
+     * yoksa hiçbir şey yapmaz; oyun thread'i izleyici sayısından bağımsız olarak beklemez.
+     * @param message DICE, SCORE veya TURN olayı.
+     */
+    private void publish(SharedMessage message) {
+        if (fanout != null && !spectators.isEmpty()) {
+            fanout.publish(spectators, message, roomId);
+        }
+    }
+
+    /**
+     * Bir koltuğun oturum anahtarını döndürür.
+     * @param playerId Koltuğun oyuncu ID'si.
+     * @return Oturum anahtarı, verilmemişse 0.
+     */
+    long getSessionToken(int playerId) {
+        return sessionTokens[playerId];
+    }
+
+    /**
+     * Bir koltuğa RoomRegistry tarafından verilen oturum anahtarını kaydeder.
+     * @param playerId Koltuğun oyuncu ID'si.
+     * @param token Oturum anahtarı.
+     */
+    void setSessionToken(int playerId, long token) {
+        sessionTokens[playerId] = token;
     }
 
     /**
      * Oyunu başlatır. İlk oyuncunun sırasını göndererek oyunu başlatır.
      */
     public void startGame() {
-        sendTurnInfo(); // İlk tur bilgisini oyunculara gönder.
+        post(this::sendTurnInfo); // İlk tur bilgisini oyunculara gönder.
     }
 
     /**
@@ -45,136 +271,113 @@ public class GameManager {
     }
 
     /**
-     * Oyunun bittiğini tüm bekleyen thread'lere sinyal veren senkronize metod.
-     * Bu metod şu an için kullanılmıyor gibi görünse de, gelecekteki senkronizasyon ihtiyaçları için yer tutar.
+     * Bağlantı katmanından (PlayerHandler veya NioConnection) gelen tek bir komut satırını yönlendirir.
+     * RESTART ve QUIT komutları burada ele alınır, diğer tüm komutlar handlePlayerInput'a iletilir.
+     * Komutlar odanın posta kutusuna eklenir; çağıran thread oda işini beklemez.
+     * @param player Komutu gönderen oyuncu bağlantısı.
+     * @param input Oyuncudan gelen komut satırı.
+     * @return Bağlantı açık kalmalıysa true, oyuncu ayrıldıysa (QUIT) false.
+     */
+    public boolean handleCommand(PlayerConnection player, String input) {
+        if (input.equalsIgnoreCase("RESTART")) { // "RESTART" komutu gelirse
+            Log.info(Log.Category.GAME, "Oyuncu {} yeni oyun istedi.", player.getPlayerId());
+            requestNewGame(player.getPlayerId()); // Yeni oyun isteğini işle.
+            return true;
+        } else if (input.equalsIgnoreCase("QUIT")) { // "QUIT" komutu gelirse
+            Log.info(Log.Category.ROOM, "Oyuncu {} oyundan ayrıldı.", player.getPlayerId());
+            playerDisconnected(player.getPlayerId()); // Oyuncunun bağlantısının kesildiğini işle.
+            return false; // Bağlantı kapatılacak.
+        }
+        handlePlayerInput(player, input); // Diğer komutlar (ROLL, MOVE vb.) için oyun mantığını çalıştır.
+        return true;
+    }
+
+    /**
+     * CommandParser tarafından bağlantının giriş tamponundan String oluşturmadan çözülmüş
+     * bir ROLL veya MOVE komutunu işler. Metin yolundaki trim/split ayırmaları yapılmaz.
+     * @param player Komutu gönderen oyuncu bağlantısı.
+     * @param command parse çağrısı true dönmüş ayrıştırıcı.
      */
-    private synchronized void signalGameOver() {
-        notifyAll(); // Bu nesne üzerinde bekleyen tüm thread'leri uyandır.
+    public void handleParsedCommand(PlayerConnection player, CommandParser command) {
+        boolean roll = command.getType() == CommandParser.ROLL;
+        if (!admits(player, roll, roll ? command.getHeldMask() : 0)) {
+            return;
+        }
+        // Ayrıştırıcı bağlantının bir sonraki satırında yeniden kullanılır; değerler mesaja kopyalanır.
+        if (command.getType() == CommandParser.ROLL) {
+            int heldMask = command.getHeldMask();
+            post(() -> handleRoll(player, heldMask));
+        } else if (command.getType() == CommandParser.MOVE) {
+            Category category = command.getCategory();
+            int selectedRow = command.getRow();
+            int selectedColumn = command.getColumn();
+            post(() -> handleMove(player, category, selectedRow, selectedColumn));
+        }
     }
 
     /**
-     * Oyuncudan gelen girişi işler.
-     * Yalnızca sırası gelen oyuncunun komutlarını kabul eder.
-     * @param player Komutu gönderen PlayerHandler nesnesi.
+     * Oyuncudan gelen metin protokolü girişini odanın posta kutusuna ekler.
+     * @param player Komutu gönderen oyuncu bağlantısı.
      * @param input Oyuncudan gelen komut dizesi.
      */
-    public void handlePlayerInput(PlayerHandler player, String input) {
-        int currentPlayerIndex = gameState.getCurrentPlayerIndex(); // Mevcut sıradaki oyuncunun indeksini al.
+    public void handlePlayerInput(PlayerConnection player, String input) {
+        if (turnGate >>> 8 != player.getPlayerId()) { // Oyun bittiyse de (-1) hiçbir oyuncunun sırası değildir.
+            player.sendMessage(turnGate < 0 ? GAME_IS_OVER : NOT_YOUR_TURN); // Ayrıştırma ve oda işi yapılmaz.
+            return;
+        }
+        post(() -> applyInput(player, input));
+    }
 
+    /**
+     * Oyuncudan gelen metin protokolü girişini oda thread'inde işler.
+     * Yalnızca sırası gelen oyuncunun komutlarını kabul eder.
+     * @param player Komutu gönderen oyuncu bağlantısı.
+     * @param input Oyuncudan gelen komut dizesi.
+     */
+    private void applyInput(PlayerConnection player, String input) {
         // Eğer komutu gönderen oyuncu sıradaki oyuncu değilse, bilgi mesajı gönder ve çık.
-        if (player.getPlayerId() != currentPlayerIndex) {
-            player.sendMessage("INFO:Sıra sizde değil. Lütfen bekleyin.");
+        if (!isPlayersTurn(player)) {
             return;
         }
 
         input = input.trim(); // Girişin başındaki ve sonundaki boşlukları temizle.
-        System.out.println("Oyuncu " + player.getPlayerId() + " komutu: " + input); // Konsola komutu yazdır.
+        Log.info(Log.Category.COMMAND, "Oyuncu {} komutu: {}", player.getPlayerId(), input); // Yazıcı thread'inde biçimlendirilir.
 
         // Komut "ROLL" ile başlıyorsa zar atma işlemini yap.
         if (input.toUpperCase().startsWith("ROLL")) {
             String[] parts = input.split(":"); // Komutu ":" karakterine göre ayır.
-            List<Integer> heldIndices = new ArrayList<>(); // Tutulacak zar indekslerini saklamak için liste.
+            int heldMask = 0; // Tutulacak zarların bit maskesi (bit i = i. zar tutuluyor).
             if (parts.length > 1) { // Eğer tutulacak zar indeksleri belirtilmişse
                 String[] indexStrings = parts[1].split(","); // İndeksleri "," karakterine göre ayır.
                 for (String indexStr : indexStrings) {
                     try {
                         int index = Integer.parseInt(indexStr.trim()); // İndeksi tamsayıya çevir.
-                        // İndeks geçerli bir aralıktaysa (0-4) listeye ekle.
+                        // İndeks geçerli bir aralıktaysa (0-4) maskeye ekle.
                         if (index >= 0 && index < 5) {
-                            heldIndices.add(index);
+                            heldMask |= 1 << index;
                         } else {
-                            System.err.println("Hata: ROLL komutunda geçersiz zar indeksi değeri: " + indexStr);
+                            Log.warn(Log.Category.COMMAND, "ROLL komutunda geçersiz zar indeksi değeri: {}", indexStr);
                         }
                     } catch (NumberFormatException e) {
                         // Sayısal dönüşüm hatası olursa konsola yazdır.
-                        System.err.println("Hata: ROLL komutunda geçersiz zar indeksi formatı: " + indexStr);
+                        Log.warn(Log.Category.COMMAND, "ROLL komutunda geçersiz zar indeksi formatı: {}", indexStr);
                     }
                 }
             }
-
-            int[] currentDiceValues = gameState.getCurrentPlayerDice(); // Mevcut oyuncunun zar değerlerini al.
-            if (currentDiceValues == null) { // Eğer henüz zar atılmamışsa, boş bir zar dizisi oluştur.
-                currentDiceValues = new int[5];
-            }
-
-            // Zar atma işlemini yap ve yeni zar değerlerini al.
-            int[] newDiceValues = gameState.rollDice(heldIndices, currentDiceValues);
-
-            // Tüm oyunculara güncel zar değerlerini gönder.
-            player.sendMessage("DICE:" + arrayToString(newDiceValues));
+            handleRoll(player, heldMask);
 
         } else if (input.toLowerCase().startsWith("move:")) { // Komut "MOVE:" ile başlıyorsa skor kaydetme işlemini yap.
             try {
                 String[] parts = input.substring(5).split(":"); // "MOVE:" kısmını atla ve ":" karakterine göre ayır.
                 if (parts.length == 4) { // Beklenen formatta 4 parça olmalı (kategori, zar_değerleri, satır, sütun).
-                    String category = parts[0].trim().toLowerCase(); // Kategoriyi al ve küçük harfe çevir.
+                    Category category = Category.fromName(parts[0].trim()); // Kategori adını Category sabitine çevir.
                     int selectedRow = Integer.parseInt(parts[2]); // Seçilen satır indeksini al.
                     int selectedColumn = Integer.parseInt(parts[3]); // Seçilen sütun indeksini al.
-
-                    int[] diceForScoreCalculation = gameState.getCurrentPlayerDice(); // Mevcut oyuncunun zar değerlerini al.
-                    if (diceForScoreCalculation == null) { // Eğer zar atılmamışsa uyarı gönder.
-                        player.sendMessage("INFO:Skor hesaplamak için zar atılmış olmalı.");
-                        return;
-                    }
-                    // Seçilen kategoriye göre skoru hesapla.
-                    int calculatedScore = ScoreCalculator.calculate(category, diceForScoreCalculation);
-
-                    // Eğer bu kategori daha önce kullanıldıysa uyarı gönder.
-                    if (gameState.isCategoryUsed(player.getPlayerId(), category)) {
-                        player.sendMessage("INFO:Bu kategori daha önce kullanıldı. Lütfen başka bir kategori seçin.");
+                    if (category == null) { // Bilinmeyen kategori adı.
+                        player.sendMessage("INFO:Geçersiz kategori: " + parts[0].trim());
                         return;
                     }
-
-                    // Oyuncunun skorunu GameState'e kaydet.
-                    gameState.setScore(player.getPlayerId(), category, calculatedScore);
-                    player.sendMessage("INFO:Skorunuz (" + category + ": " + calculatedScore + ") kaydedildi.");
-
-                    // Tüm oyunculara güncel skor bilgisini yayınla.
-                    broadcast("SCORE:" + selectedRow + "," + selectedColumn + "," + calculatedScore);
-                    gameState.nextTurn(); // Bir sonraki tura geç.
-
-                    // Oyunun bitip bitmediğini kontrol et.
-                    if (gameState.isGameOver()) {
-                        broadcast("INFO:Oyun bitti! Sonuçlar hesaplanıyor...");
-                        System.out.println("Oyun bitti! Sonuçlar hesaplanıyor...");
-
-                        int winningPlayerId = -1; // Kazanan oyuncunun ID'si
-                        int maxScore = -1; // En yüksek skor
-                        List<String> playerResults = new ArrayList<>(); // Oyuncu sonuçlarını tutan liste.
-
-                        // Her oyuncunun toplam skorunu hesapla ve sonuçları hazırla.
-                        for (int i = 0; i < players.size(); i++) {
-                            int currentPlayerTotalScore = gameState.getTotalScore(i);
-                            String playerName = "Oyuncu " + (i + 1);
-
-                            playerResults.add(playerName + ": " + currentPlayerTotalScore + " Puan");
-                            System.out.println(playerName + " Toplam Skor: " + currentPlayerTotalScore);
-
-                            // En yüksek skoru ve kazananı belirle.
-                            if (currentPlayerTotalScore > maxScore) {
-                                maxScore = currentPlayerTotalScore;
-                                winningPlayerId = i;
-                            } else if (currentPlayerTotalScore == maxScore) {
-                                // Beraberlik durumunda -2 ile işaretle.
-                                winningPlayerId = -2;
-                            }
-                        }
-                        broadcast("GAME_OVER_SUMMARY:"); // Oyun bitiş özeti mesajını gönder.
-                        for (String result : playerResults) {
-                            broadcast("INFO:" + result); // Her oyuncunun sonucunu gönder.
-                        }
-
-                        // Kazananı veya beraberlik durumunu duyur.
-                        if (winningPlayerId == -2) {
-                            broadcast("INFO:Oyun berabere bitti!");
-                        } else {
-                            String winnerName = "Oyuncu " + (winningPlayerId + 1);
-                            broadcast("INFO:Kazanan: " + winnerName + " " + maxScore + " Puan ile!");
-                        }
-
-                    } else {
-                        sendTurnInfo(); // Oyun bitmediyse bir sonraki turun bilgisini gönder.
-                    }
+                    handleMove(player, category, selectedRow, selectedColumn);
                 } else {
                     // MOVE komutu formatı hatalıysa uyarı gönder.
                     player.sendMessage("INFO:MOVE komutu formatı hatalı. Beklenen: MOVE:kategori:zar1 zar2 z3 z4 z5:satir:sutun");
@@ -182,37 +385,273 @@ public class GameManager {
             } catch (NumberFormatException e) {
                 // Sayısal dönüşüm hatası olursa uyarı gönder ve hatayı yazdır.
                 player.sendMessage("INFO:MOVE komutundaki sayısal değerler (satır, sütun) hatalı.");
-                System.err.println("NumberFormatException in MOVE handling: " + e.getMessage());
-                e.printStackTrace();
-            } catch (Exception e) {
-                // Diğer genel hatalar için uyarı gönder ve hatayı yazdır.
-                player.sendMessage("INFO:MOVE komutu işlenirken bir hata oluştu.");
-                System.err.println("General exception in MOVE handling: " + e.getMessage());
-                e.printStackTrace();
+                Log.warn(Log.Category.COMMAND, "MOVE komutunda geçersiz sayı: {}", e.getMessage());
             }
         } else if (input.equalsIgnoreCase("QUIT")) { // Komut "QUIT" ise oyuncu bağlantısını kes.
-            playerDisconnected(player.getPlayerId()); // Oyuncunun bağlantısının kesildiğini bildir.
+            disconnect(player.getPlayerId()); // Oyuncunun bağlantısının kesildiğini bildir.
         } else {
             // Geçersiz komut ise uyarı gönder.
             player.sendMessage("INFO:Geçersiz komut. 'ROLL' ya da 'MOVE:kategori' kullan.");
         }
     }
 
+    /**
+     * İkili protokolle gelen tek bir çerçeveyi işler. ROLL ve MOVE çerçeveleri metin
+     * ayrıştırması yapılmadan çözülüp odanın posta kutusuna eklenir; TEXT çerçeveleri
+     * metin protokolündeki gibi handleCommand'a gönderilir.
+     * @param player Çerçeveyi gönderen oyuncu bağlantısı.
+     * @param body Konumu opcode baytında olan çerçeve gövdesi.
+     * @return Bağlantı açık kalmalıysa true, oyuncu ayrıldıysa (QUIT) false.
+     */
+    public boolean handleBinaryCommand(PlayerConnection player, ByteBuffer body) {
+        int opcode = body.get() & 0xFF;
+        switch (opcode) {
+            case BinaryProtocol.OP_ROLL:
+                if (body.remaining() >= 1) {
+                    int heldMask = body.get() & 0x1F;
+                    if (admits(player, true, heldMask)) {
+                        post(() -> handleRoll(player, heldMask));
+                    }
+                }
+                return true;
+            case BinaryProtocol.OP_MOVE:
+                if (body.remaining() >= 3 && admits(player, false, 0)) {
+                    Category category = Category.fromId(body.get() & 0xFF);
+                    int selectedRow = body.get() & 0xFF;
+                    int selectedColumn = body.get() & 0xFF;
+                    post(() -> {
+                        if (category == null) {
+                            if (isPlayersTurn(player)) {
+                                player.sendMessage("INFO:Geçersiz kategori.");
+                            }
+                        } else {
+                            handleMove(player, category, selectedRow, selectedColumn);
+                        }
+                    });
+                }
+                return true;
+            case BinaryProtocol.OP_TEXT:
+                return handleCommand(player, BinaryProtocol.decodeText(body));
+            default:
+                player.sendMessage("INFO:Geçersiz komut. 'ROLL' ya da 'MOVE:kategori' kullan.");
+                return true;
+        }
+    }
+
+    /**
+     * Bir ROLL veya MOVE komutunu posta kutusuna eklemeden önce bağlantı thread'inde ön kontrolden
+     * geçirir: sırası olmayan oyuncunun komutları, atış hakkı bitmiş oyuncunun ROLL'ları, turun ilk
+     * atışında zar tutmaya çalışan ROLL'lar ve bu turda zar atmamış oyuncunun MOVE'ları oda işi,
+     * günlük veya yayın maliyeti doğurmadan reddedilir.
+     * turnGate oda thread'inde TURN ve DICE gönderilmeden önce güncellendiği için istemcinin
+     * gördüğü durumla tutarlıdır; yine de kesin karar oda thread'indeki kontroldedir.
+     * @param player Komutu gönderen oyuncu.
+     * @param roll ROLL ise true, MOVE ise false.
+     * @param heldMask ROLL'da tutulmak istenen zarların bit maskesi; MOVE için 0.
+     * @return Komut odaya iletilmeliyse true; reddedildiyse oyuncu bilgilendirilmiştir.
+     */
+    private boolean admits(PlayerConnection player, boolean roll, int heldMask) {
+        int gate = turnGate;
+        String rejection = null;
+        if (gate < 0) {
+            rejection = GAME_IS_OVER;
+        } else if (gate >>> 8 != player.getPlayerId()) {
+            rejection = NOT_YOUR_TURN;
+        } else if (roll && (gate & 0xFF) >= GameState.MAX_ROLLS) {
+            rejection = NO_ROLLS_LEFT;
+        } else if (roll && (gate & 0xFF) == 0 && heldMask != 0) {
+            rejection = NO_HOLD_ON_FIRST_ROLL;
+        } else if (!roll && (gate & 0xFF) == 0) {
+            rejection = ROLL_FIRST;
+        }
+        if (rejection != null) {
+            player.sendMessage(rejection);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Ön kontrolün okuduğu turnGate'i oyun durumuna göre günceller. Oda thread'inde, sıra
+     * veya atış sayısı değiştikten sonra ve bunu bildiren mesajlardan önce çağrılır.
+     */
+    private void updateTurnGate() {
+        turnGate = gameState.isGameOver() ? -1 : gameState.getCurrentPlayerIndex() << 8 | gameState.getRollCount();
+    }
+
+    /**
+     * Komutu gönderen oyuncunun sırası olup olmadığını kontrol eder; değilse oyuncuyu bilgilendirir.
+     * Oda thread'inde çağrılır.
+     * @param player Komutu gönderen oyuncu bağlantısı.
+     * @return Sıra bu oyuncudaysa true.
+     */
+    private boolean isPlayersTurn(PlayerConnection player) {
+        if (player.getPlayerId() != gameState.getCurrentPlayerIndex()) {
+            player.sendMessage(NOT_YOUR_TURN);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Sıradaki oyuncu için zar atar ve yeni zar değerlerini oyuncuya gönderir. Oda thread'inde çağrılır.
+     * @param player Zar atan oyuncu.
+     * @param heldMask Tutulacak zarların bit maskesi (bit i = i. zar tutuluyor).
+     */
+    private void handleRoll(PlayerConnection player, int heldMask) {
+        if (!isPlayersTurn(player)) {
+            return;
+        }
+        if (!gameState.canRoll()) { // Ön kontrolden kaçan (ör. art arda gönderilmiş) fazla atışlar.
+            player.sendMessage(gameState.isGameOver() ? GAME_IS_OVER : NO_ROLLS_LEFT);
+            return;
+        }
+        if (!gameState.hasRolled() && heldMask != 0) { // Önceki turun zarları tutulamaz (metin yolu ön kontrolden geçmez).
+            player.sendMessage(NO_HOLD_ON_FIRST_ROLL);
+            return;
+        }
+        // Zar atma işlemini yap ve yeni zar değerlerini al.
+        int[] newDiceValues = gameState.rollDice(heldMask);
+        updateTurnGate();
+        if (journal != null) {
+            journal.recordRoll(roomId, player.getPlayerId(), heldMask);
+        }
+
+        // Oyuncuya güncel zar değerlerini gönder.
+        player.sendDice(newDiceValues);
+        publish(SharedMessage.dice(newDiceValues));
+    }
+
+    /**
+     * Sıradaki oyuncunun seçtiği kategoriye skorunu kaydeder, skoru yayınlar ve sırayı ilerletir.
+     * Oyun bittiyse sonuçları hesaplayıp tüm oyunculara gönderir. Oda thread'inde çağrılır.
+     * @param player Hamleyi yapan oyuncu.
+     * @param category Seçilen kategori.
+     * @param selectedRow İstemcinin skor tablosundaki satır.
+     * @param selectedColumn İstemcinin skor tablosundaki sütun.
+     */
+    private void handleMove(PlayerConnection player, Category category, int selectedRow, int selectedColumn) {
+        if (isPlayersTurn(player)) {
+            applyMove(player, category, selectedRow, selectedColumn);
+        }
+    }
+
+    /**
+     * handleMove'un sıra kontrolünden sonraki gövdesidir; tur süresi dolduğunda da çağrılır.
+     * @param player Hamleyi yapan oyuncu.
+     * @param category Seçilen kategori.
+     * @param selectedRow İstemcinin skor tablosundaki satır.
+     * @param selectedColumn İstemcinin skor tablosundaki sütun.
+     */
+    private void applyMove(PlayerConnection player, Category category, int selectedRow, int selectedColumn) {
+        try {
+            if (!gameState.hasRolled()) { // Önceki turdan kalan zarlarla skor yazılamaz.
+                player.sendMessage(ROLL_FIRST);
+                return;
+            }
+            int[] diceForScoreCalculation = gameState.getCurrentPlayerDice(); // Mevcut oyuncunun zar değerlerini al.
+            // Seçilen kategoriye göre skoru hesapla.
+            int calculatedScore = ScoreCalculator.calculate(category, diceForScoreCalculation);
+
+            // Eğer bu kategori daha önce kullanıldıysa uyarı gönder.
+            if (gameState.isCategoryUsed(player.getPlayerId(), category)) {
+                player.sendMessage("INFO:Bu kategori daha önce kullanıldı. Lütfen başka bir kategori seçin.");
+                return;
+            }
+
+            // Oyuncunun skorunu GameState'e kaydet.
+            gameState.setScore(player.getPlayerId(), category, calculatedScore);
+            if (journal != null) {
+                journal.recordMove(roomId, player.getPlayerId(), category);
+            }
+            cancelTurnTimer(); // Hamle yapıldı; sıradaki tur için sendTurnInfo yeni süre kurar.
+            player.sendMessage("INFO:Skorunuz (" + category.getName() + ": " + calculatedScore + ") kaydedildi.");
+
+            // Tüm oyunculara güncel skor bilgisini yayınla.
+            broadcastScore(selectedRow, selectedColumn, calculatedScore);
+            gameState.nextTurn(); // Bir sonraki tura geç.
+            updateTurnGate();
+
+            // Oyunun bitip bitmediğini kontrol et.
+            if (gameState.isGameOver()) {
+                broadcast("INFO:Oyun bitti! Sonuçlar hesaplanıyor...");
+                Log.info(Log.Category.GAME, "Oda {}: Oyun bitti! Sonuçlar hesaplanıyor...", roomId);
+
+                int winningPlayerId = -1; // Kazanan oyuncunun ID'si
+                int maxScore = -1; // En yüksek skor
+                List<String> playerResults = new ArrayList<>(); // Oyuncu sonuçlarını tutan liste.
+                int[] totals = new int[players.size()]; // Oyun kaydına yazılacak toplam puanlar.
+
+                // Her oyuncunun toplam skorunu hesapla ve sonuçları hazırla.
+                for (int i = 0; i < players.size(); i++) {
+                    int currentPlayerTotalScore = gameState.getTotalScore(i);
+                    totals[i] = currentPlayerTotalScore;
+                    String playerName = "Oyuncu " + (i + 1);
+
+                    playerResults.add(playerName + ": " + currentPlayerTotalScore + " Puan");
+                    Log.info(Log.Category.GAME, "{} Toplam Skor: {}", playerName, currentPlayerTotalScore);
+
+                    // En yüksek skoru ve kazananı belirle.
+                    if (currentPlayerTotalScore > maxScore) {
+                        maxScore = currentPlayerTotalScore;
+                        winningPlayerId = i;
+                    } else if (currentPlayerTotalScore == maxScore) {
+                        // Beraberlik durumunda -2 ile işaretle.
+                        winningPlayerId = -2;
+                    }
+                }
+                gameState.getGameLog().complete(totals); // Kaydı ReplayEngine ile doğrulanabilir hale getir.
+                if (journal != null) {
+                    journal.recordEnd(roomId); // Bitmiş oyun yeniden başlatmada kurtarılmaz.
+                }
+                Log.info(Log.Category.GAME, "Oda {} oyun kaydı tamamlandı: tohum {}, {} olay.", roomId,
+                        gameState.getGameLog().getSeed(), gameState.getGameLog().size());
+                broadcast("GAME_OVER_SUMMARY:"); // Oyun bitiş özeti mesajını gönder.
+                for (String result : playerResults) {
+                    broadcast("INFO:" + result); // Her oyuncunun sonucunu gönder.
+                }
+
+                // Kazananı veya beraberlik durumunu duyur.
+                if (winningPlayerId == -2) {
+                    broadcast("INFO:Oyun berabere bitti!");
+                } else {
+                    String winnerName = "Oyuncu " + (winningPlayerId + 1);
+                    broadcast("INFO:Kazanan: " + winnerName + " " + maxScore + " Puan ile!");
+                }
+
+            } else {
+                sendTurnInfo(); // Oyun bitmediyse bir sonraki turun bilgisini gönder.
+            }
+        } catch (Exception e) {
+            // Genel hatalar için uyarı gönder ve hatayı yazdır.
+            player.sendMessage("INFO:MOVE komutu işlenirken bir hata oluştu.");
+            Log.error(Log.Category.GAME, "Oda {} MOVE işlenirken hata oluştu", roomId, e);
+        }
+    }
+
     /**
      * Bir oyuncudan yeni oyun isteği geldiğinde çağrılır.
      * Tüm oyunculardan istek geldiğinde yeni bir oyun başlatır.
      * @param playerId Yeni oyun isteyen oyuncunun ID'si.
      */
-    public synchronized void requestNewGame(int playerId) {
+    public void requestNewGame(int playerId) {
+        post(() -> restartRequested(playerId));
+    }
+
+    /**
+     * requestNewGame'in oda thread'inde çalışan gövdesidir.
+     * @param playerId Yeni oyun isteyen oyuncunun ID'si.
+     */
+    private void restartRequested(int playerId) {
         if (gameEnded) { // Oyun bitmişse yeni oyun isteğini işle.
             int currentRequests = restartRequests.incrementAndGet(); // Restart isteği sayacını artır.
-            System.out.println("Oyuncu " + playerId + " restart istedi. Toplam istek: " + currentRequests);
+            Log.info(Log.Category.GAME, "Oyuncu {} restart istedi. Toplam istek: {}", playerId, currentRequests);
 
             // Eğer tüm gerekli oyunculardan istek gelmişse
             if (currentRequests >= requiredPlayers) {
                 broadcast("INFO:Tüm oyuncular yeni oyun istedi. Yeni oyun başlıyor. Lütfen bekleyin.");
-                resetGame(players); // Oyunu sıfırla.
-                startGame(); // Yeni oyunu başlat.
+                reset(players); // Oyunu sıfırla.
+                sendTurnInfo(); // Yeni oyunu başlat.
                 restartRequests.set(0); // İstek sayacını sıfırla.
                 gameEnded = false; // Oyun bitiş bayrağını sıfırla.
             } else {
@@ -227,12 +666,23 @@ public class GameManager {
      * Mevcut oyuncu listesini kullanır veya günceller.
      * @param newPlayers Yeni oyun için kullanılacak oyuncu listesi (genellikle mevcut liste).
      */
-    public void resetGame(List<PlayerHandler> newPlayers) {
-        this.players = newPlayers; // Oyuncu listesini güncelle.
-        this.gameState = new GameState(players.size()); // Yeni bir GameState nesnesi oluştur.
+    public void resetGame(List<? extends PlayerConnection> newPlayers) {
+        List<PlayerConnection> copy = new ArrayList<>(newPlayers); // Çağıranın listesi mesaj işlenene kadar değişebilir.
+        post(() -> reset(copy));
+    }
+
+    /**
+     * resetGame'in oda thread'inde çalışan gövdesidir.
+     * @param newPlayers Yeni oyun için kullanılacak oyuncu listesi.
+     */
+    private void reset(List<? extends PlayerConnection> newPlayers) {
+        this.players = new ArrayList<>(newPlayers); // Oyuncu listesini güncelle.
+        this.gameState = newGameState(); // Yeni bir GameState nesnesi oluştur.
         this.restartRequests.set(0); // Yeniden başlatma isteklerini sıfırla.
         this.gameEnded = false; // Oyunun henüz bitmediğini işaretle.
-        System.out.println("Oyun sıfırlandı. Yeni tur başlıyor.");
+        updateTurnGate();
+        Log.info(Log.Category.GAME, "Oda {}: Oyun sıfırlandı. Yeni tur başlıyor.", roomId);
+        spectators.requestResync(); // İzleyicilerin skor tabloları yeni oyunun ilk olayında sıfırlanır.
         broadcast("INFO:Oyun sıfırlandı. Yeni bir oyun başlayacak."); // Tüm oyunculara oyunun sıfırlandığını bildir.
     }
 
@@ -241,13 +691,210 @@ public class GameManager {
      * Eğer oyun henüz bitmemişse ve oyuncu sayısı yetersiz hale gelirse oyunu sonlandırır.
      * @param playerId Bağlantısı kesilen oyuncunun ID'si.
      */
-    public synchronized void playerDisconnected(int playerId) {
-        System.out.println("GameManager: Oyuncu " + playerId + " bağlantısı kesildi. Kalan oyuncular: " + (players.size() - 1));
+    public void playerDisconnected(int playerId) {
+        post(() -> disconnect(playerId));
+    }
+
+    /**
+     * playerDisconnected'ın oda thread'inde çalışan gövdesidir.
+     * @param playerId Bağlantısı kesilen oyuncunun ID'si.
+     */
+    private void disconnect(int playerId) {
+        Log.info(Log.Category.ROOM, "Oda {}: Oyuncu {} bağlantısı kesildi. Kalan oyuncular: {}", roomId, playerId, players.size() - 1);
 
         // Eğer oyun bitmemişse ve kalan oyuncu sayısı gerekliden az ise oyunu sonlandır.
         if (!gameEnded && players.size() - 1 < requiredPlayers) {
             broadcast("INFO:Bir oyuncu bağlantısı kesildi. Oyun sona erdi. Yeterli oyuncu bekleniyor...");
-            signalGameOver(); // Oyunun bittiğini sinyal ver.
+        }
+        // Oda kaydına bağlıysa odayı kapat; kalan oyuncular yeni bir masa için lobiye döner.
+        if (registry != null) {
+            close(playerId);
+        }
+    }
+
+    /**
+     * Odayı kayıttan kaldırır ve kapalı olarak işaretler; bu noktadan sonra koltuklara yeniden
+     * oturulamaz. Oda thread'inde çağrılır.
+     * @param leavingPlayerId Odadan ayrılan oyuncunun ID'si.
+     */
+    private void close(int leavingPlayerId) {
+        closed = true;
+        registry.closeRoom(this, leavingPlayerId);
+    }
+
+    /**
+     * Bir oyuncunun bağlantısı QUIT gönderilmeden koptuğunda çağrılır. Oda kaydına bağlı odalarda
+     * oyun bitirilmez: koltuk bir DetachedPlayer ile tutulur ve oyuncunun oturum anahtarıyla
+     * yeniden bağlanması için RoomRegistry'nin bekleme süresi başlatılır. Süre dolarsa
+     * playerDisconnected çağrılır.
+     * @param player Bağlantısı kopan oyuncu.
+     */
+    public void playerDropped(PlayerConnection player) {
+        post(() -> dropped(player));
+    }
+
+    /**
+     * playerDropped'ın oda thread'inde çalışan gövdesidir.
+     * @param player Bağlantısı kopan oyuncu.
+     */
+    private void dropped(PlayerConnection player) {
+        int playerId = player.getPlayerId();
+        if (registry == null) {
+            disconnect(playerId); // Oturum yönetimi yok; eski davranış.
+            return;
+        }
+        if (closed || playerId < 0 || playerId >= players.size() || players.get(playerId) != player) {
+            return; // Koltuk zaten boşaltılmış veya oda kapatılmış.
+        }
+        players.set(playerId, new DetachedPlayer(playerId));
+        Log.info(Log.Category.ROOM, "Oda {}: Oyuncu {} bağlantısı koptu, koltuk tutuluyor.", roomId, playerId);
+        broadcast("INFO:Oyuncu " + (playerId + 1) + " bağlantısı koptu. Yeniden bağlanması bekleniyor...");
+        registry.holdSeat(this, playerId);
+    }
+
+    /**
+     * Yeniden bağlanan oyuncuyu koltuğuna yerleştirir ve ona oyunun güncel durumunu (oyuncu
+     * indeksi, skor tablosu, zarlar ve sıra) gönderir. Sunucu eski bağlantının koptuğunu henüz
+     * fark etmediyse (mobil ağlarda sık görülür) koltuk yeni bağlantıya devredilir ve eski
+     * bağlantı kapatılır. Yerleştirme oda thread'inde yapılır; oda bu arada kapandıysa bağlantı
+     * RoomRegistry.resumeFailed ile lobiye geri gönderilir.
+     * @param playerId Koltuğun oyuncu ID'si.
+     * @param player Yeniden bağlanan oyuncunun yeni bağlantısı.
+     */
+    void reattach(int playerId, PlayerConnection player) {
+        post(() -> reattached(playerId, player));
+    }
+
+    /**
+     * reattach'in oda thread'inde çalışan gövdesidir.
+     * @param playerId Koltuğun oyuncu ID'si.
+     * @param player Yeniden bağlanan oyuncunun yeni bağlantısı.
+     */
+    private void reattached(int playerId, PlayerConnection player) {
+        if (closed || playerId >= players.size()) {
+            registry.resumeFailed(player); // Oda kapatılmış; yeni bir oyun beklesin.
+            return;
+        }
+        PlayerConnection previous = players.get(playerId);
+        previous.setGameManager(null); // Eski bağlantıdan gelecek komutlar artık bu odaya iletilmez.
+        player.setPlayerId(playerId);
+        player.setGameManager(this);
+        player.sendMessage("PLAYERS:" + players.size()); // Yeni bağlantının istemcisi skor tablosunu boyutlandırsın.
+        player.sendIndex(playerId);
+        player.sendState(gameState, players.size()); // Tam yeniden başlatma yerine tek seferlik durum özeti.
+        players.set(playerId, player);
+        if (!(previous instanceof DetachedPlayer)) {
+            previous.closeConnection();
+        }
+        Log.info(Log.Category.ROOM, "Oda {}: Oyuncu {} yeniden bağlandı.", roomId, playerId);
+        broadcast("INFO:Oyuncu " + (playerId + 1) + " yeniden bağlandı.");
+    }
+
+    /**
+     * Bir koltuğun bekleme süresi dolduğunda RoomRegistry tarafından çağrılır. Oyuncu hâlâ
+     * bağlanmadıysa bağlantısı kesilmiş sayılır.
+     * @param playerId Koltuğun oyuncu ID'si.
+     */
+    void seatExpired(int playerId) {
+        post(() -> {
+            if (closed || playerId >= players.size() || !(players.get(playerId) instanceof DetachedPlayer)) {
+                return; // Oyuncu zamanında döndü veya oda kapandı.
+            }
+            Log.info(Log.Category.ROOM, "Oda {}: Oyuncu {} zamanında yeniden bağlanmadı.", roomId, playerId);
+            disconnect(playerId);
+        });
+    }
+
+    /**
+     * Günlükten kurtarılan bir odada sıradaki oyuncunun tur süresini başlatır.
+     */
+    void startTurnTimer() {
+        post(this::armTurnTimer);
+    }
+
+    /**
+     * Sıradaki oyuncu için tur süresini kurar; önceki turun süresi varsa iptal edilir.
+     * Tur süresi kapalıysa hiçbir şey yapmaz. Oda thread'inde çağrılır; süre dolduğunda
+     * çark thread'i yalnızca posta kutusuna bir mesaj ekler.
+     */
+    private void armTurnTimer() {
+        if (turnTimer == null) {
+            return;
+        }
+        cancelTurnTimer();
+        TimerWheel.Timeout[] self = new TimerWheel.Timeout[1];
+        self[0] = turnTimer.schedule(() -> post(() -> turnExpired(self[0])), turnMillis, TimeUnit.MILLISECONDS);
+        turnTimeout = self[0];
+    }
+
+    /**
+     * Kurulu tur süresini iptal eder (hamle yapıldığında veya oda kapatıldığında). Oda thread'inde çağrılır.
+     */
+    void cancelTurnTimer() {
+        if (turnTimeout != null) {
+            turnTimeout.cancel();
+            turnTimeout = null;
+        }
+    }
+
+    /**
+     * Tur süresi dolduğunda oda thread'inde çağrılır. Sıradaki oyuncu hâlâ hamle yapmadıysa
+     * (zarı hiç atmadıysa önce onun yerine zar atılarak) boş kategoriler arasından en yüksek
+     * puanı veren kategoriye skor yazılır ve sıra normal bir hamledeki gibi ilerletilir.
+     * Otomatik hamleler de günlüğe ve oyun kaydına yazıldığı için yeniden oynatılabilir.
+     * @param timeout Süresi dolan zaman aşımı.
+     */
+    private void turnExpired(TimerWheel.Timeout timeout) {
+        if (timeout != turnTimeout || gameState.isGameOver()) {
+            return; // Hamle bu arada yapıldı veya oda kapatıldı.
+        }
+        turnTimeout = null;
+        int playerId = gameState.getCurrentPlayerIndex();
+        PlayerConnection player = players.get(playerId);
+        if (!gameState.hasRolled()) { // Oyuncu bu turda hiç zar atmamış.
+            handleRoll(player, 0);
+        }
+        int[] dice = gameState.getCurrentPlayerDice();
+        Category best = null;
+        int bestScore = -1;
+        for (Category category : Category.values()) {
+            if (!gameState.isCategoryUsed(playerId, category)) {
+                int score = ScoreCalculator.calculate(category, dice);
+                if (score > bestScore) {
+                    best = category;
+                    bestScore = score;
+                }
+            }
+        }
+        if (best == null) {
+            return; // Tüm kategoriler dolu; oyun zaten bitmiş olmalı.
+        }
+        Log.info(Log.Category.GAME, "Oda {}: Oyuncu {} tur süresini aştı, {} otomatik seçildi.", roomId, playerId, best.getName());
+        broadcast("INFO:Oyuncu " + (playerId + 1) + " süresinde hamle yapmadı. " + best.getName() + " kategorisi otomatik seçildi.");
+        applyMove(player, best, best.ordinal() + 1, playerId); // İstemci tablosunda satır = kategori ID'si + 1, sütun = oyuncu.
+    }
+
+    /**
+     * Odadaki tüm bağlantılarda bir mesaj dizisi başlatır (bkz. PlayerConnection.beginBatch).
+     * Böylece posta kutusundan birlikte işlenen mesajların (ör. bir hamlenin onay, skor, sıra ve
+     * oyun sonu mesajları) her bağlantıya mesaj başına ayrı ayrı değil, tek bir yazmayla gönderilir.
+     * @return Dizinin başlatıldığı bağlantılar; bu arada bir koltuk değişse bile endBatch'e aynen verilmelidir.
+     */
+    private List<PlayerConnection> beginBatch() {
+        List<PlayerConnection> batch = new ArrayList<>(players);
+        for (PlayerConnection p : batch) {
+            p.beginBatch();
+        }
+        return batch;
+    }
+
+    /**
+     * beginBatch ile başlatılan mesaj dizisini bitirir; biriken mesajlar gönderilir.
+     * @param batch beginBatch'in döndürdüğü bağlantılar.
+     */
+    private static void endBatch(List<PlayerConnection> batch) {
+        for (PlayerConnection p : batch) {
+            p.endBatch();
         }
     }
 
@@ -255,13 +902,15 @@ public class GameManager {
      * Tüm oyuncu bağlantılarını kapatır.
      */
     public void closeAllConnections() {
-        // Oluşturulan oyuncu listesi üzerinde dolaşarak her oyuncunun bağlantısını kapat.
-        // `new ArrayList<>(players)` ile concurrent modification exception'ı önlenir.
-        for (PlayerHandler p : new ArrayList<>(players)) {
-            p.closeConnection();
-        }
-        players.clear(); // Oyuncu listesini temizle.
-        System.out.println("Tüm oyuncu bağlantıları kapatıldı.");
+        post(() -> {
+            // Oluşturulan oyuncu listesi üzerinde dolaşarak her oyuncunun bağlantısını kapat.
+            // `new ArrayList<>(players)` ile concurrent modification exception'ı önlenir.
+            for (PlayerConnection p : new ArrayList<>(players)) {
+                p.closeConnection();
+            }
+            players.clear(); // Oyuncu listesini temizle.
+            Log.info(Log.Category.ROOM, "Oda {}: Tüm oyuncu bağlantıları kapatıldı.", roomId);
+        });
     }
 
     /**
@@ -273,7 +922,10 @@ public class GameManager {
         broadcast("INFO:Şu an sıra Oyuncu " + (currentPlayerIndex + 1) + "'da."); // Genel bilgi mesajı yayınla.
         // Sıradaki oyuncuya özel mesaj gönder.
         players.get(currentPlayerIndex).sendMessage("INFO:Sıra sende! Zar atmak için 'ROLL' yaz veya skor seçip 'GÖNDER'e bas.");
-        broadcast("TURN:" + currentPlayerIndex); // Tüm oyunculara sıra bilgisini gönder.
+        SharedMessage turn = SharedMessage.turn(currentPlayerIndex);
+        broadcast(turn); // Tüm oyunculara sıra bilgisini gönder.
+        publish(turn);
+        armTurnTimer(); // Oyuncu süresinde hamle yapmazsa odayı kilitli tutmasın.
     }
 
     /**
@@ -281,25 +933,28 @@ public class GameManager {
      * @param message Yayınlanacak mesaj.
      */
     private void broadcast(String message) {
-        for (PlayerHandler p : players) {
-            p.sendMessage(message); // Her oyuncuya mesajı gönder.
-        }
+        broadcast(SharedMessage.text(message)); // Mesaj alıcı sayısından bağımsız olarak bir kez kodlanır.
     }
 
     /**
-     * Bir tamsayı dizisini boşluklarla ayrılmış bir dizeye dönüştürür.
-     * Zar değerlerini temsil eden diziyi istemciye göndermek için kullanılır.
-     * @param arr Dönüştürülecek tamsayı dizisi.
-     * @return Tamsayıların boşluklarla ayrılmış dize temsili.
+     * Bir kez kodlanmış mesajı oyundaki tüm oyunculara yayınlar; tüm alıcılar aynı baytları paylaşır.
+     * @param message Yayınlanacak mesaj.
      */
-    private String arrayToString(int[] arr) {
-        StringBuilder sb = new StringBuilder(); // Dize oluşturmak için StringBuilder kullan.
-        for (int i = 0; i < arr.length; i++) {
-            sb.append(arr[i]); // Dizinin elemanını ekle.
-            if (i < arr.length - 1) { // Son eleman değilse boşluk ekle.
-                sb.append(" ");
-            }
+    private void broadcast(SharedMessage message) {
+        for (PlayerConnection p : players) {
+            p.sendShared(message);
         }
-        return sb.toString(); // Oluşturulan dizeyi döndür.
+    }
+
+    /**
+     * Skor tablosu güncellemesini oyundaki tüm oyunculara ve izleyicilere yayınlar.
+     * @param row Skor tablosundaki satır.
+     * @param column Skor tablosundaki sütun.
+     * @param score Kaydedilen puan.
+     */
+    private void broadcastScore(int row, int column, int score) {
+        SharedMessage update = SharedMessage.score(row, column, score);
+        broadcast(update);
+        publish(update);
     }
 }
\ No newline at end of file
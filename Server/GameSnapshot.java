@@ -0,0 +1,203 @@
+package Server;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * GameSnapshot, GameJournal'ın belirli bir konumuna kadar olan tüm kayıtları
+ * uygulanmış canlı oyun durumlarının (oda ID'si -> GameState) kopyasıdır.
+ * Oyun thread'lerindeki GameState nesnelerine hiç dokunmaz: durumlar günlük
+ * kayıtlarından arka planda ayrıca kurulur, bu yüzden anlık görüntü almak için
+ * hiçbir odanın durdurulması gerekmez.
+ *
+ * Kurtarma, en son anlık görüntüyü yükleyip yalnızca onun kapsadığı konumdan
+ * sonraki günlük kayıtlarını (kuyruk) uygular; kapsanan segmentler silinebilir.
+ *
+ * Dosya biçimi: [sihirli sayı: 4][segment: 4][konum: 4][oda sayısı: 4], ardından
+ * her oda için [oda ID'si: 8][GameState.writeTo][oturum sayısı: 1][oturum anahtarları: 8 x n].
+ */
+class GameSnapshot {
+
+    private static final int MAGIC = 0x59534E50; // "YSNP": dosyanın bir anlık görüntü olduğunu doğrular.
+
+    private final Map<Long, GameState> games = new LinkedHashMap<>(); // Oda ID'si -> canlı oyun durumu.
+    private final Map<Long, long[]> sessions = new HashMap<>(); // Oda ID'si -> koltukların oturum anahtarları.
+    private int segment; // Kapsanan son günlük segmentinin numarası.
+    private int offset; // Bu segmentte kapsanan bayt sayısı.
+
+    /**
+     * Anlık görüntüdeki canlı oyunları döndürür.
+     * @return Oda ID'si -> oyun durumu.
+     */
+    Map<Long, GameState> getGames() {
+        return games;
+    }
+
+    /**
+     * Canlı odaların koltuklarına verilmiş oturum anahtarlarını döndürür.
+     * @return Oda ID'si -> oyuncu ID'sine göre oturum anahtarları (verilmemişse 0).
+     */
+    Map<Long, long[]> getSessions() {
+        return sessions;
+    }
+
+    int getSegment() {
+        return segment;
+    }
+
+    int getOffset() {
+        return offset;
+    }
+
+    /**
+     * Anlık görüntünün kapsadığı günlük konumunu ayarlar.
+     * @param segment Segment numarası.
+     * @param offset Segment içindeki bayt konumu.
+     */
+    void setPosition(int segment, int offset) {
+        this.segment = segment;
+        this.offset = offset;
+    }
+
+    /**
+     * Tek bir günlük kaydını uygular: START yeni bir oyun durumu açar, ROLL/MOVE ilgili
+     * duruma ReplayEngine.apply ile uygulanır, SESSION koltuğun oturum anahtarını saklar,
+     * END oyunu canlı oyunlardan çıkarır.
+     * @param type GameJournal kayıt türü.
+     * @param roomId Oda ID'si.
+     * @param playerId Olayı yapan oyuncu.
+     * @param data ROLL için maske, MOVE için kategori ID'si.
+     * @param playerCount START için oyuncu sayısı.
+     * @param value START için oyunun tohumu, SESSION için oturum anahtarı.
+     */
+    void apply(int type, long roomId, int playerId, int data, int playerCount, long value) {
+        switch (type) {
+            case GameJournal.START:
+                GameState state = new GameState(playerCount, new SplittableDiceSource(value), new GameLog(value, playerCount));
+                state.setVerbose(false);
+                games.put(roomId, state);
+                long[] tokens = sessions.get(roomId);
+                if (tokens == null || tokens.length != playerCount) {
+                    sessions.put(roomId, new long[playerCount]); // Yeniden başlatılan oyunlarda koltuklar aynı kalır.
+                }
+                break;
+            case GameJournal.ROLL:
+            case GameJournal.MOVE:
+                GameState current = games.get(roomId);
+                if (current != null) {
+                    try {
+                        ReplayEngine.apply(current, type == GameJournal.ROLL ? GameLog.ROLL : GameLog.MOVE, playerId, data);
+                    } catch (IllegalStateException e) {
+                        Log.warn(Log.Category.JOURNAL, "Oda {} günlük kaydı uygulanamadı, oda atlanıyor: {}", roomId, e.getMessage());
+                        games.remove(roomId);
+                    }
+                }
+                break;
+            case GameJournal.SESSION:
+                long[] seats = sessions.get(roomId);
+                if (seats != null && playerId < seats.length) {
+                    seats[playerId] = value;
+                }
+                break;
+            case GameJournal.END:
+                games.remove(roomId);
+                sessions.remove(roomId);
+                break;
+            default:
+                Log.warn(Log.Category.JOURNAL, "Günlükte bilinmeyen kayıt türü: {}", type);
+        }
+    }
+
+    /**
+     * Anlık görüntüyü ikili biçime çevirir.
+     * @return Kodlanmış anlık görüntü.
+     */
+    byte[] toBytes() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + games.size() * 512);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeInt(segment);
+            out.writeInt(offset);
+            out.writeInt(games.size());
+            for (Map.Entry<Long, GameState> entry : games.entrySet()) {
+                out.writeLong(entry.getKey());
+                entry.getValue().writeTo(out);
+                long[] tokens = sessions.get(entry.getKey());
+                out.writeByte(tokens != null ? tokens.length : 0);
+                if (tokens != null) {
+                    for (long token : tokens) {
+                        out.writeLong(token);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // Bellekteki akışa yazarken oluşmaz.
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Kodlanmış anlık görüntüyü dosyaya yazar. Önce geçici bir dosyaya yazılır ve ardından
+     * atomik olarak yerine taşınır; yazma yarıda kesilirse önceki anlık görüntü geçerli kalır.
+     * @param data toBytes ile kodlanmış anlık görüntü.
+     * @param file Hedef dosya.
+     * @throws IOException Yazma hatası oluşursa.
+     */
+    static void write(byte[] data, Path file) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.write(temp, data);
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Kodlanmış bir anlık görüntüyü çözer. Dönen oyun durumları konsola yazmaz.
+     * @param data toBytes ile kodlanmış anlık görüntü.
+     * @return Çözülen anlık görüntü.
+     * @throws IOException Veri bir anlık görüntü değilse veya yarıda kesilmişse.
+     */
+    static GameSnapshot fromBytes(byte[] data) throws IOException {
+        GameSnapshot snapshot = new GameSnapshot();
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Geçersiz anlık görüntü dosyası.");
+            }
+            snapshot.segment = in.readInt();
+            snapshot.offset = in.readInt();
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                long roomId = in.readLong();
+                GameState state = GameState.readFrom(in);
+                state.setVerbose(false);
+                snapshot.games.put(roomId, state);
+                long[] tokens = new long[in.readUnsignedByte()];
+                for (int t = 0; t < tokens.length; t++) {
+                    tokens[t] = in.readLong();
+                }
+                snapshot.sessions.put(roomId, tokens);
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * Dosyadaki anlık görüntüyü yükler.
+     * @param file Anlık görüntü dosyası.
+     * @return Yüklenen anlık görüntü, dosya yoksa günlüğün başını kapsayan boş bir anlık görüntü.
+     * @throws IOException Dosya okunamazsa veya bozuksa.
+     */
+    static GameSnapshot load(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return new GameSnapshot();
+        }
+        return fromBytes(Files.readAllBytes(file));
+    }
+}
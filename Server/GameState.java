@@ -1,36 +1,101 @@
 package Server;
 
-import java.util.*;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 
 /**
  * GameState sınıfı, Yahtzee oyununun mevcut durumunu (kimin sırası olduğu,
  * hangi turda olunduğu, oyuncuların zar değerleri ve skor tabloları gibi
  * bilgileri) tutar ve yönetir.
+ *
+ * Skor tablosu ilkel dizilerle tutulur: her oyuncu için 13 elemanlı bir puan
+ * dizisi, kullanılan kategorilerin 13 bitlik maskesi ve kayıt sırasında
+ * güncellenen üst bölüm ile genel toplamlar. Böylece isCategoryUsed,
+ * isGameOver ve getTotalScore sabit zamanda çalışır ve bir oyunun durumu
+ * birkaç yüz bayta sığar. writeTo/readFrom bu durumu (zar kaynağının konumu ve
+ * olay kaydı dahil) yeniden oynatma gerektirmeden kaydedip geri yükler.
+ *
+ * Sıradaki oyuncunun bu turda kaç kez zar attığı da burada tutulur; bir turda en fazla
+ * MAX_ROLLS atış yapılabilir ve rollDice bu sınırı aşan atışları reddeder. Sınır istemciye
+ * bırakılmaz: değiştirilmiş bir istemci sınırsız zar atamaz.
  */
 public class GameState {
 
+    /** Bir oyuncunun bir turda yapabileceği en fazla zar atışı. */
+    public static final int MAX_ROLLS = 3;
+
     private int currentPlayerIndex; // Şu anki sırası olan oyuncunun indeksi (0'dan başlar).
     private int round; // Oyunun mevcut tur numarası (1'den başlar).
     private int[][] diceValues; // Her oyuncunun son attığı 5 zar değerini tutar. [oyuncuId][5 zar].
-    // Oyuncu ID'sine göre, her kategori için kazanılan puanları tutan iç içe bir harita.
-    private Map<Integer, Map<String, Integer>> scoreBoard; // OyuncuId -> (KategoriAdı -> Puan).
-    private static final int totalCategories = 13; // Yahtzee oyunundaki toplam kategori sayısı.
+    private int[][] scores; // Her oyuncunun kategori başına puanı. [oyuncuId][Category.ordinal()].
+    private int[] usedMask; // Her oyuncunun doldurduğu kategorilerin bit maskesi (bit i = i. kategori kullanıldı).
+    private int[] upperSectionSums; // Her oyuncunun üst bölüm (Ones-Sixes) puanlarının toplamı.
+    private int[] totalScores; // Her oyuncunun bonus hariç tüm puanlarının toplamı.
+    private int completedPlayers; // Tüm kategorilerini doldurmuş oyuncu sayısı.
+    private int rollsThisTurn; // Sıradaki oyuncunun bu turda attığı zar sayısı (0..MAX_ROLLS).
+    private final DiceSource diceSource; // Bu oyunun zar atışlarını üreten kaynak.
+    private final GameLog gameLog; // Kabul edilen ROLL/MOVE olaylarının kaydı (kayıt tutulmuyorsa null).
+    private boolean verbose = true; // Tur ve skor değişiklikleri konsola yazdırılsın mı (yeniden oynatmada kapalı).
+    private static final int ALL_CATEGORIES_MASK = (1 << Category.COUNT) - 1; // 13 kategorinin tümü kullanıldığında maske değeri.
+    private static final int UPPER_BONUS_THRESHOLD = 63; // Üst bölüm bonusu için gereken en az puan.
+    private static final int UPPER_BONUS = 35; // Üst bölüm bonusu.
 
     /**
-     * GameState sınıfının yapıcı metodudur. Yeni bir oyun durumu başlatır.
+     * Rastgele tohumlu kendi zar kaynağıyla yeni bir oyun durumu başlatır.
      *
      * @param playerCount Oyuna katılacak toplam oyuncu sayısı.
      */
     public GameState(int playerCount) {
+        this(playerCount, new SplittableDiceSource());
+    }
+
+    /**
+     * Olay kaydı tutmayan yeni bir oyun durumu başlatır.
+     *
+     * @param playerCount Oyuna katılacak toplam oyuncu sayısı.
+     * @param diceSource Bu oyunun zar atışlarını üretecek kaynak.
+     */
+    public GameState(int playerCount, DiceSource diceSource) {
+        this(playerCount, diceSource, null);
+    }
+
+    /**
+     * GameState sınıfının yapıcı metodudur. Yeni bir oyun durumu başlatır.
+     *
+     * @param playerCount Oyuna katılacak toplam oyuncu sayısı.
+     * @param diceSource Bu oyunun zar atışlarını üretecek kaynak.
+     * @param gameLog Zar atışlarının ve skor kayıtlarının yazılacağı oyun kaydı (null olabilir).
+     */
+    public GameState(int playerCount, DiceSource diceSource, GameLog gameLog) {
+        this.diceSource = diceSource;
+        this.gameLog = gameLog;
         currentPlayerIndex = 0; // Oyun her zaman 0. oyuncu ile başlar.
         round = 1; // Oyun her zaman 1. tur ile başlar.
         diceValues = new int[playerCount][5]; // Her oyuncu için 5 zarlık bir yer ayrılır.
-        scoreBoard = new HashMap<>(); // Skor tahtası haritasını başlat.
+        scores = new int[playerCount][Category.COUNT]; // Her oyuncu için 13 kategorilik boş bir skor satırı.
+        usedMask = new int[playerCount];
+        upperSectionSums = new int[playerCount];
+        totalScores = new int[playerCount];
+        completedPlayers = 0;
+    }
 
-        // Her oyuncu için skor tahtasında boş bir kategori-puan haritası oluşturulur.
-        for (int i = 0; i < playerCount; i++) {
-            scoreBoard.put(i, new HashMap<>());
-        }
+    /**
+     * Oyunun olay kaydını döndürür.
+     *
+     * @return Oyun kaydı, kayıt tutulmuyorsa null.
+     */
+    public GameLog getGameLog() {
+        return gameLog;
+    }
+
+    /**
+     * Tur ve skor değişikliklerinin konsola yazdırılıp yazdırılmayacağını ayarlar.
+     *
+     * @param verbose Konsola yazdırılacaksa true.
+     */
+    public void setVerbose(boolean verbose) {
+        this.verbose = verbose;
     }
 
     /**
@@ -48,14 +113,19 @@ public class GameState {
      */
     public void nextTurn() {
         // Sıradaki oyuncuya geçiş yapar (dairesel olarak: son oyuncudan sonra tekrar ilk oyuncuya).
-        currentPlayerIndex = (currentPlayerIndex + 1) % scoreBoard.size();
+        currentPlayerIndex = (currentPlayerIndex + 1) % scores.length;
+        rollsThisTurn = 0; // Yeni oyuncunun atış hakları yenilenir.
         // Eğer sıra tekrar ilk oyuncuya geldiyse (yani tüm oyuncular oynamışsa), turu artır.
         if (currentPlayerIndex == 0) {
             round++; // Tur numarasını artır.
-            System.out.println("Yeni Tur Başladı: " + round); // Sunucu konsoluna yeni tur bilgisini yazdır.
+            if (verbose) {
+                Log.info(Log.Category.GAME, "Yeni Tur Başladı: {}", round); // Günlük yazıcısına yeni tur bilgisini bırak.
+            }
             // Yahtzee'de her tur yeni zarlarla başlar. Zar değerleri ilk zar atıldığında güncellenecektir.
         }
-        System.out.println("Sıra Oyuncu " + (currentPlayerIndex + 1) + "'a geçti."); // Sunucu konsoluna sıra değişimini yazdır.
+        if (verbose) {
+            Log.info(Log.Category.GAME, "Sıra Oyuncu {}'a geçti.", currentPlayerIndex + 1); // Günlük yazıcısına sıra değişimini bırak.
+        }
     }
 
     /**
@@ -68,39 +138,57 @@ public class GameState {
     }
 
     /**
-     * Oyuncunun zar atma işlemini gerçekleştirir. Belirtilen indekslerdeki
-     * zarları tutar, diğerlerini yeniden atar.
+     * Sıradaki oyuncunun bu turda attığı zar sayısını döndürür.
      *
-     * @param heldIndices Tutulacak zar indekslerinin listesi (0-4 arası).
-     * @param currentDiceValues Oyuncunun mevcut zar değerleri dizisi.
-     * @return Yeniden atma sonrası oluşan yeni zar değerleri dizisi.
+     * @return 0 ile MAX_ROLLS arasında atış sayısı.
      */
-    public int[] rollDice(List<Integer> heldIndices, int[] currentDiceValues) {
-        Random r = new Random(); // Rastgele sayı üretici.
-        int[] newDice; // Yeni zar değerlerini tutacak dizi.
+    public int getRollCount() {
+        return rollsThisTurn;
+    }
 
-        // Eğer henüz zar atılmamışsa veya mevcut zar değerleri geçersizse (örneğin ilk atışta),
-        // tüm zarları sıfırdan at.
-        if (currentDiceValues == null || currentDiceValues.length != 5) {
-            newDice = new int[5]; // 5 zarlık yeni bir dizi oluştur.
-            for (int i = 0; i < 5; i++) {
-                newDice[i] = r.nextInt(6) + 1; // Her zarı 1-6 arasında rastgele at.
-            }
-        } else {
-            // Mevcut zar değerlerini kopyala. Tutulacak zarlar bu kopyada kalacak.
-            newDice = Arrays.copyOf(currentDiceValues, currentDiceValues.length);
-
-            // Tutulmayan zarları yeniden at.
-            for (int i = 0; i < newDice.length; i++) {
-                if (!heldIndices.contains(i)) { // Eğer bu zarın indeksi tutulanlar listesinde yoksa
-                    newDice[i] = r.nextInt(6) + 1; // Zarı yeniden at.
-                }
-            }
-        }
+    /**
+     * Sıradaki oyuncunun bu turda zar atıp atamayacağını döndürür.
+     *
+     * @return Oyun bitmediyse ve atış hakkı kaldıysa true.
+     */
+    public boolean canRoll() {
+        return rollsThisTurn < MAX_ROLLS && !isGameOver();
+    }
 
-        // Mevcut oyuncunun zar değerlerini güncel zar değerleriyle değiştir.
-        diceValues[currentPlayerIndex] = newDice;
-        return newDice; // Yeni zar değerlerini döndür.
+    /**
+     * Sıradaki oyuncunun bu turda en az bir kez zar atıp atmadığını döndürür. Skor ancak
+     * bu turun zarlarıyla yazılabilir; önceki turdan kalan zarlarla yazılamaz.
+     *
+     * @return Bu turda zar atıldıysa true.
+     */
+    public boolean hasRolled() {
+        return rollsThisTurn > 0;
+    }
+
+    /**
+     * Oyuncunun zar atma işlemini gerçekleştirir. Maskede işaretli
+     * zarları tutar, diğerlerini oyunun zar kaynağıyla yeniden atar. Turun ilk atışında
+     * maske yok sayılır; önceki turdan kalan zarlar tutulamaz.
+     * Zarlar oyuncunun mevcut zar dizisinin içinde güncellenir; yeni dizi ayrılmaz.
+     *
+     * @param heldMask Tutulacak zarların bit maskesi (bit i = i. zar tutuluyor).
+     * @return Mevcut oyuncunun güncellenmiş zar değerleri dizisi.
+     * @throws IllegalStateException Oyuncunun bu turdaki atış hakkı bittiyse veya oyun bittiyse (bkz. canRoll).
+     */
+    public int[] rollDice(int heldMask) {
+        if (!canRoll()) {
+            throw new IllegalStateException("oyuncu " + currentPlayerIndex + " bu turda " + rollsThisTurn + " kez zar attı");
+        }
+        if (rollsThisTurn == 0) {
+            heldMask = 0; // Turun ilk atışında beş zarın hepsi atılır.
+        }
+        rollsThisTurn++;
+        int[] dice = diceValues[currentPlayerIndex];
+        if (gameLog != null) {
+            gameLog.recordRoll(currentPlayerIndex, heldMask);
+        }
+        diceSource.roll(dice, heldMask);
+        return dice; // Güncel zar değerlerini döndür.
     }
 
     /**
@@ -115,26 +203,51 @@ public class GameState {
 
     /**
      * Belirli bir oyuncunun belirli bir kategoriye aldığı skoru kaydeder.
-     * Kategori adı küçük harfe çevrilerek tutarlılık sağlanır.
      *
      * @param playerId Skoru kaydedilecek oyuncunun ID'si.
-     * @param category Skorun kaydedileceği kategori adı.
+     * @param category Skorun kaydedileceği kategori.
      * @param score Kaydedilecek puan.
      */
-    public void setScore(int playerId, String category, int score) {
-        // Oyuncunun skor haritasına kategori ve puanı ekle.
-        scoreBoard.get(playerId).put(category.toLowerCase(), score);
-        System.out.println("Oyuncu " + (playerId + 1) + " için skor kaydedildi - Kategori: " + category + ", Skor: " + score); // Sunucu konsoluna bilgi yazdır.
+    public void setScore(int playerId, Category category, int score) {
+        int bit = 1 << category.ordinal();
+        int previous = (usedMask[playerId] & bit) != 0 ? scores[playerId][category.ordinal()] : 0; // Üzerine yazılıyorsa eski puan toplamlardan düşülür.
+        scores[playerId][category.ordinal()] = score;
+        totalScores[playerId] += score - previous;
+        if (category.isUpperSection()) {
+            upperSectionSums[playerId] += score - previous;
+        }
+        int before = usedMask[playerId];
+        usedMask[playerId] = before | bit;
+        if (before != ALL_CATEGORIES_MASK && usedMask[playerId] == ALL_CATEGORIES_MASK) {
+            completedPlayers++; // Oyuncu son kategorisini de doldurdu.
+        }
+        if (gameLog != null) {
+            gameLog.recordMove(playerId, category);
+        }
+        if (verbose) {
+            Log.info(Log.Category.GAME, "Oyuncu {} için skor kaydedildi - Kategori: {}, Skor: {}", playerId + 1, category.getName(), score);
+        }
     }
 
     /**
-     * Belirli bir oyuncunun tüm skorlarını (kategoriye göre) döndürür.
+     * Belirli bir oyuncunun bir kategoriye aldığı puanı döndürür.
      *
-     * @param playerId Skorları alınacak oyuncunun ID'si.
-     * @return Oyuncunun kategoriye göre puanlarını içeren Map.
+     * @param playerId Oyuncunun ID'si.
+     * @param category Kategori.
+     * @return Kategorinin puanı; kategori henüz kullanılmadıysa 0.
      */
-    public Map<String, Integer> getScoresForPlayer(int playerId) {
-        return scoreBoard.get(playerId);
+    public int getScore(int playerId, Category category) {
+        return scores[playerId][category.ordinal()];
+    }
+
+    /**
+     * Belirli bir oyuncunun kullandığı kategorilerin bit maskesini döndürür.
+     *
+     * @param playerId Oyuncunun ID'si.
+     * @return Bit i, i. kategori (Category.ordinal()) kullanıldıysa 1 olan maske.
+     */
+    public int getUsedMask(int playerId) {
+        return usedMask[playerId];
     }
 
     /**
@@ -143,17 +256,15 @@ public class GameState {
      * kullanılabileceği kuralını uygulamak için kullanılır.
      *
      * @param playerId Kontrol edilecek oyuncunun ID'si.
-     * @param category Kontrol edilecek kategori adı.
+     * @param category Kontrol edilecek kategori.
      * @return Eğer kategori daha önce kullanılmışsa true, aksi takdirde false.
      */
-    public boolean isCategoryUsed(int playerId, String category) {
-        Map<String, Integer> playerScores = scoreBoard.get(playerId);
-        // Eğer oyuncu skor tahtasında yoksa (ki bu normalde olmamalı) veya kategori daha önce girilmemişse false dön.
-        if (playerScores == null) {
+    public boolean isCategoryUsed(int playerId, Category category) {
+        // Eğer oyuncu skor tablosunda yoksa (ki bu normalde olmamalı) false dön.
+        if (playerId < 0 || playerId >= usedMask.length) {
             return false;
         }
-        // Kategori adını küçük harfe çevirerek map'te olup olmadığını kontrol et.
-        return playerScores.containsKey(category.toLowerCase());
+        return (usedMask[playerId] & (1 << category.ordinal())) != 0;
     }
 
     /**
@@ -163,15 +274,8 @@ public class GameState {
      * @return Oyun bittiyse true, aksi takdirde false.
      */
     public boolean isGameOver() {
-        // Her bir oyuncunun skor tahtasını kontrol et.
-        for (Map<String, Integer> playerScores : scoreBoard.values()) {
-            // Eğer herhangi bir oyuncunun doldurduğu kategori sayısı toplam kategori sayısından az ise,
-            // oyun henüz bitmemiştir.
-            if (playerScores.size() < totalCategories) {
-                return false; // Henüz doldurulmamış kategori var.
-            }
-        }
-        return true; // Tüm oyuncular tüm kategorileri doldurmuş, oyun bitti.
+        // Tamamlanan oyuncu sayısı her skor kaydında güncellendiği için tabloyu dolaşmaya gerek yoktur.
+        return completedPlayers == scores.length;
     }
 
     /**
@@ -182,40 +286,107 @@ public class GameState {
      * @return Oyuncunun toplam skoru.
      */
     public int getTotalScore(int playerId) {
-        Map<String, Integer> playerScores = scoreBoard.get(playerId);
-        if (playerScores == null) {
-            return 0; // Oyuncu skor tahtasında yoksa (olmamalı) 0 dön.
+        if (playerId < 0 || playerId >= totalScores.length) {
+            return 0; // Oyuncu skor tablosunda yoksa (olmamalı) 0 dön.
         }
 
-        int totalScore = 0; // Genel toplam skor.
-        int upperSectionSum = 0; // Üst bölüm puanlarının toplamı.
-        int yahtzeeCount = 0; // Kaç tane Yahtzee yapıldığını sayar.
+        int totalScore = totalScores[playerId]; // Kayıt sırasında güncellenen genel toplam.
 
-        // Oyuncunun kaydedilmiş tüm skorları üzerinde döngü yap.
-        for (Map.Entry<String, Integer> entry : playerScores.entrySet()) {
-            String category = entry.getKey(); // Kategori adı.
-            int score = entry.getValue(); // Kategoriye ait puan.
+        // Üst Kısım Bonusu hesaplaması.
+        if (upperSectionSums[playerId] >= UPPER_BONUS_THRESHOLD) { // Yahtzee kuralına göre 63 veya üstü ise 35 bonus puan.
+            totalScore += UPPER_BONUS;
+        }
+
+        return totalScore; // Oyuncunun toplam skorunu döndür.
+    }
 
-            if (category.equals("ones") || category.equals("twos") || category.equals("threes")
-                    || category.equals("fours") || category.equals("fives") || category.equals("sixes")) {
-                upperSectionSum += score;
+    /**
+     * Oyun durumunu ikili biçimde yazar: oyuncu sayısı, sıra, tur, zar kaynağının tohumu ve
+     * atılmış zar sayısı, her oyuncu için zarlar, kullanılan kategori maskesi ve puanlar,
+     * ardından (varsa) olay kaydı. İki kişilik bir oyun, kayıt hariç yaklaşık 60 bayt tutar.
+     *
+     * @param out Hedef akış.
+     * @throws IOException Yazma hatası oluşursa.
+     * @throws IllegalStateException Zar kaynağı SplittableDiceSource değilse (konumu saklanamaz).
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        if (!(diceSource instanceof SplittableDiceSource)) {
+            throw new IllegalStateException("Zar kaynağının konumu saklanamıyor: " + diceSource.getClass().getName());
+        }
+        SplittableDiceSource source = (SplittableDiceSource) diceSource;
+        out.writeByte(scores.length);
+        out.writeByte(currentPlayerIndex);
+        out.writeShort(round);
+        out.writeLong(source.getSeed());
+        out.writeLong(source.getDraws());
+        for (int p = 0; p < scores.length; p++) {
+            for (int die : diceValues[p]) {
+                out.writeByte(die);
+            }
+            out.writeShort(usedMask[p]);
+            for (int score : scores[p]) {
+                out.writeByte(score); // En yüksek kategori puanı 50 olduğu için bir bayt yeterlidir.
             }
+        }
+        out.writeBoolean(gameLog != null);
+        if (gameLog != null) {
+            gameLog.writeTo(out);
+        }
+    }
 
-            // Yahtzee kategorisini kontrol et.
-            if (category.equals("yahtzee")) {
-                if (score == 50) { // Eğer Yahtzee 50 puan alınmışsa
-                    yahtzeeCount++; // Yahtzee sayısını artır.
+    /**
+     * writeTo ile yazılmış bir oyun durumunu okur. Toplamlar puanlardan, bu turdaki atış sayısı
+     * olay kaydının sonundaki ROLL olaylarından yeniden hesaplanır (kayıt yoksa 0 kabul edilir).
+     *
+     * @param in Kaynak akış.
+     * @return Okunan oyun durumu.
+     * @throws IOException Okuma hatası oluşursa veya kayıt yarıda kesilmişse.
+     */
+    public static GameState readFrom(DataInput in) throws IOException {
+        int playerCount = in.readUnsignedByte();
+        int current = in.readUnsignedByte();
+        int round = in.readUnsignedShort();
+        long seed = in.readLong();
+        long draws = in.readLong();
+        int[][] dice = new int[playerCount][5];
+        int[] used = new int[playerCount];
+        int[][] points = new int[playerCount][Category.COUNT];
+        for (int p = 0; p < playerCount; p++) {
+            for (int i = 0; i < 5; i++) {
+                dice[p][i] = in.readUnsignedByte();
+            }
+            used[p] = in.readUnsignedShort();
+            for (int c = 0; c < Category.COUNT; c++) {
+                points[p][c] = in.readUnsignedByte();
+            }
+        }
+        GameLog log = in.readBoolean() ? GameLog.readFrom(in) : null;
+        GameState state = new GameState(playerCount, new SplittableDiceSource(seed, draws), log);
+        state.currentPlayerIndex = current;
+        state.round = round;
+        state.diceValues = dice;
+        state.scores = points;
+        state.usedMask = used;
+        for (int p = 0; p < playerCount; p++) {
+            for (Category category : Category.values()) {
+                if ((used[p] & (1 << category.ordinal())) != 0) {
+                    int score = points[p][category.ordinal()];
+                    state.totalScores[p] += score;
+                    if (category.isUpperSection()) {
+                        state.upperSectionSums[p] += score;
+                    }
                 }
             }
-            // Tüm kategorilerin puanlarını genel toplama ekle.
-            totalScore += score;
+            if (used[p] == ALL_CATEGORIES_MASK) {
+                state.completedPlayers++;
+            }
         }
-
-        // Üst Kısım Bonusu hesaplaması.
-        if (upperSectionSum >= 63) { // Yahtzee kuralına göre 63 veya üstü ise 35 bonus puan.
-            totalScore += 35;
+        if (log != null) {
+            for (int i = log.size() - 1; i >= 0 && log.getType(i) == GameLog.ROLL; i--) {
+                state.rollsThisTurn++; // Son MOVE'dan sonraki atışlar sıradaki oyuncuya aittir.
+            }
+            state.rollsThisTurn = Math.min(state.rollsThisTurn, MAX_ROLLS);
         }
-
-        return totalScore; // Oyuncunun toplam skorunu döndür.
+        return state;
     }
 }
@@ -0,0 +1,166 @@
+package Server;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * IdleConnectionLoadTest, sunucuya çok sayıda boşta bağlantı açıldığında sunucunun heap ve
+ * thread kullanımını ölçen bir yük aracıdır. Sunucu bu JVM'de Server.main ile başlatılır;
+ * bağlantılar ise aynı sınıf yolundan başlatılan ayrı bir istemci JVM'inde açılır. Böylece
+ * ölçülen heap yalnızca sunucuya aittir ve her iki süreç de dosya tanımlayıcısı sınırının
+ * (ulimit -n) yalnızca bağlantı sayısı kadarını kullanır.
+ *
+ * İstemciler hiçbir şey göndermez ve hiçbir şey okumaz. İlk satır beklemesi dolduğunda
+ * sunucu onları lobiye alıp odalara yerleştirir; ölçüm bundan sonra yapılır. PING'e cevap
+ * vermeyen bağlantılar boşta zaman aşımında kapatılacağından, bir --heartbeat seçeneği
+ * verilmediyse sunucu --heartbeat=0 ile başlatılır.
+ *
+ * Komut satırından çalıştırıldığında bağlantılar açılmadan önceki ve sonraki heap ile thread
+ * sayılarını ve bağlantı başına farkı yazdırır. Bağlantı sayısından sonraki argümanlar
+ * olduğu gibi sunucuya aktarılır:
+ * java -cp out Server.IdleConnectionLoadTest [bağlantı sayısı] [--nio | --virtual] [diğer sunucu seçenekleri]
+ */
+public final class IdleConnectionLoadTest {
+
+    private static final int DEFAULT_CONNECTIONS = 10_000; // Varsayılan boşta bağlantı sayısı.
+    private static final String CLIENT_OPTION = "--clients="; // İstemci JVM'ini başlatan gizli seçenek.
+    private static final String READY = "HAZIR "; // İstemcinin tüm bağlantıları açtığını bildiren satırın öneki.
+    private static final long SETTLE_MILLIS = 3_000; // Bağlantılar açıldıktan sonra lobiye ve odalara yerleşmeleri için beklenen süre (ms).
+    private static final int PROGRESS_STEP = 1_000; // İstemcinin kaç bağlantıda bir ilerleme yazacağı.
+
+    private IdleConnectionLoadTest() {
+    }
+
+    /**
+     * İstemci tarafı: count bağlantı açar, sayıyı bildirir ve ana süreç kendisini
+     * sonlandırana kadar bağlantıları açık tutar.
+     * @param count Açılacak bağlantı sayısı.
+     */
+    private static void runClients(int count) {
+        List<Socket> sockets = new ArrayList<>(count);
+        try {
+            for (int i = 0; i < count; i++) {
+                sockets.add(new Socket("127.0.0.1", Server.PORT));
+                if ((i + 1) % PROGRESS_STEP == 0) {
+                    System.out.println((i + 1) + " bağlantı açıldı");
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("Bağlantı açılamadı (" + sockets.size() + ". bağlantıdan sonra): " + e.getMessage());
+        }
+        System.out.println(READY + sockets.size());
+        try {
+            while (System.in.read() >= 0) {
+                // Ana süreç standart girdiyi kapatana veya süreci sonlandırana kadar beklenir.
+            }
+        } catch (IOException ignored) {
+            // Ana süreç kapandı.
+        }
+    }
+
+    /**
+     * Sunucu başlayıp portu dinlemeye başlayana kadar bekler.
+     * @throws InterruptedException Bekleme sırasında thread kesilirse.
+     */
+    private static void awaitServer() throws InterruptedException {
+        while (true) {
+            try {
+                new Socket("127.0.0.1", Server.PORT).close();
+                return;
+            } catch (IOException e) {
+                Thread.sleep(100);
+            }
+        }
+    }
+
+    /**
+     * Çöp toplamayı tetikleyip sunucu JVM'inin kullanılan heap'ini döndürür.
+     */
+    private static long usedHeapAfterGc(MemoryMXBean memory) throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * Sunucuyu başlatır, istemci JVM'inde boşta bağlantıları açtırır ve ölçümü yazdırır.
+     * @param args İsteğe bağlı olarak bağlantı sayısı ve ardından sunucu seçenekleri.
+     * @throws Exception İstemci süreci başlatılamazsa veya bekleme kesilirse.
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].startsWith(CLIENT_OPTION)) {
+            runClients(Integer.parseInt(args[0].substring(CLIENT_OPTION.length())));
+            return;
+        }
+        int connections = DEFAULT_CONNECTIONS;
+        String[] serverArgs = args;
+        if (args.length > 0 && !args[0].startsWith("--")) {
+            connections = Integer.parseInt(args[0]);
+            serverArgs = Arrays.copyOfRange(args, 1, args.length);
+        }
+
+        if (Arrays.stream(serverArgs).noneMatch(arg -> arg.startsWith("--heartbeat="))) {
+            serverArgs = Arrays.copyOf(serverArgs, serverArgs.length + 1);
+            serverArgs[serverArgs.length - 1] = "--heartbeat=0"; // Bağlantılar ölçümden önce kapatılmasın.
+        }
+        String[] options = serverArgs;
+        Thread server = new Thread(() -> Server.main(options), "load-test-server");
+        server.setDaemon(true);
+        server.start();
+        awaitServer();
+
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        Thread.sleep(SETTLE_MILLIS); // Yoklama bağlantısının kapanması ve sunucunun ısınması için.
+        long heapBefore = usedHeapAfterGc(memory);
+        int threadsBefore = threads.getThreadCount();
+
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        Process client = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                IdleConnectionLoadTest.class.getName(), CLIENT_OPTION + connections)
+                .redirectError(ProcessBuilder.Redirect.INHERIT).start();
+        int opened = -1;
+        long begin = System.nanoTime();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(client.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while (opened < 0 && (line = reader.readLine()) != null) {
+                if (line.startsWith(READY)) {
+                    opened = Integer.parseInt(line.substring(READY.length()));
+                } else {
+                    System.out.println("[istemci] " + line);
+                }
+            }
+            if (opened < 0) {
+                System.out.println("İstemci süreci bağlantıları bildirmeden sonlandı.");
+                return;
+            }
+            double openSeconds = (System.nanoTime() - begin) / 1e9;
+            Thread.sleep(SETTLE_MILLIS);
+            long heapAfter = usedHeapAfterGc(memory);
+            int threadsAfter = threads.getThreadCount();
+
+            System.out.printf("%d boşta bağlantı %.1f sn'de açıldı (sunucu seçenekleri: %s)%n",
+                    opened, openSeconds, serverArgs.length == 0 ? "yok" : String.join(" ", serverArgs));
+            System.out.printf("Heap (GC sonrası): önce %.1f MB, sonra %.1f MB, bağlantı başına %.0f bayt%n",
+                    heapBefore / 1e6, heapAfter / 1e6, (heapAfter - heapBefore) / (double) Math.max(opened, 1));
+            System.out.printf("Thread sayısı: önce %d, sonra %d, en yüksek %d%n",
+                    threadsBefore, threadsAfter, threads.getPeakThreadCount());
+        } finally {
+            client.destroy();
+            client.waitFor();
+        }
+        System.exit(0); // Sunucunun bağlantı thread'leri beklenmeden çıkılır.
+    }
+}
@@ -0,0 +1,127 @@
+package Server;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * IdleMonitor, sunucudaki tüm bağlantıların (lobidekiler ve odalardakiler) ne zamandır
+ * veri göndermediğini tek bir thread ile izler. Her taramada bir PING aralığı boyunca
+ * sessiz kalan bağlantılara PING gönderilir; zaman aşımı boyunca hiç veri (PONG dahil)
+ * gelmeyen bağlantılar kapatılır. Böylece karşı tarafı çoktan gitmiş yarı açık TCP
+ * bağlantıları PlayerHandler thread'lerini ve oda koltuklarını süresiz tutamaz.
+ *
+ * Bağlantı başına thread veya zamanlayıcı yoktur: bağlantılar yalnızca son okuma
+ * anlarını günceller, tarama ise hepsini tek geçişte toplu olarak kontrol eder. Aynı
+ * geçişte giden kuyrukların derinlikleri de toplanır ve son taramanın sonucu olarak
+ * saklanır.
+ */
+class IdleMonitor {
+
+    private final Set<PlayerConnection> connections = ConcurrentHashMap.newKeySet(); // İzlenen bağlantılar.
+    private final long pingNanos; // Bu kadar sessiz kalan bağlantıya PING gönderilir.
+    private final long timeoutNanos; // Bu kadar sessiz kalan bağlantı kapatılır.
+    private volatile int maxQueueDepth; // Son taramada en dolu giden kuyruğun derinliği.
+    private volatile int queueHighWater; // Son taramada açık bağlantıların kuyruklarının ulaştığı en büyük derinlik.
+    private volatile long queuedMessages; // Son taramada tüm giden kuyruklardaki toplam mesaj sayısı.
+
+    /**
+     * Bir IdleMonitor oluşturur ve tarama thread'ini başlatır.
+     * @param pingMillis PING aralığı (ms); tarama da bu aralıkla yapılır.
+     * @param timeoutMillis Bağlantının kapatılacağı sessizlik süresi (ms).
+     */
+    IdleMonitor(long pingMillis, long timeoutMillis) {
+        this.pingNanos = TimeUnit.MILLISECONDS.toNanos(pingMillis);
+        this.timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        Thread scanner = new Thread(() -> {
+            while (true) {
+                try {
+                    Thread.sleep(pingMillis);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                scan();
+            }
+        }, "idle-monitor");
+        scanner.setDaemon(true);
+        scanner.start();
+    }
+
+    /**
+     * Bir bağlantıyı izlemeye alır.
+     * @param connection Yeni kabul edilmiş bağlantı.
+     */
+    void register(PlayerConnection connection) {
+        connections.add(connection);
+    }
+
+    /**
+     * Kapanan bir bağlantıyı izlemeden çıkarır.
+     * @param connection Kapanan bağlantı.
+     */
+    void unregister(PlayerConnection connection) {
+        connections.remove(connection);
+    }
+
+    /**
+     * Son taramada en dolu giden kuyruğun derinliğini döndürür.
+     * @return Mesaj sayısı.
+     */
+    int getMaxQueueDepth() {
+        return maxQueueDepth;
+    }
+
+    /**
+     * Son taramada açık bağlantıların giden kuyruklarının şimdiye kadar ulaştığı en büyük derinliği döndürür.
+     * @return Mesaj sayısı.
+     */
+    int getQueueHighWater() {
+        return queueHighWater;
+    }
+
+    /**
+     * Son taramada tüm giden kuyruklarda bekleyen toplam mesaj sayısını döndürür.
+     * @return Mesaj sayısı.
+     */
+    long getQueuedMessages() {
+        return queuedMessages;
+    }
+
+    /**
+     * Tüm bağlantıları bir kez tarar: zaman aşımına uğrayanları kapatır, PING aralığını
+     * geçenlere PING gönderir ve giden kuyrukların derinliklerini toplar.
+     */
+    private void scan() {
+        long now = System.nanoTime();
+        int pinged = 0;
+        int reaped = 0;
+        int maxDepth = 0;
+        int highWater = 0;
+        long queued = 0;
+        for (PlayerConnection connection : connections) {
+            int depth = connection.getQueueDepth();
+            maxDepth = Math.max(maxDepth, depth);
+            highWater = Math.max(highWater, connection.getQueueHighWater());
+            queued += depth;
+            long idle = now - connection.getLastActivity();
+            if (idle >= timeoutNanos) {
+                connections.remove(connection);
+                Log.info(Log.Category.CONNECTION, "Oyuncu {} {} sn boyunca cevap vermedi, bağlantı kapatılıyor.",
+                        connection.getPlayerId(), TimeUnit.NANOSECONDS.toSeconds(idle));
+                connection.reap();
+                reaped++;
+            } else if (idle >= pingNanos) {
+                connection.sendPing();
+                pinged++;
+            }
+        }
+        maxQueueDepth = maxDepth;
+        queueHighWater = highWater;
+        queuedMessages = queued;
+        if ((reaped > 0 || maxDepth > OutboundQueue.DEFAULT_CAPACITY / 2) && Log.isEnabled(Log.Category.CONNECTION, Log.Level.INFO)) {
+            Log.info(Log.Category.CONNECTION, "{}", "Boşta bağlantı taraması: " + connections.size() + " bağlantı, " + pinged + " PING, "
+                    + reaped + " kapatıldı; giden kuyruklar: toplam " + queued + ", en derin " + maxDepth
+                    + ", birleştirilen " + OutboundQueue.getCoalescedCount() + ", taşan " + OutboundQueue.getOverflowCount() + ".");
+        }
+    }
+}
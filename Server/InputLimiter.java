@@ -0,0 +1,221 @@
+package Server;
+
+import java.net.InetAddress;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * InputLimiter, istemcilerden gelen satır ve çerçeveleri daha ayrıştırılmadan, konsola
+ * yazılmadan ve odaya iletilmeden önce sınırlar. Her bağlantının ve her IP adresinin
+ * kendi jeton kovası (token bucket) vardır: kova saniyede belirli sayıda jetonla dolar,
+ * en fazla iki saniyelik jeton biriktirir ve her satır veya çerçeve bir jeton harcar.
+ * Jetonu kalmayan bağlantının komutları okunduğu yerde yok sayılır; aynı IP'den açılan
+ * bağlantılar IP kovasını paylaştığı için çok bağlantı açmak sınırı aşmaya yetmez.
+ * Bir satır veya çerçeve en fazla maxLineLength bayt olabilir; daha uzun girdi gönderen
+ * bağlantı tamponu büyütülmeden kapatılır.
+ *
+ * Kova, sıradaki jetonun hazır olacağı anı tutan tek bir sayıdır; jeton harcamak bir
+ * karşılaştırma ve (IP kovasında) bir CAS'tır, arka planda dolduran bir thread yoktur.
+ * Atılan komutlar ve aşırı uzun girdiler sayılır ve istatistiklerde raporlanır.
+ */
+class InputLimiter {
+
+    /** Varsayılan bağlantı başına saniyedeki komut sınırı. */
+    static final int DEFAULT_CONNECTION_RATE = 20;
+    /** Varsayılan IP adresi başına saniyedeki komut sınırı. */
+    static final int DEFAULT_ADDRESS_RATE = 200;
+    /** Varsayılan en uzun satır veya çerçeve gövdesi (bayt). */
+    static final int DEFAULT_MAX_LINE_LENGTH = 1024;
+
+    private static final int BURST_SECONDS = 2; // Kovanın biriktirebileceği jeton, saniyelik sınırın bu katıdır.
+    private static final long WARN_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(BURST_SECONDS); // İki uyarı arasındaki en kısa süre.
+
+    /**
+     * Tek bir jeton kovası. Jetonlar yerine kovanın yeniden dolu olacağı an (nextFree) tutulur:
+     * bir jeton harcamak bu anı bir jeton aralığı ileri alır; an şimdiden burst kadar ileride
+     * değilse jeton vardır.
+     */
+    private static final class Bucket {
+        private final long intervalNanos; // Bir jetonun dolma süresi.
+        private final long burstNanos; // Biriktirilebilecek jetonların toplam dolma süresi.
+        private final AtomicLong nextFree; // Harcanan jetonların tamamen geri dolacağı an.
+
+        Bucket(int perSecond) {
+            this.intervalNanos = TimeUnit.SECONDS.toNanos(1) / perSecond;
+            this.burstNanos = intervalNanos * perSecond * BURST_SECONDS;
+            this.nextFree = new AtomicLong(System.nanoTime());
+        }
+
+        /**
+         * Kovadan bir jeton almayı dener.
+         * @param now Şimdiki an (System.nanoTime).
+         * @return Jeton alındıysa true.
+         */
+        boolean tryTake(long now) {
+            while (true) {
+                long current = nextFree.get();
+                long base = Math.max(current, now); // Uzun süre boşta kalan kova en fazla dolu olabilir.
+                if (base + intervalNanos - now > burstNanos) {
+                    return false;
+                }
+                if (nextFree.compareAndSet(current, base + intervalNanos)) {
+                    return true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Bir IP adresinin bağlantılarının paylaştığı kova ve adresten açık bağlantı sayısı.
+     */
+    private static final class Address {
+        final Bucket bucket; // Adresin kovası.
+        int connections; // Adresten açık bağlantı sayısı (yalnızca map.compute içinde değişir).
+
+        Address(int perSecond) {
+            this.bucket = new Bucket(perSecond);
+        }
+    }
+
+    /**
+     * Bir bağlantının sınırlayıcısı. Yalnızca bağlantının okuma thread'inde (veya olay
+     * döngüsünde) kullanılır; close herhangi bir thread'den çağrılabilir.
+     */
+    final class Gate {
+        private final Bucket bucket; // Bağlantının kovası (sınır kapalıysa null).
+        private final InetAddress address; // Bağlantının IP adresi (bilinmiyorsa null).
+        private final Address shared; // Adresin paylaşılan kovası (sınır kapalıysa null).
+        private long warnedAt; // Oyuncunun en son uyarıldığı an; uyarı en fazla BURST_SECONDS'ta bir gönderilir.
+        private volatile boolean closed = false; // close çağrıldı mı.
+
+        private Gate(InetAddress address) {
+            this.bucket = connectionRate > 0 ? new Bucket(connectionRate) : null;
+            this.address = address;
+            this.warnedAt = System.nanoTime() - WARN_INTERVAL_NANOS;
+            this.shared = address != null && addressRate > 0
+                    ? addresses.compute(address, (a, entry) -> {
+                        Address result = entry != null ? entry : new Address(addressRate);
+                        result.connections++;
+                        return result;
+                    })
+                    : null;
+        }
+
+        /**
+         * Okunan bir satır veya çerçeve için jeton harcar. Jeton yoksa girdi atılır ve sayılır;
+         * oyuncuya bilgi verilir, ancak sürekli sınırı aşan bağlantıya giden uyarılar da sınırlıdır.
+         * @param connection Girdinin geldiği bağlantı.
+         * @return Girdi işlenmeliyse true, atılmalıysa false.
+         */
+        boolean admit(PlayerConnection connection) {
+            long now = System.nanoTime();
+            if (bucket != null && !bucket.tryTake(now)) {
+                shedByConnection.increment();
+            } else if (shared != null && !shared.bucket.tryTake(now)) {
+                shedByAddress.increment();
+            } else {
+                return true;
+            }
+            if (now - warnedAt >= WARN_INTERVAL_NANOS) {
+                warnedAt = now;
+                connection.sendMessage("INFO:Çok hızlı komut gönderiyorsunuz; fazla komutlarınız yok sayılıyor.");
+            }
+            return false;
+        }
+
+        /**
+         * Bir satırın veya çerçeve gövdesinin izin verilen uzunluğu aşıp aşmadığını döndürür.
+         * Aşıyorsa girdi sayılır; bağlantı kapatılmalıdır.
+         * @param length Girdinin uzunluğu (bayt).
+         * @return Girdi çok uzunsa true.
+         */
+        boolean isOversized(int length) {
+            if (length <= maxLineLength) {
+                return false;
+            }
+            oversized.increment();
+            return true;
+        }
+
+        /**
+         * Bağlantı kapandığında adresin bağlantı sayısını azaltır; adresin son bağlantısıysa
+         * adresin kovası bırakılır. Birden fazla çağrılabilir.
+         */
+        void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (shared != null) {
+                addresses.computeIfPresent(address, (a, entry) -> --entry.connections > 0 ? entry : null);
+            }
+        }
+    }
+
+    private static final InputLimiter UNLIMITED = new InputLimiter(0, 0, DEFAULT_MAX_LINE_LENGTH);
+
+    private final int connectionRate; // Bağlantı başına saniyedeki komut sınırı (0 ise sınırsız).
+    private final int addressRate; // IP adresi başına saniyedeki komut sınırı (0 ise sınırsız).
+    private final int maxLineLength; // En uzun satır veya çerçeve gövdesi (bayt).
+    private final ConcurrentHashMap<InetAddress, Address> addresses = new ConcurrentHashMap<>(); // Açık bağlantısı olan adresler.
+    private final LongAdder shedByConnection = new LongAdder(); // Bağlantı sınırı yüzünden atılan girdi sayısı.
+    private final LongAdder shedByAddress = new LongAdder(); // IP sınırı yüzünden atılan girdi sayısı.
+    private final LongAdder oversized = new LongAdder(); // Uzunluk sınırını aştığı için kapatılan bağlantı sayısı.
+
+    /**
+     * Bir InputLimiter oluşturur.
+     * @param connectionRate Bağlantı başına saniyedeki komut sınırı (0 ise sınırsız).
+     * @param addressRate IP adresi başına saniyedeki komut sınırı (0 ise sınırsız).
+     * @param maxLineLength En uzun satır veya çerçeve gövdesi (bayt).
+     */
+    InputLimiter(int connectionRate, int addressRate, int maxLineLength) {
+        this.connectionRate = Math.max(0, connectionRate);
+        this.addressRate = Math.max(0, addressRate);
+        this.maxLineLength = Math.max(1, maxLineLength);
+    }
+
+    /**
+     * Hız sınırı uygulamayan, yalnızca varsayılan uzunluk sınırını uygulayan sınırlayıcıyı
+     * döndürür (oda kaydı olmadan oluşturulan bağlantılar için).
+     * @return Ortak sınırsız sınırlayıcı.
+     */
+    static InputLimiter unlimited() {
+        return UNLIMITED;
+    }
+
+    /**
+     * Yeni kabul edilmiş bir bağlantı için sınırlayıcı oluşturur. Bağlantı kapandığında
+     * Gate.close çağrılmalıdır.
+     * @param address Bağlantının IP adresi (bilinmiyorsa null; yalnızca bağlantı sınırı uygulanır).
+     * @return Bağlantının sınırlayıcısı.
+     */
+    Gate open(InetAddress address) {
+        return new Gate(address);
+    }
+
+    /**
+     * Hız sınırları yüzünden atılan toplam girdi sayısını döndürür.
+     * @return Bağlantı ve IP sınırlarından atılan girdilerin toplamı.
+     */
+    long getShedCount() {
+        return shedByConnection.sum() + shedByAddress.sum();
+    }
+
+    /**
+     * IP sınırı yüzünden atılan girdi sayısını döndürür.
+     * @return Girdi sayısı.
+     */
+    long getShedByAddressCount() {
+        return shedByAddress.sum();
+    }
+
+    /**
+     * Uzunluk sınırını aştığı için kapatılan bağlantı sayısını döndürür.
+     * @return Bağlantı sayısı.
+     */
+    long getOversizedCount() {
+        return oversized.sum();
+    }
+}
@@ -0,0 +1,358 @@
+package Server;
+
+import java.io.PrintStream;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Log, sunucunun eşzamansız günlük (log) altyapısıdır. Oyun, oda ve bağlantı thread'leri
+ * konsola doğrudan yazmaz: bir kayıt yalnızca seviyesi ve kategorisiyle birlikte kilitsiz
+ * bir halka tampona (ring buffer) bırakılır ve konsola tek bir arka plan thread'i
+ * ("log-writer") tarafından toplu olarak yazılır. Böylece thread'ler System.out kilidinde
+ * sıraya girmez.
+ *
+ * Mesajlar "{}" yer tutuculu bir şablon ve en fazla üç argüman olarak kaydedilir; String
+ * birleştirme ve biçimlendirme de yazıcı thread'inde yapılır. Halkanın kayıt nesneleri
+ * önceden oluşturulur, bir kayıt bırakmak bir CAS ve birkaç alan yazmasıdır. Halka doluysa
+ * kayıt beklenmeden atılır ve sayılır.
+ *
+ * Her kategorinin kendi en düşük seviyesi ve örnekleme oranı vardır: seviyenin altındaki
+ * kayıtlar tek bir karşılaştırmayla elenir, örneklenen kategorilerde DEBUG ve INFO
+ * kayıtlarının yalnızca N'de biri tutulur (uyarılar ve hatalar her zaman tutulur).
+ */
+final class Log {
+
+    /** Kayıt seviyeleri; OFF bir kategoriyi tamamen kapatmak içindir. */
+    enum Level { DEBUG, INFO, WARN, ERROR, OFF }
+
+    /**
+     * Kayıt kategorileri. Her kategorinin seviyesi ve örnekleme oranı ayrı ayrı ayarlanabilir.
+     */
+    enum Category {
+        CONNECTION, // Bağlantı kabulü, kopma, canlılık denetimi, girdi sınırları.
+        COMMAND, // İstemciden gelen komutlar (en sık kayıt).
+        GAME, // Tur, skor ve oyun sonu olayları.
+        ROOM, // Odaların açılması, kapanması, koltuklar ve izleyiciler.
+        JOURNAL, // Oyun günlüğü ve anlık görüntüler.
+        SERVER; // Sunucu geneli: istatistikler ve iç hatalar.
+
+        volatile int threshold = Level.INFO.ordinal(); // Bu seviyenin altındaki kayıtlar atılır.
+        volatile int sampleEvery = 1; // DEBUG/INFO kayıtlarının N'de biri tutulur.
+    }
+
+    /**
+     * Halkadaki tek bir kayıt yuvası. sequence, yuvanın hangi turda yazılabilir veya
+     * okunabilir olduğunu gösterir (Vyukov sınırlı kuyruğu).
+     */
+    private static final class Entry {
+        volatile long sequence; // Yazılabilir: konum; okunabilir: konum + 1.
+        long time; // Kaydın oluşturulduğu an (ms).
+        Level level; // Seviye.
+        Category category; // Kategori.
+        String template; // "{}" yer tutuculu mesaj şablonu.
+        Object a0, a1, a2; // Şablon argümanları.
+        Throwable thrown; // Yığın izi yazılacak hata (yoksa null).
+
+        Entry(long sequence) {
+            this.sequence = sequence;
+        }
+    }
+
+    private static final int CAPACITY = 1 << 14; // Halkadaki yuva sayısı (2'nin kuvveti).
+    private static final int MASK = CAPACITY - 1;
+    private static final int MAX_BATCH = 512; // Yazıcının bir boşaltmada yazdığı en fazla kayıt.
+    private static final Entry[] RING = new Entry[CAPACITY];
+    private static final AtomicLong TAIL = new AtomicLong(); // Sıradaki yazılacak konum (üreticiler).
+    private static long head; // Sıradaki okunacak konum (yalnızca yazıcı thread'i).
+    private static final LongAdder DROPPED = new LongAdder(); // Halka dolu olduğu için atılan kayıtlar.
+    private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("HH:mm:ss.").withZone(ZoneId.systemDefault());
+    private static long prefixSecond = Long.MIN_VALUE; // timePrefix'in ait olduğu saniye (yalnızca yazıcı thread'i).
+    private static String timePrefix = ""; // "ss:dd:nn." önbelleği; saniyede bir kez biçimlendirilir.
+    private static volatile boolean closing = false; // JVM kapanıyor; yazıcı son kez boşaltıp çıkar.
+    private static final Thread WRITER;
+
+    static {
+        for (int i = 0; i < CAPACITY; i++) {
+            RING[i] = new Entry(i);
+        }
+        WRITER = new Thread(Log::runWriter, "log-writer");
+        WRITER.setDaemon(true);
+        WRITER.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            closing = true; // Kapanırken halkada kalan kayıtlar kaybolmasın.
+            LockSupport.unpark(WRITER);
+            try {
+                WRITER.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "log-flush"));
+    }
+
+    private Log() {
+    }
+
+    /**
+     * Bir kategorinin en düşük seviyesini ve örnekleme oranını ayarlar.
+     * @param category Kategori.
+     * @param level Bu seviyenin altındaki kayıtlar atılır (OFF ise kategori kapanır).
+     * @param sampleEvery DEBUG ve INFO kayıtlarının kaçta birinin tutulacağı (1 ise hepsi).
+     */
+    static void configure(Category category, Level level, int sampleEvery) {
+        category.threshold = level.ordinal();
+        category.sampleEvery = Math.max(1, sampleEvery);
+    }
+
+    /**
+     * "KATEGORİ:SEVİYE[/N]" biçiminde virgülle ayrılmış ayarları uygular (ör.
+     * "COMMAND:OFF,GAME:INFO/10,ALL:WARN"). ALL tüm kategorileri ayarlar.
+     * @param spec Ayar metni.
+     * @throws IllegalArgumentException Kategori, seviye veya oran geçersizse.
+     */
+    static void configure(String spec) {
+        for (String part : spec.split(",")) {
+            String[] nameAndLevel = part.trim().split(":", 2);
+            if (nameAndLevel.length != 2) {
+                throw new IllegalArgumentException("geçersiz günlük ayarı: " + part);
+            }
+            String[] levelAndRate = nameAndLevel[1].split("/", 2);
+            Level level = Level.valueOf(levelAndRate[0].trim().toUpperCase());
+            int sampleEvery = levelAndRate.length > 1 ? Integer.parseInt(levelAndRate[1].trim()) : 1;
+            String name = nameAndLevel[0].trim().toUpperCase();
+            if (name.equals("ALL")) {
+                for (Category category : Category.values()) {
+                    configure(category, level, sampleEvery);
+                }
+            } else {
+                configure(Category.valueOf(name), level, sampleEvery);
+            }
+        }
+    }
+
+    /**
+     * Bir kaydın tutulup tutulmayacağını döndürür. Argümanları pahalı olan kayıtlardan
+     * önce çağrılabilir.
+     * @param category Kategori.
+     * @param level Seviye.
+     * @return Kategori bu seviyeyi yazıyorsa true.
+     */
+    static boolean isEnabled(Category category, Level level) {
+        return level.ordinal() >= category.threshold;
+    }
+
+    /**
+     * DEBUG seviyesinde bir kayıt bırakır. Şablondaki her "{}" sırayla bir argümanla değiştirilir;
+     * biçimlendirme yazıcı thread'inde yapılır.
+     * @param category Kategori.
+     * @param template Mesaj şablonu.
+     */
+    static void debug(Category category, String template) {
+        log(Level.DEBUG, category, template, null, null, null, null);
+    }
+
+    static void debug(Category category, String template, Object a0) {
+        log(Level.DEBUG, category, template, a0, null, null, null);
+    }
+
+    static void debug(Category category, String template, Object a0, Object a1) {
+        log(Level.DEBUG, category, template, a0, a1, null, null);
+    }
+
+    /**
+     * INFO seviyesinde bir kayıt bırakır. Şablondaki her "{}" sırayla bir argümanla değiştirilir;
+     * biçimlendirme yazıcı thread'inde yapılır.
+     * @param category Kategori.
+     * @param template Mesaj şablonu.
+     */
+    static void info(Category category, String template) {
+        log(Level.INFO, category, template, null, null, null, null);
+    }
+
+    static void info(Category category, String template, Object a0) {
+        log(Level.INFO, category, template, a0, null, null, null);
+    }
+
+    static void info(Category category, String template, Object a0, Object a1) {
+        log(Level.INFO, category, template, a0, a1, null, null);
+    }
+
+    static void info(Category category, String template, Object a0, Object a1, Object a2) {
+        log(Level.INFO, category, template, a0, a1, a2, null);
+    }
+
+    /**
+     * WARN seviyesinde bir kayıt bırakır. Şablondaki her "{}" sırayla bir argümanla değiştirilir;
+     * biçimlendirme yazıcı thread'inde yapılır.
+     * @param category Kategori.
+     * @param template Mesaj şablonu.
+     */
+    static void warn(Category category, String template) {
+        log(Level.WARN, category, template, null, null, null, null);
+    }
+
+    static void warn(Category category, String template, Object a0) {
+        log(Level.WARN, category, template, a0, null, null, null);
+    }
+
+    static void warn(Category category, String template, Object a0, Object a1) {
+        log(Level.WARN, category, template, a0, a1, null, null);
+    }
+
+    static void warn(Category category, String template, Object a0, Object a1, Object a2) {
+        log(Level.WARN, category, template, a0, a1, a2, null);
+    }
+
+    /**
+     * Bir hata kaydı bırakır; hatanın yığın izi de yazılır.
+     * @param category Kategori.
+     * @param template Mesaj şablonu.
+     * @param a0 Şablonun ilk argümanı.
+     * @param thrown Yığın izi yazılacak hata.
+     */
+    static void error(Category category, String template, Object a0, Throwable thrown) {
+        log(Level.ERROR, category, template, a0, null, null, thrown);
+    }
+
+    static void error(Category category, String template, Object a0, Object a1, Throwable thrown) {
+        log(Level.ERROR, category, template, a0, a1, null, thrown);
+    }
+
+    /**
+     * Halka dolu olduğu için atılan kayıt sayısını döndürür.
+     * @return Kayıt sayısı.
+     */
+    static long getDroppedCount() {
+        return DROPPED.sum();
+    }
+
+    /**
+     * Bir kaydı halkaya bırakır. Seviye veya örnekleme elerse hiçbir şey yapılmaz; halka
+     * doluysa kayıt sayılıp atılır. Hiçbir zaman beklemez.
+     */
+    private static void log(Level level, Category category, String template, Object a0, Object a1, Object a2, Throwable thrown) {
+        if (level.ordinal() < category.threshold) {
+            return;
+        }
+        int sampleEvery = category.sampleEvery;
+        if (sampleEvery > 1 && level.ordinal() < Level.WARN.ordinal()
+                && ThreadLocalRandom.current().nextInt(sampleEvery) != 0) {
+            return;
+        }
+        long position = TAIL.get();
+        Entry entry;
+        while (true) {
+            entry = RING[(int) (position & MASK)];
+            long difference = entry.sequence - position;
+            if (difference == 0) {
+                if (TAIL.compareAndSet(position, position + 1)) {
+                    break; // Yuva bu thread'e ait.
+                }
+                position = TAIL.get();
+            } else if (difference < 0) {
+                DROPPED.increment(); // Yazıcı geride kaldı; thread bekletilmez.
+                return;
+            } else {
+                position = TAIL.get(); // Başka bir üretici bu konumu aldı.
+            }
+        }
+        entry.time = System.currentTimeMillis();
+        entry.level = level;
+        entry.category = category;
+        entry.template = template;
+        entry.a0 = a0;
+        entry.a1 = a1;
+        entry.a2 = a2;
+        entry.thrown = thrown;
+        entry.sequence = position + 1; // Yayınla: yazıcı artık bu yuvayı okuyabilir.
+    }
+
+    /**
+     * Yazıcı thread'inin ana döngüsü. Halkada kayıt varken toplu olarak yazar, yoksa kısa
+     * bir süre uyur; üreticiler yazıcıyı uyandırmaz, böylece kayıt bırakmak bir sistem
+     * çağrısı gerektirmez.
+     */
+    private static void runWriter() {
+        StringBuilder out = new StringBuilder(16 * 1024);
+        StringBuilder err = new StringBuilder(1024);
+        while (true) {
+            boolean stopping = closing;
+            int written = drain(out, err);
+            if (written == 0) {
+                if (stopping) {
+                    return;
+                }
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+            }
+        }
+    }
+
+    /**
+     * Halkadaki en fazla MAX_BATCH kaydı biçimlendirip yazar ve akışları bir kez boşaltır.
+     * @return Yazılan kayıt sayısı.
+     */
+    private static int drain(StringBuilder out, StringBuilder err) {
+        int count = 0;
+        while (count < MAX_BATCH) {
+            Entry entry = RING[(int) (head & MASK)];
+            if (entry.sequence != head + 1) {
+                break; // Sıradaki yuva henüz yayınlanmadı.
+            }
+            StringBuilder target = entry.level.ordinal() >= Level.WARN.ordinal() ? err : out;
+            format(target, entry);
+            Throwable thrown = entry.thrown;
+            entry.template = null; // Argümanlar yazıcıda tutulmasın.
+            entry.a0 = entry.a1 = entry.a2 = null;
+            entry.thrown = null;
+            entry.sequence = head + CAPACITY; // Yuva bir sonraki turda yeniden yazılabilir.
+            head++;
+            count++;
+            if (thrown != null) {
+                flush(out, System.out);
+                flush(err, System.err);
+                thrown.printStackTrace();
+            }
+        }
+        flush(out, System.out);
+        flush(err, System.err);
+        return count;
+    }
+
+    /**
+     * Bir kaydı "ss:dd:nn.mmm SEVİYE [KATEGORİ] mesaj" biçiminde ekler.
+     */
+    private static void format(StringBuilder target, Entry entry) {
+        long second = Math.floorDiv(entry.time, 1000);
+        if (second != prefixSecond) {
+            prefixSecond = second;
+            timePrefix = TIME.format(Instant.ofEpochSecond(second));
+        }
+        int millis = Math.floorMod(entry.time, 1000);
+        target.append(timePrefix).append((char) ('0' + millis / 100)).append((char) ('0' + millis / 10 % 10))
+                .append((char) ('0' + millis % 10));
+        target.append(' ').append(entry.level).append(" [").append(entry.category).append("] ");
+        String template = entry.template;
+        int next = 0;
+        int start = 0;
+        int index;
+        while (next < 3 && (index = template.indexOf("{}", start)) >= 0) {
+            target.append(template, start, index).append(next == 0 ? entry.a0 : next == 1 ? entry.a1 : entry.a2);
+            next++;
+            start = index + 2;
+        }
+        target.append(template, start, template.length()).append(System.lineSeparator());
+    }
+
+    private static void flush(StringBuilder buffer, PrintStream stream) {
+        if (buffer.length() > 0) {
+            stream.print(buffer);
+            stream.flush();
+            buffer.setLength(0);
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package Server;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Matchmaker, lobiye katılan oyuncuları odalara yerleştiren eşleştirme
+ * aşamasıdır. Kabul döngüsü yalnızca oyuncuyu kilitsiz bir kuyruğa ekler;
+ * ayrı bir zamanlayıcı thread'i kuyruğu belirli aralıklarla toplu olarak
+ * boşaltır ve 2-N kişilik odalar oluşturur. Böylece yoğun bağlantı
+ * fırtınalarında bile kabul döngüsünün gecikmesi sabit kalır.
+ *
+ * Puan tabanlı eşleştirme açıksa bekleyen oyuncular puanlarına göre sıralanır
+ * ve birbirine en yakın puanlı oyuncular aynı odaya yerleştirilir. Puanlar
+ * istemcilerin "RATING:n" ile bildirdiği ve bağlantıda saklanan puanlardır.
+ */
+public class Matchmaker {
+
+    /** Puanı bilinmeyen oyuncular için kullanılan varsayılan beceri puanı. */
+    public static final int DEFAULT_RATING = 1000;
+    private static final long DEFAULT_TICK_MILLIS = 20; // Varsayılan eşleştirme turu aralığı.
+    private static final int DEFAULT_BATCH_SIZE = 4096; // Varsayılan tur başına bilet sayısı.
+    private static final long DEFAULT_MAX_WAIT_MILLIS = 5000; // Varsayılan eksik oda bekleme süresi.
+
+    private final RoomRegistry registry; // Oluşturulan odaların kaydedileceği oda kaydı.
+    private final int minPlayers; // Bir odanın açılabilmesi için gereken en az oyuncu sayısı.
+    private final int maxPlayers; // Bir odadaki en fazla oyuncu sayısı.
+    private final boolean ratingBased; // Oyuncular beceri puanına göre mi eşleştirilsin.
+    private final long maxWaitMillis; // Bu süreden fazla bekleyen oyuncular için eksik (minPlayers..maxPlayers-1) oda açılır.
+    private final int batchSize; // Bir turda kuyruktan alınacak en fazla bilet sayısı.
+    private final Queue<Ticket> incoming = new ConcurrentLinkedQueue<>(); // Kabul thread'lerinden gelen yeni biletler.
+    private final ConcurrentHashMap<PlayerConnection, Ticket> pending = new ConcurrentHashMap<>(); // Henüz odaya yerleşmemiş oyuncular.
+    private final List<Ticket> waiting = new ArrayList<>(); // Zamanlayıcı thread'ine ait bekleme listesi.
+    private final ScheduledExecutorService scheduler; // Eşleştirme turlarını çalıştıran thread.
+
+    /**
+     * Lobideki tek bir oyuncuyu temsil eden eşleştirme bileti.
+     */
+    private static final class Ticket {
+        final PlayerConnection player; // Oyuncu bağlantısı.
+        final int rating; // Oyuncunun beceri puanı.
+        final long enqueuedAt; // Lobiye katılma zamanı (ms).
+        volatile boolean cancelled; // Oyuncu odaya yerleşmeden ayrıldıysa true.
+
+        Ticket(PlayerConnection player, int rating) {
+            this(player, rating, System.currentTimeMillis());
+        }
+
+        Ticket(PlayerConnection player, int rating, long enqueuedAt) {
+            this.player = player;
+            this.rating = rating;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+
+    /**
+     * Varsayılan tur aralığı, toplu işlem boyutu ve bekleme süresiyle bir Matchmaker oluşturur.
+     * @param registry Odaların kaydedileceği RoomRegistry.
+     * @param minPlayers Bir odadaki en az oyuncu sayısı (en az 2).
+     * @param maxPlayers Bir odadaki en fazla oyuncu sayısı.
+     * @param ratingBased Beceri puanına göre eşleştirme yapılıp yapılmayacağı.
+     */
+    public Matchmaker(RoomRegistry registry, int minPlayers, int maxPlayers, boolean ratingBased) {
+        this(registry, minPlayers, maxPlayers, ratingBased, DEFAULT_TICK_MILLIS, DEFAULT_BATCH_SIZE, DEFAULT_MAX_WAIT_MILLIS);
+    }
+
+    /**
+     * Matchmaker sınıfının yapıcı metodudur ve eşleştirme thread'ini başlatır.
+     * @param registry Odaların kaydedileceği RoomRegistry.
+     * @param minPlayers Bir odadaki en az oyuncu sayısı (en az 2).
+     * @param maxPlayers Bir odadaki en fazla oyuncu sayısı.
+     * @param ratingBased Beceri puanına göre eşleştirme yapılıp yapılmayacağı.
+     * @param tickMillis Eşleştirme turları arasındaki süre (ms).
+     * @param batchSize Bir turda kuyruktan alınacak en fazla bilet sayısı.
+     * @param maxWaitMillis Eksik oda açmadan önce beklenecek en uzun süre (ms).
+     */
+    public Matchmaker(RoomRegistry registry, int minPlayers, int maxPlayers, boolean ratingBased,
+            long tickMillis, int batchSize, long maxWaitMillis) {
+        this.registry = registry;
+        this.minPlayers = Math.max(2, minPlayers);
+        this.maxPlayers = Math.max(this.minPlayers, maxPlayers);
+        this.ratingBased = ratingBased;
+        this.batchSize = batchSize;
+        this.maxWaitMillis = maxWaitMillis;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "matchmaker");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(this::runRound, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Oyuncuyu varsayılan puanla eşleştirme kuyruğuna ekler.
+     * @param player Lobiye katılan oyuncu.
+     */
+    public void join(PlayerConnection player) {
+        join(player, DEFAULT_RATING);
+    }
+
+    /**
+     * Oyuncuyu eşleştirme kuyruğuna ekler. Herhangi bir thread'den çağrılabilir ve hiçbir zaman beklemez.
+     * @param player Lobiye katılan oyuncu.
+     * @param rating Oyuncunun beceri puanı.
+     */
+    public void join(PlayerConnection player, int rating) {
+        enqueue(new Ticket(player, rating));
+    }
+
+    /**
+     * Bileti bekleyen oyunculara ve bir sonraki turun kuyruğuna ekler.
+     * @param ticket Eklenecek bilet.
+     */
+    private void enqueue(Ticket ticket) {
+        pending.put(ticket.player, ticket);
+        incoming.add(ticket);
+    }
+
+    /**
+     * Henüz odaya yerleşmemiş bir oyuncuyu lobiden çıkarır.
+     * @param player Ayrılan oyuncu.
+     * @return Oyuncu lobiden çıkarıldıysa true; lobide değilse veya bir odaya yerleştirildiyse false.
+     */
+    public boolean leave(PlayerConnection player) {
+        Ticket ticket = pending.remove(player);
+        if (ticket != null) {
+            ticket.cancelled = true; // Zamanlayıcı thread'i bileti bir sonraki turda atlar.
+        }
+        return ticket != null;
+    }
+
+    /**
+     * Lobide bekleyen oyuncu sayısını döndürür.
+     * @return Bekleyen oyuncu sayısı.
+     */
+    public int getWaitingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Eşleştirme thread'ini durdurur.
+     */
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Tek bir eşleştirme turu: kuyruktan en fazla batchSize bilet alır, iptal edilenleri ayıklar
+     * ve mümkün olan tüm odaları oluşturur.
+     */
+    private void runRound() {
+        try {
+            Ticket ticket;
+            int drained = 0;
+            while (drained < batchSize && (ticket = incoming.poll()) != null) {
+                waiting.add(ticket);
+                drained++;
+            }
+            waiting.removeIf(t -> t.cancelled);
+            if (waiting.size() < minPlayers) {
+                return;
+            }
+            if (ratingBased) {
+                waiting.sort(Comparator.comparingInt(t -> t.rating)); // Yakın puanlı oyuncular yan yana gelir.
+            }
+
+            // Önce dolu odalar oluştur.
+            while (waiting.size() >= maxPlayers) {
+                seat(waiting.subList(0, maxPlayers));
+            }
+
+            // Kalan oyuncular arasında uzun süredir bekleyen varsa eksik bir oda aç.
+            if (waiting.size() >= minPlayers) {
+                long now = System.currentTimeMillis();
+                Iterator<Ticket> it = waiting.iterator();
+                while (it.hasNext()) {
+                    if (now - it.next().enqueuedAt >= maxWaitMillis) {
+                        seat(waiting.subList(0, waiting.size()));
+                        break;
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            // Zamanlayıcı, fırlatılan bir hatadan sonra görevi tekrar çalıştırmaz; turu kaybetmek yerine hatayı yazdır.
+            Log.error(Log.Category.ROOM, "Eşleştirme turu hatası: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Verilen biletlerdeki oyuncuları yeni bir odaya yerleştirir ve biletleri bekleme listesinden çıkarır.
+     * @param group Bekleme listesinin odaya yerleştirilecek alt listesi.
+     */
+    private void seat(List<Ticket> group) {
+        List<Ticket> seated = new ArrayList<>(group.size());
+        for (Ticket t : group) {
+            // Bilet pending'den burada alınır; aynı anda leave çağrılırsa yalnızca biri kazanır.
+            if (pending.remove(t.player, t)) {
+                seated.add(t);
+            }
+        }
+        group.clear(); // Alt liste temizlendiğinde biletler bekleme listesinden de çıkar.
+        if (seated.size() < minPlayers) {
+            for (Ticket t : seated) {
+                // Tur sırasında ayrılan oyuncu yüzünden masa eksik kaldı; kalanlar puanları ve
+                // bekleme süreleri korunarak lobiye döner.
+                enqueue(new Ticket(t.player, t.player.getRating(), t.enqueuedAt));
+            }
+            return;
+        }
+        List<PlayerConnection> table = new ArrayList<>(seated.size());
+        for (Ticket t : seated) {
+            table.add(t.player);
+        }
+        registry.openRoom(table);
+    }
+}
@@ -0,0 +1,409 @@
+package Server;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * NioConnection, bloklamayan bir SocketChannel üzerinden bağlı tek bir oyuncuyu
+ * temsil eder. Gelen baytları satır sonlarına göre komutlara böler (ROLL, MOVE,
+ * RESTART, QUIT) ve bunları GameManager'a iletir. İstemci "PROTO:BIN" satırı
+ * gönderirse bağlantı ikili çerçevelere (BinaryProtocol) geçer. Giden mesajlar
+ * ConnectionOutput ile sınırlı bir OutboundQueue'da tutulur ve bağlantının olay döngüsü tarafından kanala
+ * yazılır; kuyruk taşarsa bağlantı sonlandırılır.
+ */
+public class NioConnection implements PlayerConnection {
+
+    private static final int READ_BUFFER_SIZE = 4096; // Tek bir okuma işleminde kullanılan tampon boyutu.
+
+    private final SocketChannel channel; // Oyuncunun bağlı olduğu bloklamayan kanal.
+    private final NioEventLoop loop; // Bu bağlantıyı yöneten olay döngüsü.
+    private final NioServer server; // Bağlantı koptuğunda bilgilendirilecek sunucu.
+    private final InputLimiter.Gate gate; // Okunan satır ve çerçevelerin hız ve uzunluk sınırı.
+    private final ByteBuffer readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE); // Kanaldan okunan ham baytlar.
+    private final ConnectionOutput output; // Mesajları kodlayıp giden kuyruğa ekler.
+    private byte[] lineBuffer = new byte[256]; // Henüz satır sonu gelmemiş komut baytları (ikili modda yarım çerçeve).
+    private int lineLength = 0; // lineBuffer içindeki geçerli bayt sayısı.
+    private final CommandParser parser = new CommandParser(); // ROLL/MOVE satırlarını lineBuffer'dan doğrudan çözer.
+    private SelectionKey selectionKey; // Kanalın seçicideki kaydı.
+    private volatile GameManager gameManager; // Komutların iletileceği oyun yöneticisi.
+    private volatile int playerId = -1; // Oyuncunun oda içindeki ID'si (masaya yerleşene kadar -1).
+    private volatile int rating = Matchmaker.DEFAULT_RATING; // Eşleştirmede kullanılan beceri puanı.
+    private volatile boolean closed = false; // Bağlantının kapatılıp kapatılmadığı.
+    private volatile long lastActivity = System.nanoTime(); // Kanaldan en son veri okunan an (boşta bağlantı taraması için).
+    private final ByteBuffer[] writeBatch = new ByteBuffer[64]; // Tek bir toplu yazmada kanala verilen mesajlar (yalnızca olay döngüsü).
+    private int batchStart; // writeBatch içinde henüz tamamen yazılmamış ilk mesaj.
+    private int batchEnd; // writeBatch içindeki mesaj sayısı.
+
+    /**
+     * NioConnection sınıfının yapıcı metodudur.
+     * @param channel Oyuncunun kanalı.
+     * @param loop Bu bağlantıyı yönetecek olay döngüsü.
+     * @param server Bağlantıyı kabul eden sunucu.
+     */
+    NioConnection(SocketChannel channel, NioEventLoop loop, NioServer server) {
+        this.channel = channel;
+        this.loop = loop;
+        this.server = server;
+        this.gate = server.getRegistry().getInputLimiter().open(channel.socket().getInetAddress());
+        this.output = new ConnectionOutput(this, () -> loop.requestFlush(this));
+    }
+
+    SocketChannel getChannel() {
+        return channel;
+    }
+
+    void setSelectionKey(SelectionKey selectionKey) {
+        this.selectionKey = selectionKey;
+    }
+
+    @Override
+    public int getPlayerId() {
+        return playerId;
+    }
+
+    @Override
+    public void setPlayerId(int playerId) {
+        this.playerId = playerId;
+    }
+
+    @Override
+    public int getRating() {
+        return rating;
+    }
+
+    @Override
+    public void setRating(int rating) {
+        this.rating = rating;
+    }
+
+    @Override
+    public void setGameManager(GameManager gameManager) {
+        this.gameManager = gameManager;
+    }
+
+    @Override
+    public GameManager getGameManager() {
+        return gameManager;
+    }
+
+    @Override
+    public boolean switchToBinary() {
+        return output.switchToBinary();
+    }
+
+    /**
+     * Mesajı giden kuyruğa ekler ve olay döngüsünden yazılmasını ister.
+     * @param message İstemciye gönderilecek mesaj.
+     */
+    @Override
+    public void sendMessage(String message) {
+        output.sendMessage(message);
+    }
+
+    /**
+     * Bir kez kodlanmış yayın mesajını, baytlarını kopyalamadan giden kuyruğa ekler.
+     * @param message Odadaki tüm alıcılarla paylaşılan mesaj.
+     */
+    @Override
+    public void sendShared(SharedMessage message) {
+        output.sendShared(message);
+    }
+
+    @Override
+    public void sendDice(int[] dice) {
+        output.sendDice(dice);
+    }
+
+    @Override
+    public void sendScore(int row, int column, int score) {
+        output.sendScore(row, column, score);
+    }
+
+    @Override
+    public void sendTurn(int playerIndex) {
+        output.sendTurn(playerIndex);
+    }
+
+    @Override
+    public void sendIndex(int playerIndex) {
+        output.sendIndex(playerIndex);
+    }
+
+    @Override
+    public void sendState(GameState state, int playerCount) {
+        output.sendState(state, playerCount);
+    }
+
+    @Override
+    public void beginBatch() {
+        output.beginBatch();
+    }
+
+    @Override
+    public void endBatch() {
+        output.endBatch();
+    }
+
+    /**
+     * Giden kuyrukta gönderilmeyi bekleyen mesaj sayısını döndürür.
+     * @return Kuyruk derinliği.
+     */
+    @Override
+    public int getQueueDepth() {
+        return output.size();
+    }
+
+    /**
+     * Giden kuyruğun bağlantı açıldığından beri ulaştığı en büyük derinliği döndürür.
+     * @return En büyük derinlik.
+     */
+    @Override
+    public int getQueueHighWater() {
+        return output.getHighWater();
+    }
+
+    @Override
+    public long getLastActivity() {
+        return lastActivity;
+    }
+
+    @Override
+    public void sendPing() {
+        output.sendPing();
+    }
+
+    /**
+     * Cevap vermeyen bağlantının okuma tarafını kapatır. Seçici kanalı okunabilir (akış sonu)
+     * olarak bildirir ve bağlantı olay döngüsünde, istemci kapatmış gibi sonlandırılır.
+     */
+    @Override
+    public void reap() {
+        try {
+            channel.shutdownInput();
+        } catch (IOException e) {
+            Log.warn(Log.Category.CONNECTION, "Oyuncu {} bağlantısı sonlandırılamadı: {}", playerId, e.getMessage());
+        }
+    }
+
+    /**
+     * Kanalı kapatır ve seçici kaydını iptal eder.
+     */
+    @Override
+    public void closeConnection() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        Log.info(Log.Category.CONNECTION, "Oyuncu {} bağlantısı kapatılıyor...", playerId);
+        try {
+            if (selectionKey != null) {
+                selectionKey.cancel();
+            }
+            channel.close();
+        } catch (IOException e) {
+            Log.warn(Log.Category.CONNECTION, "Oyuncu {} bağlantı kapatılırken hata: {}", playerId, e.getMessage());
+        }
+        output.close();
+        gate.close();
+    }
+
+    /**
+     * Kanal okunabilir olduğunda olay döngüsü tarafından çağrılır. Okunan baytları
+     * satırlara (ikili modda çerçevelere) böler ve her tamamını bir komut olarak işler.
+     */
+    void onReadable() {
+        int read;
+        try {
+            read = channel.read(readBuffer);
+        } catch (IOException e) {
+            Log.info(Log.Category.CONNECTION, "Oyuncu {} bağlantısı kesildi (okuma hatası): {}", playerId, e.getMessage());
+            disconnect();
+            return;
+        }
+        if (read == -1) { // İstemci bağlantıyı kapattı.
+            disconnect();
+            return;
+        }
+        lastActivity = System.nanoTime();
+
+        readBuffer.flip();
+        while (readBuffer.hasRemaining() && !closed) {
+            byte b = readBuffer.get();
+            if (output.isBinary()) {
+                readFrameByte(b);
+            } else if (b == '\n') {
+                int length = lineLength;
+                if (length > 0 && lineBuffer[length - 1] == '\r') {
+                    length--; // Windows satır sonlarını da kabul et.
+                }
+                lineLength = 0;
+                GameManager manager = gameManager;
+                if (!gate.admit(this)) {
+                    continue; // Hız sınırı aşıldı; satır ayrıştırılmadan ve yazdırılmadan atılır.
+                }
+                if (manager != null && parser.parse(lineBuffer, 0, length)) {
+                    manager.handleParsedCommand(this, parser); // Sık gelen ROLL/MOVE: String oluşturulmaz.
+                } else {
+                    dispatch(new String(lineBuffer, 0, length, StandardCharsets.UTF_8));
+                }
+            } else {
+                if (gate.isOversized(lineLength + 1)) {
+                    Log.warn(Log.Category.CONNECTION, "Oyuncu {} çok uzun satır gönderdi, bağlantı kapatılıyor.", playerId);
+                    disconnect(); // Tampon sınırsız büyütülmez.
+                    break;
+                }
+                if (lineLength == lineBuffer.length) {
+                    lineBuffer = Arrays.copyOf(lineBuffer, lineBuffer.length * 2);
+                }
+                lineBuffer[lineLength++] = b;
+            }
+        }
+        readBuffer.clear();
+    }
+
+    /**
+     * İkili modda gelen bir baytı yarım çerçeveye ekler; çerçeve tamamlandığında onu işler.
+     * lineBuffer'ın ilk iki baytı çerçeve uzunluğunu, geri kalanı gövdeyi tutar.
+     * @param b Kanaldan okunan bayt.
+     */
+    private void readFrameByte(byte b) {
+        if (lineLength == lineBuffer.length) {
+            lineBuffer = Arrays.copyOf(lineBuffer, lineBuffer.length * 2);
+        }
+        lineBuffer[lineLength++] = b;
+        if (lineLength < 2) {
+            return;
+        }
+        int length = ((lineBuffer[0] & 0xFF) << 8) | (lineBuffer[1] & 0xFF);
+        if (length == 0) {
+            Log.warn(Log.Category.CONNECTION, "Oyuncu {} geçersiz çerçeve gönderdi, bağlantı kapatılıyor.", playerId);
+            disconnect();
+            return;
+        }
+        if (lineLength == 2 && gate.isOversized(length)) { // Uzunluk alanı okunur okunmaz; gövde tamponlanmaz.
+            Log.warn(Log.Category.CONNECTION, "Oyuncu {} çok uzun çerçeve gönderdi ({} bayt), bağlantı kapatılıyor.", playerId, length);
+            disconnect();
+            return;
+        }
+        if (lineLength == 2 + length) {
+            lineLength = 0;
+            if (gate.admit(this)) { // Hız sınırı aşıldıysa çerçeve çözülmeden atılır.
+                dispatchFrame(ByteBuffer.wrap(lineBuffer, 2, length));
+            }
+        }
+    }
+
+    /**
+     * Tek bir ikili çerçeveyi GameManager'a iletir. Oyuncu henüz bir masaya yerleşmediyse
+     * yalnızca metin çerçeveleri (ör. QUIT) dikkate alınır.
+     * @param frame Konumu opcode baytında olan çerçeve gövdesi.
+     */
+    private void dispatchFrame(ByteBuffer frame) {
+        int opcode = frame.get(frame.position());
+        if (opcode == BinaryProtocol.OP_PING) {
+            output.sendPong();
+            return;
+        } else if (opcode == BinaryProtocol.OP_PONG) {
+            return; // Canlılık cevabı; son okuma anı güncellendi.
+        }
+        GameManager manager = gameManager;
+        if (manager == null) {
+            if (frame.get(frame.position()) == BinaryProtocol.OP_TEXT) {
+                frame.get();
+                dispatch(BinaryProtocol.decodeText(frame));
+            } else {
+                server.getRegistry().rejectUnseated(this);
+            }
+            return;
+        }
+        if (!manager.handleBinaryCommand(this, frame)) {
+            closeConnection(); // QUIT: GameManager zaten bilgilendirildi.
+            server.connectionClosed(this);
+        }
+    }
+
+    /**
+     * Tek bir komut satırını GameManager'a iletir. Oyuncu henüz bir masaya yerleşmediyse
+     * komut işlenmez ve oyuncu bilgilendirilir.
+     * @param line Satır sonu karakteri olmadan komut.
+     */
+    private void dispatch(String line) {
+        if (line.equals("PING")) {
+            output.sendPong();
+            return;
+        } else if (line.equals("PONG")) {
+            return; // Canlılık cevabı; son okuma anı güncellendi.
+        }
+        if (server.getRegistry().handleLobbyLine(this, line)) {
+            return; // İlk satır, RESUME/RATING/WATCH veya ikili protokol isteği.
+        }
+        GameManager manager = gameManager;
+        if (manager == null) {
+            if (line.equalsIgnoreCase("QUIT")) {
+                disconnect();
+            } else {
+                server.getRegistry().rejectUnseated(this);
+            }
+            return;
+        }
+        if (!manager.handleCommand(this, line)) {
+            closeConnection(); // QUIT: GameManager zaten bilgilendirildi.
+            server.connectionClosed(this);
+        }
+    }
+
+    /**
+     * Bağlantı beklenmedik şekilde koptuğunda oyunu ve sunucuyu bilgilendirir. Oda, oyuncunun
+     * koltuğunu yeniden bağlanması için bir süre tutar.
+     */
+    private void disconnect() {
+        if (closed) {
+            return;
+        }
+        GameManager manager = gameManager;
+        if (manager != null) {
+            manager.playerDropped(this); // GameManager'a oyuncunun bağlantısının koptuğunu bildir.
+        }
+        closeConnection();
+        server.connectionClosed(this);
+    }
+
+    /**
+     * Giden kuyruktaki mesajları kanala yazar. Kuyruktaki mesajlar tek bir toplu yazmayla
+     * (writev) gönderilir. Kanal tüm veriyi kabul edemezse OP_WRITE ilgisi açılır ve kalan veri kanal yazılabilir olduğunda gönderilir.
+     * Yalnızca olay döngüsü thread'inden çağrılmalıdır.
+     */
+    void flush() {
+        if (closed || selectionKey == null) {
+            return; // Kanal henüz seçiciye kaydedilmediyse kayıt sırasında tekrar denenecek.
+        }
+        try {
+            while (true) {
+                if (batchStart == batchEnd) {
+                    batchStart = 0;
+                    batchEnd = output.drainTo(writeBatch);
+                    if (batchEnd == 0) {
+                        break;
+                    }
+                }
+                channel.write(writeBatch, batchStart, batchEnd - batchStart); // Tek bir toplu (gathering) yazma.
+                while (batchStart < batchEnd && !writeBatch[batchStart].hasRemaining()) {
+                    writeBatch[batchStart++] = null;
+                }
+                if (batchStart < batchEnd) {
+                    // Soket tamponu dolu; kalan veriyi kanal yazılabilir olduğunda gönder.
+                    selectionKey.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                    return;
+                }
+            }
+            selectionKey.interestOps(SelectionKey.OP_READ);
+        } catch (IOException e) {
+            Log.info(Log.Category.CONNECTION, "Oyuncu {} bağlantısı kesildi (yazma hatası): {}", playerId, e.getMessage());
+            disconnect();
+        }
+    }
+}
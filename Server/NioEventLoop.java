@@ -0,0 +1,145 @@
+package Server;
+
+import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * NioEventLoop, kendi Selector'ı üzerinde çok sayıda bloklamayan soket kanalını
+ * tek bir thread ile yöneten olay döngüsüdür. Her bağlantı ömrü boyunca tek bir
+ * olay döngüsüne bağlıdır; okuma ve yazma işlemleri her zaman bu döngünün
+ * thread'inde yapılır.
+ */
+public class NioEventLoop implements Runnable {
+
+    private final Selector selector; // Bu döngüye ait kanalların hazır olma durumunu izleyen seçici.
+    private final Queue<NioConnection> pendingRegistrations = new ConcurrentLinkedQueue<>(); // Kayıt bekleyen yeni bağlantılar.
+    private final Queue<NioConnection> pendingFlushes = new ConcurrentLinkedQueue<>(); // Başka thread'lerden yazma isteği gelen bağlantılar.
+    private final NioServer server; // Bağlantı kopmalarını bildireceğimiz sunucu.
+    private volatile Thread thread; // Döngüyü çalıştıran thread.
+    private volatile boolean running = true; // Döngünün çalışmaya devam edip etmeyeceğini belirten bayrak.
+
+    /**
+     * NioEventLoop sınıfının yapıcı metodudur.
+     * @param server Bu döngünün bağlı olduğu NioServer.
+     * @throws IOException Selector açılamazsa.
+     */
+    public NioEventLoop(NioServer server) throws IOException {
+        this.server = server;
+        this.selector = Selector.open();
+    }
+
+    /**
+     * Yeni kabul edilmiş bir kanal için bu döngüye ait bir bağlantı nesnesi oluşturur. Bağlantı,
+     * register çağrılana kadar okunmaz.
+     * @param channel Bloklamayan moda alınmış istemci kanalı.
+     * @return Kanal için oluşturulan bağlantı nesnesi.
+     */
+    public NioConnection newConnection(SocketChannel channel) {
+        return new NioConnection(channel, this, server);
+    }
+
+    /**
+     * Bir bağlantıyı bu döngüye kaydettirir. Herhangi bir thread'den çağrılabilir; asıl kayıt
+     * işlemi döngünün kendi thread'inde yapılır.
+     * @param connection newConnection ile oluşturulmuş bağlantı.
+     */
+    public void register(NioConnection connection) {
+        pendingRegistrations.add(connection);
+        selector.wakeup(); // select() içinde bekleyen döngüyü uyandır.
+    }
+
+    /**
+     * Bir bağlantının giden kuyruğunun boşaltılmasını ister. Döngü thread'inden çağrılırsa
+     * yazma hemen denenir, aksi takdirde bağlantı sıraya alınır ve döngü uyandırılır.
+     * @param connection Yazılacak verisi olan bağlantı.
+     */
+    void requestFlush(NioConnection connection) {
+        if (Thread.currentThread() == thread) {
+            connection.flush();
+        } else {
+            pendingFlushes.add(connection);
+            selector.wakeup();
+        }
+    }
+
+    /**
+     * Olay döngüsünü durdurur ve seçiciyi uyandırır.
+     */
+    public void shutdown() {
+        running = false;
+        selector.wakeup();
+    }
+
+    /**
+     * Olay döngüsünün ana çalışma metodudur. Hazır olan kanallar için okuma/yazma olaylarını işler.
+     */
+    @Override
+    public void run() {
+        thread = Thread.currentThread();
+        while (running) {
+            try {
+                selector.select(); // En az bir kanal hazır olana veya wakeup() çağrılana kadar bekle.
+                processRegistrations();
+                processFlushes();
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    NioConnection connection = (NioConnection) key.attachment();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isReadable()) {
+                        connection.onReadable();
+                    }
+                    if (key.isValid() && key.isWritable()) {
+                        connection.flush();
+                    }
+                }
+            } catch (IOException e) {
+                Log.error(Log.Category.SERVER, "Olay döngüsü hatası: {}", e.getMessage(), e);
+            }
+        }
+        try {
+            selector.close();
+        } catch (IOException e) {
+            Log.error(Log.Category.SERVER, "Seçici kapatılamadı: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Bekleyen yeni bağlantıları seçiciye kaydeder.
+     */
+    private void processRegistrations() {
+        NioConnection connection;
+        while ((connection = pendingRegistrations.poll()) != null) {
+            try {
+                SelectionKey key = connection.getChannel().register(selector, SelectionKey.OP_READ, connection);
+                connection.setSelectionKey(key);
+                connection.flush(); // Kayıttan önce kuyruğa alınmış mesajlar varsa gönder.
+            } catch (ClosedChannelException e) {
+                Log.warn(Log.Category.CONNECTION, "Kapalı kanal kaydedilemedi: {}", e.getMessage());
+                // Bağlantı ilk satır beklemesinde ve boşta taramasında kalmasın; yoksa zamanlayıcı onu lobiye alır.
+                connection.closeConnection();
+                server.connectionClosed(connection);
+            }
+        }
+    }
+
+    /**
+     * Diğer thread'lerden gelen yazma isteklerini işler.
+     */
+    private void processFlushes() {
+        NioConnection connection;
+        while ((connection = pendingFlushes.poll()) != null) {
+            connection.flush();
+        }
+    }
+}
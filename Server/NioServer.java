@@ -0,0 +1,104 @@
+package Server;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+
+/**
+ * NioServer, java.nio Selector tabanlı bloklamayan sunucu modudur. Her oyuncu
+ * için ayrı bir thread açmak yerine bağlantılar küçük bir olay döngüsü havuzuna
+ * (NioEventLoop) dağıtılır. Böylece tek bir makinede binlerce masa aynı anda
+ * az sayıda thread ile çalıştırılabilir.
+ */
+public class NioServer {
+
+    private final int port; // Sunucunun dinleyeceği port numarası.
+    private final RoomRegistry registry; // Oyuncuların yerleştirileceği oda kaydı.
+    private final NioEventLoop[] loops; // Bağlantıları yöneten olay döngüleri.
+    private ServerSocketChannel serverChannel; // Yeni bağlantıları kabul eden kanal.
+    private int nextLoop = 0; // Yeni bağlantının atanacağı olay döngüsü (round-robin).
+
+    /**
+     * NioServer sınıfının yapıcı metodudur.
+     * @param port Dinlenecek port.
+     * @param registry Oyuncuların yerleştirileceği oda kaydı.
+     * @param loopCount Olay döngüsü thread sayısı.
+     * @throws IOException Selector açılamazsa.
+     */
+    public NioServer(int port, RoomRegistry registry, int loopCount) throws IOException {
+        this.port = port;
+        this.registry = registry;
+        this.loops = new NioEventLoop[loopCount];
+        for (int i = 0; i < loopCount; i++) {
+            loops[i] = new NioEventLoop(this);
+        }
+    }
+
+    /**
+     * Olay döngülerini başlatır ve çağıran thread üzerinde bağlantı kabul döngüsünü çalıştırır.
+     * @throws IOException Port dinlemeye açılamazsa.
+     */
+    public void start() throws IOException {
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(port));
+        Log.info(Log.Category.SERVER, "NIO sunucusu port {} üzerinde {} olay döngüsü ile dinleniyor.", port, loops.length);
+
+        for (int i = 0; i < loops.length; i++) {
+            Thread t = new Thread(loops[i], "nio-loop-" + i);
+            t.setDaemon(true);
+            t.start();
+        }
+
+        // Kabul işlemi tek bir thread'de bloklayarak yapılır; kabul edilen kanallar bloklamayan moda alınıp döngülere dağıtılır.
+        while (serverChannel.isOpen()) {
+            try {
+                SocketChannel channel = serverChannel.accept();
+                channel.configureBlocking(false);
+                channel.socket().setTcpNoDelay(true);
+                Log.info(Log.Category.CONNECTION, "Yeni oyuncu bağlandı: {}", channel.getRemoteAddress());
+
+                NioEventLoop loop = loops[nextLoop];
+                nextLoop = (nextLoop + 1) % loops.length;
+                NioConnection connection = loop.newConnection(channel);
+                connection.sendMessage("INFO:Sunucuya bağlandınız. Diğer oyuncular bekleniyor.");
+                registry.track(connection); // Cevap vermeyen bağlantılar boşta bağlantı taramasında kapatılır.
+                registry.awaitFirstLine(connection); // Lobiye ilk satırı (RESUME/WATCH değilse) okunduğunda eklenir.
+                loop.register(connection);
+            } catch (IOException e) {
+                Log.warn(Log.Category.CONNECTION, "Bağlantı kabul etme hatası: {}", e.getMessage());
+                if (!serverChannel.isOpen()) {
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Sunucuyu kapatır ve tüm olay döngülerini durdurur.
+     */
+    public void shutdown() {
+        try {
+            serverChannel.close();
+        } catch (IOException e) {
+            Log.error(Log.Category.SERVER, "Sunucu kanalı kapatılamadı: {}", e.getMessage(), e);
+        }
+        for (NioEventLoop loop : loops) {
+            loop.shutdown();
+        }
+    }
+
+    RoomRegistry getRegistry() {
+        return registry;
+    }
+
+    /**
+     * Bir bağlantı kapandığında olay döngüsü tarafından çağrılır. Henüz bir odaya yerleşmemiş
+     * oyuncu lobiden çıkarılır ve bağlantı canlılık denetiminden çıkarılır.
+     * @param connection Kapanan bağlantı.
+     */
+    void connectionClosed(NioConnection connection) {
+        registry.leave(connection);
+        registry.untrack(connection);
+    }
+}
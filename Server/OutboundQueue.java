@@ -0,0 +1,189 @@
+package Server;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * OutboundQueue, tek bir bağlantının gönderilmeyi bekleyen mesajlarını tutan sınırlı
+ * kuyruktur. Oyun thread'leri mesajları yalnızca kuyruğa ekler; soketi bağlantının G/Ç
+ * katmanı (PlayerHandler'ın yazma görevi veya NioConnection'ın olay döngüsü) boşaltır.
+ * Böylece yavaş bir istemci, odadaki yayınları ve hamle işlemeyi bekletemez.
+ *
+ * Kuyruk dolduğunda önce birleştirme denenir: yerini daha yenisi almış zar, sıra ve PING
+ * mesajları (istemci bunlardan yalnızca sonuncusunu kullanır) kuyruktan atılır. Yine de yer
+ * açılmazsa offer false döner ve bağlantının taşma politikası uygulanır (oyuncular için
+ * bağlantıyı kesmek: koltuk tutulur ve oyuncu yeniden bağlandığında güncel durumu alır).
+ *
+ * Kuyruk, kapasite boyutunda sabit bir halka dizidir; ekleme ve çıkarma kısa bir kilit
+ * altında yapılır.
+ */
+class OutboundQueue {
+
+    /** Varsayılan kapasite (mesaj sayısı). */
+    static final int DEFAULT_CAPACITY = 512;
+
+    // Mesaj türleri. OTHER dışındaki türlerde yalnızca en yeni mesaj anlamlıdır.
+    static final byte OTHER = 0; // Her zaman teslim edilmesi gereken mesaj (skor, bilgi, oyun sonu vb.).
+    static final byte DICE = 1; // Zar değerleri.
+    static final byte TURN = 2; // Sıra bilgisi.
+    static final byte PING = 3; // Canlılık sorusu.
+
+    private static final LongAdder coalesced = new LongAdder(); // Birleştirme ile atılan toplam mesaj sayısı.
+    private static final LongAdder overflows = new LongAdder(); // Yer açılamadığı için reddedilen toplam mesaj sayısı.
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ByteBuffer[] items; // Halka dizi.
+    private final byte[] kinds; // items ile aynı indekslerde mesaj türleri.
+    private int head; // En eski mesajın indeksi.
+    private int size; // Kuyruktaki mesaj sayısı.
+    private int highWater; // Kuyruğun ulaştığı en büyük derinlik.
+
+    /**
+     * Belirtilen kapasitede bir kuyruk oluşturur.
+     * @param capacity En fazla mesaj sayısı.
+     */
+    OutboundQueue(int capacity) {
+        this.items = new ByteBuffer[capacity];
+        this.kinds = new byte[capacity];
+    }
+
+    /**
+     * Bir mesajı kuyruğun sonuna ekler. Kuyruk doluysa önce eskimiş mesajlar atılır.
+     * @param message Gönderilecek baytlar.
+     * @param kind Mesaj türü (OTHER, DICE, TURN veya PING).
+     * @return Mesaj eklendiyse true, kuyruk birleştirmeden sonra da doluysa false.
+     */
+    boolean offer(ByteBuffer message, byte kind) {
+        lock.lock();
+        try {
+            if (size == items.length && coalesce() == 0) {
+                overflows.increment();
+                return false;
+            }
+            int tail = (head + size) % items.length;
+            items[tail] = message;
+            kinds[tail] = kind;
+            size++;
+            if (size > highWater) {
+                highWater = size;
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Kuyruktaki mesajları sırayla verilen diziye taşır.
+     * @param batch Hedef dizi.
+     * @return Taşınan mesaj sayısı (kuyruk boşsa 0).
+     */
+    int drainTo(ByteBuffer[] batch) {
+        lock.lock();
+        try {
+            int count = Math.min(size, batch.length);
+            for (int i = 0; i < count; i++) {
+                batch[i] = items[head];
+                items[head] = null;
+                head = (head + 1) % items.length;
+            }
+            size -= count;
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Kuyruktaki tüm mesajları atar (bağlantı kapandığında).
+     */
+    void clear() {
+        lock.lock();
+        try {
+            while (size > 0) {
+                items[head] = null;
+                head = (head + 1) % items.length;
+                size--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Kuyruktaki mesaj sayısını döndürür.
+     * @return Kuyruk derinliği.
+     */
+    int size() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Kuyruğun şimdiye kadar ulaştığı en büyük derinliği döndürür.
+     * @return En büyük derinlik.
+     */
+    int getHighWater() {
+        lock.lock();
+        try {
+            return highWater;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Tüm kuyruklarda birleştirme ile atılan mesaj sayısını döndürür.
+     * @return Atılan mesaj sayısı.
+     */
+    static long getCoalescedCount() {
+        return coalesced.sum();
+    }
+
+    /**
+     * Tüm kuyruklarda yer açılamadığı için reddedilen mesaj sayısını döndürür.
+     * @return Reddedilen mesaj sayısı.
+     */
+    static long getOverflowCount() {
+        return overflows.sum();
+    }
+
+    /**
+     * Aynı türden daha yeni bir mesajı bulunan DICE, TURN ve PING mesajlarını atar ve kalan
+     * mesajları sıralarını bozmadan sıkıştırır. Kilit altında çağrılmalıdır.
+     * @return Atılan mesaj sayısı.
+     */
+    private int coalesce() {
+        boolean seenDice = false;
+        boolean seenTurn = false;
+        boolean seenPing = false;
+        int write = size; // Yenilerden eskilere doğru tutulan mesajlar dizinin sonundan başa yazılır.
+        for (int read = size - 1; read >= 0; read--) {
+            int index = (head + read) % items.length;
+            byte kind = kinds[index];
+            boolean superseded = (kind == DICE && seenDice) || (kind == TURN && seenTurn) || (kind == PING && seenPing);
+            seenDice |= kind == DICE;
+            seenTurn |= kind == TURN;
+            seenPing |= kind == PING;
+            if (superseded) {
+                continue;
+            }
+            write--;
+            int target = (head + write) % items.length;
+            items[target] = items[index];
+            kinds[target] = kind;
+        }
+        for (int i = 0; i < write; i++) {
+            items[(head + i) % items.length] = null;
+        }
+        head = (head + write) % items.length;
+        size -= write;
+        coalesced.add(write);
+        return write;
+    }
+}
@@ -0,0 +1,144 @@
+package Server;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * ParserBenchmark, CommandParser'ı GameManager.handlePlayerInput'taki String tabanlı
+ * ayrıştırmayla (trim, toUpperCase, split) karşılaştıran bir zamanlama aracıdır. İki yol
+ * da aynı ROLL ve MOVE satırlarını bağlantının giriş tamponundaki baytlardan çözer; metin
+ * yolu, bağlantı katmanının CommandParser'dan önce yaptığı gibi önce satırdan bir String
+ * oluşturur. Ağ, oda veya oyun mantığı çalıştırılmaz; yalnızca ayrıştırma ölçülür.
+ *
+ * Komut satırından çalıştırıldığında iki yolun aynı sonuçları verdiğini doğrular, her
+ * yolu ısıtır ve ölçer; komut başına süreyi (ns/op) ve ölçümü yapan thread'in komut
+ * başına ayırdığı baytı yazdırır:
+ * java -cp out Server.ParserBenchmark [komut sayısı]
+ */
+public final class ParserBenchmark {
+
+    private static final int DEFAULT_OPERATIONS = 5_000_000; // Varsayılan ölçülen komut sayısı.
+    private static final int WARMUP_ROUNDS = 3; // Ölçümden önce her yolun kaç kez çalıştırılacağı (JIT için).
+    // Ölçümde sırayla çözülen satırlar: istemcilerin en sık gönderdiği biçimler.
+    private static final String[] COMMANDS = {
+        "ROLL",
+        "ROLL:0,2,4",
+        "MOVE:chance:1 2 3 4 5:12:0",
+        "move: full house :2 2 3 3 3:9:1"
+    };
+
+    /**
+     * Bir satırı çözen ve sonucu tek bir sayıya indiren ayrıştırma yolu. Sonucun kullanılması,
+     * JIT'in ayrıştırmayı ölü kod olarak atmasını önler.
+     */
+    private interface ParsePath {
+        int parse(byte[] line, int length);
+    }
+
+    private ParserBenchmark() {
+    }
+
+    /**
+     * Eski metin yolu: handlePlayerInput'taki ROLL/MOVE ayrıştırma adımlarının aynısı.
+     * @param line Satırın baytları.
+     * @param length Satır sonu olmadan satırın uzunluğu.
+     * @return ROLL için tutulan zar maskesi, MOVE için kategori/satır/sütun özeti, çözülemezse -1.
+     */
+    static int parseWithSplit(byte[] line, int length) {
+        String input = new String(line, 0, length, StandardCharsets.UTF_8).trim();
+        if (input.toUpperCase().startsWith("ROLL")) {
+            String[] parts = input.split(":");
+            int heldMask = 0;
+            if (parts.length > 1) {
+                for (String indexStr : parts[1].split(",")) {
+                    int index = Integer.parseInt(indexStr.trim());
+                    if (index >= 0 && index < 5) {
+                        heldMask |= 1 << index;
+                    }
+                }
+            }
+            return heldMask;
+        } else if (input.toLowerCase().startsWith("move:")) {
+            String[] parts = input.substring(5).split(":");
+            if (parts.length == 4) {
+                Category category = Category.fromName(parts[0].trim());
+                if (category != null) {
+                    return summarize(category, Integer.parseInt(parts[2]), Integer.parseInt(parts[3]));
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Yeni yol: bağlantı başına yeniden kullanılan CommandParser.
+     * @param parser Ayrıştırıcı.
+     * @param line Satırın baytları.
+     * @param length Satır sonu olmadan satırın uzunluğu.
+     * @return parseWithSplit ile aynı biçimde sonuç.
+     */
+    static int parseWithParser(CommandParser parser, byte[] line, int length) {
+        if (!parser.parse(line, 0, length)) {
+            return -1;
+        }
+        return parser.getType() == CommandParser.ROLL ? parser.getHeldMask()
+                : summarize(parser.getCategory(), parser.getRow(), parser.getColumn());
+    }
+
+    private static int summarize(Category category, int row, int column) {
+        return (category.ordinal() + 1) * 1_000_000 + row * 1_000 + column;
+    }
+
+    /**
+     * Bir yolu operations komut boyunca çalıştırır.
+     * @return Sonuçların toplamı (ölü kod elemesini önlemek için).
+     */
+    private static long run(ParsePath path, byte[][] lines, int operations) {
+        long checksum = 0;
+        for (int i = 0; i < operations; i++) {
+            byte[] line = lines[i % lines.length];
+            checksum += path.parse(line, line.length);
+        }
+        return checksum;
+    }
+
+    /**
+     * Bir yolu ısıtır, ölçer ve sonucu yazdırır.
+     */
+    private static void measure(String name, ParsePath path, byte[][] lines, int operations) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            run(path, lines, operations);
+        }
+        long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        long checksum = run(path, lines, operations);
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+        System.out.printf("%-14s %8.1f ns/op %8.1f bayt/op (sağlama %d)%n",
+                name, elapsed / (double) operations, allocated / (double) operations, checksum);
+    }
+
+    /**
+     * İki ayrıştırma yolunu karşılaştırır.
+     * @param args İsteğe bağlı olarak ölçülecek komut sayısı.
+     */
+    public static void main(String[] args) {
+        int operations = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_OPERATIONS;
+        byte[][] lines = new byte[COMMANDS.length][];
+        for (int i = 0; i < COMMANDS.length; i++) {
+            lines[i] = COMMANDS[i].getBytes(StandardCharsets.UTF_8);
+        }
+        CommandParser parser = new CommandParser();
+        for (byte[] line : lines) {
+            int expected = parseWithSplit(line, line.length);
+            if (parseWithParser(parser, line, line.length) != expected) {
+                System.out.println("Yollar farklı sonuç verdi: " + new String(line, StandardCharsets.UTF_8));
+                return;
+            }
+        }
+        System.out.printf("%d komut, %d farklı satır%n", operations, lines.length);
+        measure("split", ParserBenchmark::parseWithSplit, lines, operations);
+        measure("CommandParser", (line, length) -> parseWithParser(parser, line, length), lines, operations);
+    }
+}
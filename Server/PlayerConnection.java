@@ -0,0 +1,191 @@
+package Server;
+
+/**
+ * PlayerConnection arayüzü, GameManager'ın bir oyuncuyla konuşmak için ihtiyaç
+ * duyduğu işlemleri tanımlar. Böylece oyun mantığı, bağlantının thread başına
+ * bloklayan bir soketle mi (PlayerHandler) yoksa bloklamayan bir kanalla mı
+ * (NioConnection) yönetildiğini bilmek zorunda kalmaz.
+ */
+public interface PlayerConnection {
+
+    /**
+     * Oyuncunun oda içindeki ID'sini döndürür.
+     * @return Oyuncunun ID'si (0'dan başlar).
+     */
+    int getPlayerId();
+
+    /**
+     * Oyuncunun oda içindeki ID'sini ayarlar. Oyuncu bir masaya yerleştirildiğinde çağrılır.
+     * @param playerId Yeni oyuncu ID'si.
+     */
+    void setPlayerId(int playerId);
+
+    /**
+     * Oyuncunun eşleştirmede kullanılan beceri puanını döndürür.
+     * @return İstemcinin "RATING:n" ile bildirdiği puan, bildirmediyse Matchmaker.DEFAULT_RATING.
+     */
+    default int getRating() {
+        return Matchmaker.DEFAULT_RATING;
+    }
+
+    /**
+     * Oyuncunun beceri puanını saklar. Puanı saklamayan bağlantılar (ör. DetachedPlayer) için bir şey yapmaz.
+     * @param rating Yeni puan.
+     */
+    default void setRating(int rating) {
+    }
+
+    /**
+     * Bağlantının komutlarını ileteceği GameManager referansını ayarlar.
+     * @param gameManager Oyuncunun bağlı olduğu oyunun yöneticisi.
+     */
+    void setGameManager(GameManager gameManager);
+
+    /**
+     * Bağlantının komutlarını ilettiği GameManager'ı döndürür.
+     * @return Oyuncunun odası; bir masaya yerleşmediyse null.
+     */
+    default GameManager getGameManager() {
+        return null;
+    }
+
+    /**
+     * İstemcinin ikili protokol isteğini (PROTO:BIN) onaylar ve bağlantıyı BinaryProtocol
+     * çerçevelerine geçirir. Varsayılan uygulama ikili protokolü desteklemez.
+     * @return Bağlantı ikili protokole geçtiyse true; desteklemiyorsa veya zaten geçtiyse false.
+     */
+    default boolean switchToBinary() {
+        return false;
+    }
+
+    /**
+     * İstemciye satır sonu ile bitirilmiş bir metin mesajı gönderir.
+     * @param message Gönderilecek mesaj.
+     */
+    void sendMessage(String message);
+
+    /**
+     * Odadaki tüm oyunculara yayınlanan, bir kez kodlanmış bir mesajı gönderir. Giden kuyruğu olan
+     * bağlantılar paylaşılan baytları kuyruğa ekler; varsayılan uygulama mesajın metin halini gönderir.
+     * @param message Yayınlanan mesaj.
+     */
+    default void sendShared(SharedMessage message) {
+        sendMessage(message.getLine());
+    }
+
+    /**
+     * İstemciye güncel zar değerlerini gönderir. Varsayılan uygulama metin protokolünü kullanır;
+     * ikili protokolü destekleyen bağlantılar bunu paketlenmiş bir çerçeveyle geçersiz kılar.
+     * @param dice Beş zar değeri.
+     */
+    default void sendDice(int[] dice) {
+        sendMessage(SharedMessage.diceLine(dice));
+    }
+
+    /**
+     * İstemciye bir skor tablosu güncellemesi gönderir.
+     * @param row Skor tablosundaki satır.
+     * @param column Skor tablosundaki sütun (oyuncu).
+     * @param score Kaydedilen puan.
+     */
+    default void sendScore(int row, int column, int score) {
+        sendMessage("SCORE:" + row + "," + column + "," + score);
+    }
+
+    /**
+     * İstemciye sıranın hangi oyuncuda olduğunu gönderir.
+     * @param playerIndex Sıradaki oyuncunun indeksi.
+     */
+    default void sendTurn(int playerIndex) {
+        sendMessage("TURN:" + playerIndex);
+    }
+
+    /**
+     * İstemciye kendi oyuncu indeksini gönderir.
+     * @param playerIndex Oyuncunun indeksi.
+     */
+    default void sendIndex(int playerIndex) {
+        sendMessage("INDEX:" + playerIndex);
+    }
+
+    /**
+     * Yeniden bağlanan oyuncuya oyunun güncel durumunu (skor tablosu, sıradaki oyuncunun zarları
+     * ve sıra) gönderir. Varsayılan uygulama bunu metin protokolünün mevcut SCORE, DICE ve TURN
+     * mesajlarıyla yapar; ikili protokolü destekleyen bağlantılar tek bir STATE çerçevesi gönderir.
+     * @param state Oyunun güncel durumu.
+     * @param playerCount Oyuncu sayısı.
+     */
+    default void sendState(GameState state, int playerCount) {
+        for (int p = 0; p < playerCount; p++) {
+            for (Category category : Category.values()) {
+                if (state.isCategoryUsed(p, category)) {
+                    sendScore(category.ordinal() + 1, p, state.getScore(p, category)); // İstemcide satır = kategori ID'si + 1.
+                }
+            }
+        }
+        int[] dice = state.getCurrentPlayerDice();
+        if (ScoreTable.isValidRoll(dice)) {
+            sendDice(dice);
+        }
+        sendTurn(state.getCurrentPlayerIndex());
+    }
+
+    /**
+     * Bir mesaj dizisinin (ör. tek bir hamlenin onay, skor ve sıra mesajları) başladığını bildirir.
+     * endBatch çağrılana kadar kuyruğa eklenen mesajlar sokete yazılmaz; endBatch hepsini tek
+     * seferde gönderir. Çağrılar iç içe olabilir. Varsayılan uygulama hiçbir şey yapmaz.
+     */
+    default void beginBatch() {
+    }
+
+    /**
+     * beginBatch ile başlatılan mesaj dizisini bitirir ve biriken mesajların gönderilmesini başlatır.
+     */
+    default void endBatch() {
+    }
+
+    /**
+     * Bağlantıyı güvenli bir şekilde kapatır.
+     */
+    void closeConnection();
+
+    /**
+     * Bağlantıdan en son veri okunduğu anı döndürür. IdleMonitor, bu ana göre bağlantıya PING
+     * gönderir veya bağlantıyı kapatır. Varsayılan uygulama bağlantıyı hiçbir zaman boşta saymaz.
+     * @return System.nanoTime cinsinden son okuma anı.
+     */
+    default long getLastActivity() {
+        return System.nanoTime();
+    }
+
+    /**
+     * İstemciye canlılık sorusu (PING) gönderir. İstemci PONG ile cevap verir.
+     */
+    default void sendPing() {
+        sendMessage("PING");
+    }
+
+    /**
+     * Bağlantının giden kuyruğunda gönderilmeyi bekleyen mesaj sayısını döndürür.
+     * @return Kuyruk derinliği (kuyruğu olmayan bağlantılar için 0).
+     */
+    default int getQueueDepth() {
+        return 0;
+    }
+
+    /**
+     * Bağlantının giden kuyruğunun bağlantı açıldığından beri ulaştığı en büyük derinliği döndürür.
+     * @return En büyük derinlik (kuyruğu olmayan bağlantılar için 0).
+     */
+    default int getQueueHighWater() {
+        return 0;
+    }
+
+    /**
+     * Uzun süredir veri gelmeyen (ör. yarı açık kalmış) bağlantıyı sonlandırır. Bağlantı,
+     * istemci kendisi kapatmış gibi sonlanır; oyuncunun koltuğu yeniden bağlanması için tutulur.
+     */
+    default void reap() {
+        closeConnection();
+    }
+}
@@ -2,18 +2,37 @@ package Server;
 
 import java.io.*;
 import java.net.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * PlayerHandler sınıfı, sunucu tarafında her bağlı oyuncu için ayrı bir thread olarak çalışır.
  * Oyuncu ile sunucu arasındaki iletişimi yönetir: istemciden mesajları okur ve istemciye mesaj gönderir.
+ * Gönderilen mesajlar ConnectionOutput ile sınırlı bir OutboundQueue'ya eklenir ve sokete, kuyruk boş değilken
+ * yazma executor'ında çalışan tek bir yazma görevi tarafından toplu olarak yazılır; yani
+ * mesajı gönderen oyun thread'i yavaş bir istemcinin soketinde beklemez.
  */
-public class PlayerHandler implements Runnable {
+public class PlayerHandler implements Runnable, PlayerConnection {
 
     private Socket socket; // Oyuncunun bağlı olduğu soket.
-    private BufferedReader in; // İstemciden gelen mesajları okumak için giriş akışı okuyucusu.
-    private PrintWriter out; // İstemciye mesaj göndermek için çıkış akışı yazıcısı.
+    private DataInputStream in; // İstemciden gelen satırları ve ikili çerçeveleri okumak için giriş akışı.
+    private DataOutputStream out; // İstemciye satır veya çerçeve göndermek için çıkış akışı.
+    private final ConnectionOutput output = new ConnectionOutput(this, this::scheduleDrain); // Mesajları kodlayıp giden kuyruğa ekler.
+    private final AtomicBoolean writeScheduled = new AtomicBoolean(false); // Kuyruğu boşaltan yazma görevi çalışıyor mu.
+    private final ByteBuffer[] writeBatch = new ByteBuffer[64]; // Yazma görevinin bir seferde kuyruktan aldığı mesajlar.
+    private Executor writeExecutor; // Yazma görevini çalıştıran executor (null ise mesajı gönderen thread yazar).
+    private final CommandParser parser = new CommandParser(); // ROLL/MOVE satırlarını lineBuffer'dan doğrudan çözer.
+    private byte[] lineBuffer = new byte[256]; // Son okunan satırın baytları (tekrar kullanılır).
+    private int lineLength; // lineBuffer içindeki geçerli bayt sayısı.
     private int playerId; // Oyuncunun benzersiz kimliği (ID).
-    private GameManager gameManager; // Oyunun genel mantığını yöneten GameManager nesnesi referansı.
+    private volatile int rating = Matchmaker.DEFAULT_RATING; // Eşleştirmede kullanılan beceri puanı.
+    private volatile GameManager gameManager; // Oyunun genel mantığını yöneten GameManager nesnesi referansı (odaya yerleşene kadar null).
+    private RoomRegistry registry; // Oyuncunun odaya yerleşmeyi beklediği oda kaydı.
+    private volatile long lastActivity = System.nanoTime(); // İstemciden en son veri okunan an (boşta bağlantı taraması için).
+    private InputLimiter.Gate gate; // Okunan satır ve çerçevelerin hız ve uzunluk sınırı.
     private volatile boolean isThreadRunning = false; // Thread'in çalışıp çalışmadığını gösteren bayrak. Volatile olması, farklı thread'ler arasında doğru senkronizasyon sağlar.
 
     /**
@@ -26,17 +45,42 @@ public class PlayerHandler implements Runnable {
         this.socket = socket; // Soketi başlat.
         this.playerId = playerId; // Oyuncu ID'sini başlat.
         this.gameManager = gameManager; // GameManager referansını başlat.
+        this.gate = InputLimiter.unlimited().open(null); // Oda kaydı olmadan yalnızca uzunluk sınırı uygulanır.
 
         try {
             // Soket üzerinden giriş ve çıkış akışlarını oluştur.
-            in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
-            out = new PrintWriter(socket.getOutputStream(), true); // true, otomatik boşaltma (auto-flush) sağlar.
+            in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream())); // Her mesajdan sonra elle boşaltılır.
             // sendMessage("Hoş geldin, Oyuncu " + playerId); // Bu satır genellikle Server sınıfında ilk hoş geldin mesajı için kullanılır.
         } catch (IOException e) {
-            e.printStackTrace(); // Giriş/çıkış hatası oluşursa hatayı yazdır.
+            Log.error(Log.Category.CONNECTION, "Oyuncu {} bağlantı akışları açılamadı", playerId, e);
+            output.close(); // Yazılamayacak mesajlar kuyruğa eklenmez.
         }
     }
 
+    /**
+     * Oda kaydı üzerinden bir masaya yerleştirilecek oyuncu için PlayerHandler oluşturur.
+     * Oyuncu ID'si ve GameManager, oda oluşturulduğunda RoomRegistry tarafından atanır.
+     * @param socket İstemci ile sunucu arasındaki bağlantıyı temsil eden soket.
+     * @param registry Oyuncunun lobisine katılacağı oda kaydı.
+     */
+    public PlayerHandler(Socket socket, RoomRegistry registry) {
+        this(socket, -1, null);
+        this.registry = registry;
+        this.gate = registry.getInputLimiter().open(socket.getInetAddress());
+    }
+
+    /**
+     * Giden mesajlarını ayrı bir yazma görevinde gönderen bir PlayerHandler oluşturur.
+     * @param socket İstemci ile sunucu arasındaki bağlantıyı temsil eden soket.
+     * @param registry Oyuncunun lobisine katılacağı oda kaydı.
+     * @param writeExecutor Giden kuyruğu boşaltan yazma görevinin çalıştırılacağı executor.
+     */
+    public PlayerHandler(Socket socket, RoomRegistry registry, Executor writeExecutor) {
+        this(socket, registry);
+        this.writeExecutor = writeExecutor;
+    }
+
     /**
      * Bu thread'in çalışıp çalışmadığını kontrol eder.
      * @return Thread çalışıyorsa true, aksi takdirde false.
@@ -57,43 +101,273 @@ public class PlayerHandler implements Runnable {
      * Oyuncunun ID'sini döndürür.
      * @return Oyuncunun int türündeki ID'si.
      */
+    @Override
     public int getPlayerId() {
         return playerId;
     }
 
+    /**
+     * Oyuncunun ID'sini günceller.
+     * @param playerId Yeni oyuncu ID'si.
+     */
+    @Override
+    public void setPlayerId(int playerId) {
+        this.playerId = playerId;
+    }
+
+    /**
+     * Oyuncunun beceri puanını döndürür.
+     * @return Puan.
+     */
+    @Override
+    public int getRating() {
+        return rating;
+    }
+
+    /**
+     * Oyuncunun beceri puanını günceller.
+     * @param rating Yeni puan.
+     */
+    @Override
+    public void setRating(int rating) {
+        this.rating = rating;
+    }
+
     /**
      * GameManager referansını günceller. Özellikle yeni bir oyun başlatıldığında gerekebilir.
      * @param gameManager Yeni GameManager referansı.
      */
+    @Override
     public void setGameManager(GameManager gameManager) {
         this.gameManager = gameManager;
     }
 
+    @Override
+    public GameManager getGameManager() {
+        return gameManager;
+    }
+
+    @Override
+    public boolean switchToBinary() {
+        return output.switchToBinary();
+    }
+
     /**
      * İstemciye bir mesaj gönderir.
      * @param message İstemciye gönderilecek String mesaj.
      */
+    @Override
     public void sendMessage(String message) {
-        // out nesnesinin null olup olmadığını ve soketin kapalı olup olmadığını kontrol ederek güvenli mesaj gönderimi sağlar.
-        if (out != null && !socket.isClosed()) {
-            out.println(message); // Mesajı istemciye yaz.
+        output.sendMessage(message);
+    }
+
+    /**
+     * Bir kez kodlanmış yayın mesajını, baytlarını kopyalamadan giden kuyruğa ekler.
+     * @param message Odadaki tüm alıcılarla paylaşılan mesaj.
+     */
+    @Override
+    public void sendShared(SharedMessage message) {
+        output.sendShared(message);
+    }
+
+    @Override
+    public void sendDice(int[] dice) {
+        output.sendDice(dice);
+    }
+
+    @Override
+    public void sendScore(int row, int column, int score) {
+        output.sendScore(row, column, score);
+    }
+
+    @Override
+    public void sendTurn(int playerIndex) {
+        output.sendTurn(playerIndex);
+    }
+
+    @Override
+    public void sendIndex(int playerIndex) {
+        output.sendIndex(playerIndex);
+    }
+
+    @Override
+    public void sendState(GameState state, int playerCount) {
+        output.sendState(state, playerCount);
+    }
+
+    @Override
+    public void beginBatch() {
+        output.beginBatch();
+    }
+
+    @Override
+    public void endBatch() {
+        output.endBatch();
+    }
+
+    /**
+     * Kuyruğu boşaltan yazma görevi çalışmıyorsa başlatır.
+     */
+    private void scheduleDrain() {
+        if (writeScheduled.compareAndSet(false, true)) {
+            if (writeExecutor != null) {
+                writeExecutor.execute(this::drain);
+            } else {
+                drain();
+            }
+        }
+    }
+
+    /**
+     * Giden kuyruktaki mesajları toplu olarak sokete yazar ve her toplu yazmadan sonra bir kez
+     * boşaltır. Aynı anda yalnızca bir yazma görevi çalışır (writeScheduled). Yazma hatasında
+     * bağlantı kapatılır ve görev bir daha başlatılmaz.
+     */
+    private void drain() {
+        while (true) {
+            int count;
+            while ((count = output.drainTo(writeBatch)) > 0) {
+                try {
+                    for (int i = 0; i < count; i++) {
+                        ByteBuffer message = writeBatch[i];
+                        writeBatch[i] = null;
+                        out.write(message.array(), message.arrayOffset() + message.position(), message.remaining());
+                    }
+                    out.flush();
+                } catch (IOException e) {
+                    Log.warn(Log.Category.CONNECTION, "Oyuncu {} mesaj gönderilirken hata: {}", playerId, e.getMessage());
+                    Arrays.fill(writeBatch, null);
+                    closeConnection(); // Okuma thread'i bağlantının koptuğunu görür.
+                    return;
+                }
+            }
+            writeScheduled.set(false);
+            // Bayrak bırakılırken eklenen mesaj varsa onu ekleyen thread görevi başlatamamış olabilir.
+            if (output.size() == 0 || !writeScheduled.compareAndSet(false, true)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Giden kuyrukta gönderilmeyi bekleyen mesaj sayısını döndürür.
+     * @return Kuyruk derinliği.
+     */
+    @Override
+    public int getQueueDepth() {
+        return output.size();
+    }
+
+    /**
+     * Giden kuyruğun bağlantı açıldığından beri ulaştığı en büyük derinliği döndürür.
+     * @return En büyük derinlik.
+     */
+    @Override
+    public int getQueueHighWater() {
+        return output.getHighWater();
+    }
+
+    /**
+     * Giriş akışından tek bir satırı lineBuffer'a okur. Tampon her satırda yeniden kullanılır.
+     * @return Satır okunduysa true, akış sona erdiyse false.
+     * @throws IOException Okuma hatası oluşursa veya satır uzunluk sınırını aşarsa.
+     */
+    private boolean readLine() throws IOException {
+        lineLength = 0;
+        int b;
+        while ((b = in.read()) != -1 && b != '\n') {
+            if (gate.isOversized(lineLength + 1)) {
+                throw new IOException("Satır çok uzun"); // Tampon sınırsız büyütülmez; bağlantı kapatılır.
+            }
+            if (lineLength == lineBuffer.length) {
+                lineBuffer = Arrays.copyOf(lineBuffer, lineBuffer.length * 2);
+            }
+            lineBuffer[lineLength++] = (byte) b;
+        }
+        if (lineLength > 0 && lineBuffer[lineLength - 1] == '\r') {
+            lineLength--; // Windows satır sonlarını da kabul et.
+        }
+        lastActivity = System.nanoTime();
+        return b != -1 || lineLength > 0;
+    }
+
+    /**
+     * lineBuffer'daki satır bir canlılık satırıysa (PING veya PONG) onu işler. PING'e PONG ile
+     * cevap verilir; PONG yalnızca son okuma anını güncellemiş olur.
+     * @return Satır PING veya PONG ise true.
+     */
+    private boolean isHeartbeat() {
+        if (lineLength != 4 || lineBuffer[0] != 'P' || lineBuffer[2] != 'N' || lineBuffer[3] != 'G') {
+            return false;
+        }
+        if (lineBuffer[1] == 'I') {
+            output.sendPong();
+            return true;
+        }
+        return lineBuffer[1] == 'O';
+    }
+
+    /**
+     * Giriş akışından tek bir ikili çerçeve gövdesi okur.
+     * @return Konumu opcode baytında olan çerçeve gövdesi, akış sona erdiyse null.
+     * @throws IOException Okuma hatası oluşursa, çerçeve yarıda kesilirse veya uzunluk sınırını aşarsa.
+     */
+    private ByteBuffer readFrame() throws IOException {
+        int high = in.read();
+        if (high == -1) {
+            return null;
+        }
+        int length = (high << 8) | in.readUnsignedByte();
+        if (length == 0) {
+            throw new IOException("Geçersiz çerçeve uzunluğu: 0");
+        }
+        if (gate.isOversized(length)) {
+            throw new IOException("Çerçeve çok uzun: " + length); // Gövde için bellek ayrılmaz.
+        }
+        byte[] body = new byte[length];
+        in.readFully(body);
+        lastActivity = System.nanoTime();
+        return ByteBuffer.wrap(body);
+    }
+
+    @Override
+    public long getLastActivity() {
+        return lastActivity;
+    }
+
+    @Override
+    public void sendPing() {
+        output.sendPing();
+    }
+
+    /**
+     * Cevap vermeyen bağlantının okuma tarafını kapatır. Bloklanmış okuma akış sonu alır ve
+     * run() bağlantı kopmuş gibi sonlanır.
+     */
+    @Override
+    public void reap() {
+        try {
+            socket.shutdownInput();
+        } catch (IOException e) {
+            closeConnection(); // Soket zaten kapanmış olabilir; okuma yine de hatayla sonlanır.
         }
     }
 
     /**
      * Oyuncu bağlantısını güvenli bir şekilde kapatır.
      */
+    @Override
     public void closeConnection() {
         try {
             // Soket null değilse ve kapalı değilse kapat.
             if (socket != null && !socket.isClosed()) {
-                System.out.println("Oyuncu " + playerId + " bağlantısı kapatılıyor...");
+                Log.info(Log.Category.CONNECTION, "Oyuncu {} bağlantısı kapatılıyor...", playerId);
                 socket.close(); // Soketi kapat.
             }
+            output.close(); // Gönderilemeyecek mesajlar atılır.
         } catch (IOException e) {
             // Kapatma sırasında hata oluşursa hatayı yazdır.
-            System.err.println("Oyuncu " + playerId + " bağlantı kapatılırken hata: " + e.getMessage());
-            e.printStackTrace();
+            Log.error(Log.Category.CONNECTION, "Oyuncu {} bağlantı kapatılırken hata", playerId, e);
         }
     }
 
@@ -104,38 +378,96 @@ public class PlayerHandler implements Runnable {
     @Override
     public void run() {
         isThreadRunning = true; // Thread'in çalıştığını işaretle.
+        boolean quit = false; // Oyuncu döngüden QUIT komutuyla mı çıktı.
         try {
             String input;
+            GameManager parsedFor; // Ayrıştırılmış komutun iletileceği oda (okuma anındaki değer).
             // İstemciden satır satır mesaj oku. Okunacak başka bir şey kalmadığında (bağlantı kesildiğinde) döngüden çıkılır.
-            while ((input = in.readLine()) != null) {
-                System.out.println("Oyuncu " + playerId + ": " + input); // Gelen mesajı sunucu konsoluna yazdır.
-
-                // Gelen komutu kontrol et ve ilgili işlemi yap.
-                if (input.equalsIgnoreCase("RESTART")) { // "RESTART" komutu gelirse
-                    System.out.println("Oyuncu " + playerId + " yeni oyun istedi.");
-                    if (gameManager != null) {
-                        gameManager.requestNewGame(playerId); // GameManager'a yeni oyun isteğini bildir.
+            // İstemci ikili protokole geçtiğinde döngü satır yerine çerçeve okur.
+            while (true) {
+                if (output.isBinary()) {
+                    ByteBuffer frame = readFrame();
+                    if (frame == null) {
+                        break;
+                    }
+                    if (!gate.admit(this)) {
+                        continue; // Hız sınırı aşıldı; çerçeve çözülmeden atılır.
+                    }
+                    int opcode = frame.get(0);
+                    if (opcode == BinaryProtocol.OP_PING) {
+                        output.sendPong();
+                        continue;
+                    } else if (opcode == BinaryProtocol.OP_PONG) {
+                        continue; // Canlılık cevabı; son okuma anı güncellendi.
+                    }
+                    GameManager manager = gameManager;
+                    if (manager == null) { // Oyuncu henüz bir odaya yerleşmedi; yalnızca metin çerçeveleri anlamlıdır.
+                        input = frame.get() == BinaryProtocol.OP_TEXT ? BinaryProtocol.decodeText(frame) : "";
+                    } else if (!manager.handleBinaryCommand(this, frame)) {
+                        quit = true;
+                        break;
+                    } else {
+                        continue;
                     }
-                } else if (input.equalsIgnoreCase("QUIT")) { // "QUIT" komutu gelirse
-                    System.out.println("Oyuncu " + playerId + " oyundan ayrıldı.");
-                    if (gameManager != null) {
-                        gameManager.playerDisconnected(playerId); // GameManager'a oyuncunun bağlantısının kesildiğini bildir.
+                } else if (!readLine()) {
+                    break;
+                } else if (!gate.admit(this)) {
+                    continue; // Hız sınırı aşıldı; satır ayrıştırılmadan ve yazdırılmadan atılır.
+                } else if (isHeartbeat()) {
+                    continue;
+                } else if ((parsedFor = gameManager) != null && parser.parse(lineBuffer, 0, lineLength)) {
+                    parsedFor.handleParsedCommand(this, parser); // Sık gelen ROLL/MOVE: String oluşturulmaz.
+                    continue;
+                } else {
+                    input = new String(lineBuffer, 0, lineLength, StandardCharsets.UTF_8);
+                }
+                if (registry != null && registry.handleLobbyLine(this, input)) {
+                    continue; // İlk satır, RESUME/RATING/WATCH veya ikili protokol isteği.
+                }
+
+                GameManager manager = gameManager;
+                if (manager == null) { // Oyuncu henüz bir odaya yerleşmedi.
+                    if (input.equalsIgnoreCase("QUIT")) {
+                        quit = true;
+                        break;
+                    }
+                    if (registry != null) {
+                        registry.rejectUnseated(this);
+                    } else {
+                        sendMessage("INFO:Diğer oyuncular bekleniyor.");
                     }
+                    continue;
+                }
+                // Gelen komutu GameManager'a yönlendir. QUIT komutunda false döner ve döngüden çıkılır.
+                if (!manager.handleCommand(this, input)) {
+                    quit = true;
                     break; // Döngüden çık, bağlantı kapatılacak.
-                } else { // Diğer komutlar (ROLL, MOVE vb.) için
-                    gameManager.handlePlayerInput(this, input); // GameManager'a oyuncunun girişini işlemesi için gönder.
                 }
             }
+            // Akış QUIT gönderilmeden sona erdiyse bağlantı kopmuştur; oda koltuğu bir süre tutar.
+            GameManager manager = gameManager;
+            if (!quit && manager != null) {
+                Log.info(Log.Category.CONNECTION, "Oyuncu {} bağlantısı kesildi.", playerId);
+                manager.playerDropped(this);
+            }
         } catch (IOException e) {
             // Giriş/çıkış hatası oluşursa (genellikle bağlantı kesildiğinde)
-            System.out.println("Oyuncu " + playerId + " bağlantısı kesildi (okuma hatası): " + e.getMessage());
-            if (gameManager != null) {
-                gameManager.playerDisconnected(playerId); // GameManager'a oyuncunun bağlantısının kesildiğini bildir.
+            Log.info(Log.Category.CONNECTION, "Oyuncu {} bağlantısı kesildi (okuma hatası): {}", playerId, e.getMessage());
+            GameManager manager = gameManager;
+            if (manager != null) {
+                manager.playerDropped(this); // GameManager'a oyuncunun bağlantısının koptuğunu bildir.
             }
         }
         // run() metodunun sonunda (ister normal sonlansın ister hata ile) finally bloğu çalışır.
         finally {
             isThreadRunning = false; // Thread'in durduğunu işaretle.
+            gate.close();
+            if (registry != null) {
+                registry.untrack(this);
+            }
+            if (gameManager == null && registry != null) {
+                registry.leave(this); // Odaya yerleşmeden ayrılan oyuncuyu lobiden çıkar.
+            }
             closeConnection(); // Bağlantıyı güvenli bir şekilde kapat.
         }
     }
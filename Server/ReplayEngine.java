@@ -0,0 +1,134 @@
+package Server;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+
+/**
+ * ReplayEngine, bir GameLog'u ağ, bağlantı veya konsol çıktısı olmadan
+ * yeniden oynatarak oyunun GameState'ini baştan kurar. Zarlar kayıttaki
+ * tohumla aynı SplittableDiceSource'tan üretilir ve puanlar ScoreTable'dan
+ * okunur; bu yüzden bir oyunun yeniden oynatılması mikro saniyeler sürer ve
+ * arşivlenmiş binlerce oyun saniyede doğrulanabilir.
+ *
+ * Komut satırından çalıştırıldığında GameLog.writeTo ile art arda yazılmış
+ * kayıtları içeren dosyaları okur, her oyunu doğrular ve sonucu yazdırır.
+ */
+public final class ReplayEngine {
+
+    private ReplayEngine() {
+    }
+
+    /**
+     * Kaydı yeniden oynatır ve oyunun son durumunu döndürür.
+     * @param log Yeniden oynatılacak oyun kaydı.
+     * @return Tüm olaylar uygulandıktan sonraki oyun durumu.
+     * @throws IllegalStateException Kayıt canlı oyun kurallarıyla çelişiyorsa
+     * (sırası olmayan oyuncu, turdaki atış hakkını aşan zar, kullanılmış kategori veya bilinmeyen olay).
+     */
+    public static GameState replay(GameLog log) {
+        GameState state = new GameState(log.getPlayerCount(), new SplittableDiceSource(log.getSeed()), null);
+        state.setVerbose(false);
+        for (int i = 0; i < log.size(); i++) {
+            try {
+                apply(state, log.getType(i), log.getPlayer(i), log.getData(i));
+            } catch (IllegalStateException e) {
+                throw new IllegalStateException("Olay " + i + ": " + e.getMessage());
+            }
+        }
+        return state;
+    }
+
+    /**
+     * Tek bir ROLL veya MOVE olayını oyun durumuna uygular. GameSnapshot, günlüğün kuyruğunu
+     * anlık görüntüdeki durumlara bu metotla uygular.
+     * @param state Olayın uygulanacağı oyun durumu.
+     * @param type GameLog.ROLL veya GameLog.MOVE.
+     * @param player Olayı yapan oyuncu.
+     * @param data ROLL için tutulan zar maskesi, MOVE için kategori ID'si.
+     * @throws IllegalStateException Olay canlı oyun kurallarıyla çelişiyorsa.
+     */
+    public static void apply(GameState state, int type, int player, int data) {
+        if (player != state.getCurrentPlayerIndex()) {
+            throw new IllegalStateException("sıra oyuncu " + state.getCurrentPlayerIndex() + "'de, kayıtta oyuncu " + player);
+        }
+        switch (type) {
+            case GameLog.ROLL:
+                state.rollDice(data);
+                break;
+            case GameLog.MOVE:
+                Category category = Category.fromId(data);
+                if (category == null || state.isCategoryUsed(player, category)) {
+                    throw new IllegalStateException("geçersiz veya kullanılmış kategori " + data);
+                }
+                // GameManager.handleMove ile aynı sıra: puanı hesapla, kaydet, sırayı ilerlet. Turda zar
+                // atılmamış olması burada reddedilmez; bu kuraldan önce yazılmış kayıtlar da oynatılabilsin.
+                state.setScore(player, category, ScoreCalculator.calculate(category, state.getCurrentPlayerDice()));
+                state.nextTurn();
+                break;
+            default:
+                throw new IllegalStateException("bilinmeyen olay türü " + type);
+        }
+    }
+
+    /**
+     * Kaydı yeniden oynatır ve sonucun kayıttaki toplam puanlarla aynı olup olmadığını kontrol eder.
+     * @param log Bitmiş bir oyunun kaydı.
+     * @return Yeniden oynatılan oyun bittiyse ve tüm toplamlar eşleşiyorsa true.
+     */
+    public static boolean verify(GameLog log) {
+        int[] expected = log.getFinalTotals();
+        if (expected == null) {
+            return false; // Bitmemiş oyunun doğrulanacak sonucu yok.
+        }
+        GameState state;
+        try {
+            state = replay(log);
+        } catch (IllegalStateException e) {
+            return false;
+        }
+        if (!state.isGameOver()) {
+            return false;
+        }
+        for (int i = 0; i < expected.length; i++) {
+            if (state.getTotalScore(i) != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Arşiv dosyalarındaki tüm oyunları doğrular.
+     * @param args GameLog kayıtlarını içeren dosya yolları.
+     */
+    public static void main(String[] args) {
+        long games = 0;
+        long failed = 0;
+        long start = System.nanoTime();
+        for (String path : args) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(path)))) {
+                while (true) {
+                    GameLog log;
+                    try {
+                        log = GameLog.readFrom(in);
+                    } catch (EOFException e) {
+                        break; // Dosyanın sonu.
+                    }
+                    games++;
+                    if (!verify(log)) {
+                        failed++;
+                        System.out.println("Doğrulanamayan oyun: " + path + " #" + games + " (tohum " + log.getSeed() + ")");
+                    }
+                }
+            } catch (IOException e) {
+                System.err.println("Arşiv okunamadı: " + path + ": " + e.getMessage());
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d oyun yeniden oynatıldı, %d hatalı, %.3f sn (%.0f oyun/sn)%n",
+                games, failed, seconds, seconds > 0 ? games / seconds : 0.0);
+    }
+}
@@ -0,0 +1,137 @@
+package Server;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * RollBenchmark, bir zar atışının maliyetini aynı anda çok sayıda odanın zar attığı
+ * durumda ölçen bir zamanlama aracıdır. Odalar, oda işçilerinde olduğu gibi thread'lere
+ * paylaştırılır; her thread yalnızca kendi odalarının zarlarını atar. Üç yol karşılaştırılır:
+ * GameState.rollDice'ın eskiden yaptığı gibi her atışta yeni bir Random ve zar dizisinin
+ * kopyası, Dice.roll'un eskiden kullandığı paylaşılan Math.random üreticisi ve odaya özel
+ * SplittableDiceSource. Ağ ve oyun mantığı çalıştırılmaz.
+ *
+ * Komut satırından çalıştırıldığında her yolu ısıtır ve ölçer; thread başına atış süresini
+ * (ns/atış), toplam atış hızını ve atış başına ayrılan baytı yazdırır:
+ * java -cp out Server.RollBenchmark [oda sayısı] [thread sayısı] [oda başına atış]
+ */
+public final class RollBenchmark {
+
+    private static final int DEFAULT_ROOMS = 10_000; // Varsayılan oda sayısı.
+    private static final int DEFAULT_ROLLS_PER_ROOM = 200; // Varsayılan oda başına atış sayısı (bir oyundan biraz fazla).
+
+    /**
+     * Tek bir odanın zarlarını atan yol. Her thread yalnızca kendi odalarını çağırır.
+     */
+    private interface RollPath {
+        void roll(int room, int heldMask);
+    }
+
+    private RollBenchmark() {
+    }
+
+    /**
+     * Eski GameState.rollDice: her atışta yeni bir Random ve zar dizisinin kopyası.
+     * @param current Odanın mevcut zarları.
+     * @param heldMask Tutulan zarların bit maskesi.
+     * @return Yeni zar dizisi.
+     */
+    static int[] rollWithNewRandom(int[] current, int heldMask) {
+        Random r = new Random();
+        int[] dice = Arrays.copyOf(current, current.length);
+        for (int i = 0; i < dice.length; i++) {
+            if ((heldMask & (1 << i)) == 0) {
+                dice[i] = r.nextInt(6) + 1;
+            }
+        }
+        return dice;
+    }
+
+    /**
+     * Eski Dice.roll: tüm odaların paylaştığı Math.random üreticisi.
+     * @param dice Odanın zarları (yerinde değiştirilir).
+     * @param heldMask Tutulan zarların bit maskesi.
+     */
+    static void rollWithMathRandom(int[] dice, int heldMask) {
+        for (int i = 0; i < dice.length; i++) {
+            if ((heldMask & (1 << i)) == 0) {
+                dice[i] = (int) (Math.random() * 6) + 1;
+            }
+        }
+    }
+
+    /**
+     * Odaları thread'lere paylaştırıp her odada rollsPerRoom atış yapar ve sonucu yazdırır.
+     * @param print false ise yalnızca ısınma için çalıştırılır.
+     */
+    private static void measure(String name, RollPath path, int rooms, int threads, int rollsPerRoom, boolean print)
+            throws InterruptedException {
+        com.sun.management.ThreadMXBean mx = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        LongAdder allocated = new LongAdder();
+        CountDownLatch ready = new CountDownLatch(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            int first = t;
+            workers[t] = new Thread(() -> {
+                ready.countDown();
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                long before = mx.getCurrentThreadAllocatedBytes();
+                for (int n = 0; n < rollsPerRoom; n++) {
+                    for (int room = first; room < rooms; room += threads) {
+                        path.roll(room, (room + n) & 0x1F); // Tutulan zarlar odadan odaya ve atıştan atışa değişir.
+                    }
+                }
+                allocated.add(mx.getCurrentThreadAllocatedBytes() - before);
+            }, "roll-bench-" + t);
+            workers[t].start();
+        }
+        ready.await();
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        long elapsed = System.nanoTime() - begin;
+        if (print) {
+            long rolls = (long) rooms * rollsPerRoom;
+            System.out.printf("%-20s %8.1f ns/atış %12.0f atış/sn %8.1f bayt/atış%n", name,
+                    elapsed * (double) threads / rolls, rolls / (elapsed / 1e9), allocated.sum() / (double) rolls);
+        }
+    }
+
+    /**
+     * Üç zar yolunu karşılaştırır.
+     * @param args İsteğe bağlı olarak oda sayısı, thread sayısı ve oda başına atış sayısı.
+     * @throws InterruptedException Ölçüm sırasında ana thread kesilirse.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int rooms = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_ROOMS;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        int rollsPerRoom = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_ROLLS_PER_ROOM;
+
+        int[][] dice = new int[rooms][];
+        DiceSource[] sources = new DiceSource[rooms];
+        for (int room = 0; room < rooms; room++) {
+            dice[room] = new int[5];
+            sources[room] = new SplittableDiceSource(room);
+        }
+        RollPath newRandom = (room, mask) -> dice[room] = rollWithNewRandom(dice[room], mask);
+        RollPath mathRandom = (room, mask) -> rollWithMathRandom(dice[room], mask);
+        RollPath splittable = (room, mask) -> sources[room].roll(dice[room], mask);
+
+        System.out.printf("%d oda, %d thread, oda başına %d atış%n", rooms, threads, rollsPerRoom);
+        for (boolean print : new boolean[] {false, true}) { // İlk tur ısınma içindir.
+            measure("new Random", newRandom, rooms, threads, rollsPerRoom, print);
+            measure("Math.random", mathRandom, rooms, threads, rollsPerRoom, print);
+            measure("SplittableDiceSource", splittable, rooms, threads, rollsPerRoom, print);
+        }
+    }
+}
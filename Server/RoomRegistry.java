@@ -0,0 +1,740 @@
+package Server;
+
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * RoomRegistry, tek bir sunucu sürecinde aynı anda çalışan tüm oyun odalarını
+ * (her biri kendi GameManager ve GameState nesnesine sahip) tutar. Gelen
+ * bağlantılar lobiye (Matchmaker) alınır ve eşleştirme aşaması yeterli oyuncu
+ * topladığında otomatik olarak yeni bir odaya yerleştirilir.
+ *
+ * Oda arama, oluşturma ve kapatma işlemleri ConcurrentHashMap üzerinde yapılır;
+ * bu yapı okumalarda kilitsiz, yazmalarda ise yalnızca ilgili kova (bin)
+ * düzeyinde kilitlendiği için odalar tek bir monitör üzerinde sıralanmaz.
+ *
+ * Odaya yerleşen her oyuncuya rastgele bir oturum anahtarı ("SESSION:anahtar")
+ * verilir. Bağlantısı kopan oyuncunun koltuğu bekleme süresi boyunca tutulur;
+ * oyuncu bu sürede yeni bir bağlantıdan "RESUME:anahtar" gönderirse koltuğuna
+ * geri yerleştirilir ve oyunun güncel durumunu alır.
+ *
+ * Yeni bağlantılar kabul edildiklerinde lobiye eklenmez. İlk satırları (bkz. handleFirstLine)
+ * RESUME veya WATCH değilse lobiye eklenirler; hiç satır göndermeyenler kısa bir süre sonra
+ * eklenir. Böylece yeniden bağlanan veya izlemek için bağlanan bir istemci, isteği okunmadan
+ * yeni bir masaya yerleştirilemez.
+ *
+ * Lobideki bir bağlantı "WATCH:odaID" (veya herhangi bir oda için yalnızca "WATCH")
+ * göndererek bir odayı izleyici olarak izleyebilir. İzleyiciler eşleştirmeden çıkarılır,
+ * odanın DICE, SCORE ve TURN akışını SpectatorFanout üzerinden alır ve komut gönderemez.
+ *
+ * Lobideki (veya yeni) bir bağlantı "RATING:n" göndererek beceri puanını bildirebilir; puan
+ * bağlantıda saklanır ve puan tabanlı eşleştirmede bileti oluşturulurken kullanılır.
+ */
+public class RoomRegistry {
+
+    private final ConcurrentHashMap<Long, GameManager> rooms = new ConcurrentHashMap<>(); // Oda ID'si -> oda.
+    // Aynı odalar ID sırasıyla; bir oda belirtmeyen WATCH en eski odayı tüm odaları taramadan bulur.
+    private final ConcurrentSkipListMap<Long, GameManager> roomsById = new ConcurrentSkipListMap<>();
+    private final AtomicLong nextRoomId = new AtomicLong(1); // Yeni odalara verilecek benzersiz ID.
+    private final Matchmaker matchmaker; // Lobideki oyuncuları odalara yerleştiren eşleştirme aşaması.
+    private volatile boolean seeded = false; // Oda tohumları sabit bir ana tohumdan mı türetilsin.
+    private volatile long baseSeed; // seeded true ise odaların tohumlarının türetildiği ana tohum.
+    private volatile GameJournal journal; // Oyun durum geçişlerinin yazıldığı günlük (yoksa null).
+    private static final long DEFAULT_GRACE_MILLIS = 30_000; // Varsayılan yeniden bağlanma bekleme süresi.
+    private final ConcurrentHashMap<Long, Session> sessions = new ConcurrentHashMap<>(); // Oturum anahtarı -> koltuk.
+    private final SecureRandom tokenSource = new SecureRandom(); // Tahmin edilemeyen oturum anahtarları üretir.
+    private final ScheduledExecutorService seatTimer; // Tutulan koltukların bekleme sürelerini izler.
+    private volatile long graceMillis = DEFAULT_GRACE_MILLIS; // Kopan oyuncunun koltuğunun tutulacağı süre.
+    private static final long DEFAULT_TURN_MILLIS = 120_000; // Varsayılan tur süresi.
+    // Tüm odaların tur sürelerini ve yeni bağlantıların ilk satır bekleme süresini izleyen çark:
+    // 100 ms'lik 512 tik (bir tam tur yaklaşık 51 sn).
+    private final TimerWheel turnTimer = new TimerWheel("turn-timer", 100, TimeUnit.MILLISECONDS, 512);
+    private volatile long turnMillis = DEFAULT_TURN_MILLIS; // Sıradaki oyuncunun hamle süresi (0 ise sınırsız).
+    /** İstemcilerin bildirebileceği en yüksek beceri puanı. */
+    public static final int MAX_RATING = 10_000;
+    private static final long FIRST_LINE_MILLIS = 1_000; // Hiç satır göndermeyen bağlantının lobiye ekleneceği süre.
+    private final Set<PlayerConnection> greeting = ConcurrentHashMap.newKeySet(); // İlk satırı henüz gelmemiş bağlantılar.
+    private volatile IdleMonitor idleMonitor; // Sessiz kalan bağlantıları kapatan izleyici (kapalıysa null).
+    // Bağlantıların ve IP adreslerinin komut hızını ve satır uzunluğunu sınırlayan sınırlayıcı.
+    private volatile InputLimiter inputLimiter = new InputLimiter(InputLimiter.DEFAULT_CONNECTION_RATE,
+            InputLimiter.DEFAULT_ADDRESS_RATE, InputLimiter.DEFAULT_MAX_LINE_LENGTH);
+    // Odaların olaylarını izleyicilere dağıtan aşama; işlemci sayısının yarısı kadar thread.
+    private final SpectatorFanout fanout = new SpectatorFanout(Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+    private final ConcurrentHashMap<PlayerConnection, GameManager> watching = new ConcurrentHashMap<>(); // İzleyici -> izlediği oda.
+    // Odaların posta kutularını işleyen iş çalan havuz; varsayılan olarak her işlemci için bir işçi.
+    private volatile RoomScheduler scheduler = new RoomScheduler(Runtime.getRuntime().availableProcessors(), RoomScheduler.DEFAULT_BATCH_SIZE);
+
+    /**
+     * Bir oturum anahtarının ait olduğu koltuk.
+     */
+    private static final class Session {
+        final GameManager room; // Koltuğun odası.
+        final int playerId; // Koltuğun oyuncu ID'si.
+        volatile ScheduledFuture<?> expiry; // Koltuk tutuluyorsa bekleme süresinin sonu, değilse null.
+
+        Session(GameManager room, int playerId) {
+            this.room = room;
+            this.playerId = playerId;
+        }
+    }
+
+    /**
+     * Sabit oda boyutuyla bir RoomRegistry oluşturur.
+     * @param playersPerRoom Bir odadaki oyuncu sayısı.
+     */
+    public RoomRegistry(int playersPerRoom) {
+        this(playersPerRoom, playersPerRoom, false);
+    }
+
+    /**
+     * RoomRegistry sınıfının yapıcı metodudur.
+     * @param minPlayers Bir odadaki en az oyuncu sayısı.
+     * @param maxPlayers Bir odadaki en fazla oyuncu sayısı.
+     * @param ratingBased Oyuncuların beceri puanına göre eşleştirilip eşleştirilmeyeceği.
+     */
+    public RoomRegistry(int minPlayers, int maxPlayers, boolean ratingBased) {
+        this.matchmaker = new Matchmaker(this, minPlayers, maxPlayers, ratingBased);
+        this.seatTimer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "seat-timer");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Bağlantısı kopan bir oyuncunun koltuğunun ne kadar süre tutulacağını ayarlar.
+     * @param graceMillis Bekleme süresi (ms).
+     */
+    public void setGraceMillis(long graceMillis) {
+        this.graceMillis = graceMillis;
+    }
+
+    /**
+     * Sıradaki oyuncunun hamle yapması için tanınan süreyi ayarlar. Süre dolduğunda oyuncu
+     * yerine en yüksek puanı veren boş kategori seçilir. Yalnızca sonradan açılan odaları etkiler.
+     * @param turnMillis Tur süresi (ms); 0 verilirse tur süresi uygulanmaz.
+     */
+    public void setTurnMillis(long turnMillis) {
+        this.turnMillis = turnMillis;
+    }
+
+    /**
+     * Bağlantıların canlılık denetimini açar. Belirtilen süre boyunca veri göndermeyen
+     * bağlantılara PING gönderilir; zaman aşımı boyunca hiç cevap vermeyenler kapatılır.
+     * Bağlantılar kabul edilmeden önce çağrılmalıdır.
+     * @param pingMillis PING aralığı (ms).
+     * @param timeoutMillis Bağlantının kapatılacağı sessizlik süresi (ms).
+     */
+    public void setHeartbeat(long pingMillis, long timeoutMillis) {
+        this.idleMonitor = new IdleMonitor(pingMillis, timeoutMillis);
+    }
+
+    /**
+     * İstemci girdisinin sınırlarını ayarlar. Sınırı aşan komutlar okunduğu yerde yok sayılır;
+     * uzunluk sınırını aşan satır veya çerçeve gönderen bağlantı kapatılır. Bağlantılar kabul
+     * edilmeden önce çağrılmalıdır.
+     * @param connectionRate Bağlantı başına saniyedeki komut sınırı (0 ise sınırsız).
+     * @param addressRate IP adresi başına saniyedeki komut sınırı (0 ise sınırsız).
+     * @param maxLineLength En uzun satır veya çerçeve gövdesi (bayt).
+     */
+    public void setInputLimits(int connectionRate, int addressRate, int maxLineLength) {
+        this.inputLimiter = new InputLimiter(connectionRate, addressRate, maxLineLength);
+    }
+
+    /**
+     * Bağlantıların girdi sınırlayıcısını döndürür.
+     * @return Girdi sınırlayıcı.
+     */
+    InputLimiter getInputLimiter() {
+        return inputLimiter;
+    }
+
+    /**
+     * Hız sınırları yüzünden atılan toplam komut sayısını döndürür.
+     * @return Komut sayısı.
+     */
+    public long getShedCommands() {
+        return inputLimiter.getShedCount();
+    }
+
+    /**
+     * IP adresi sınırı yüzünden atılan komut sayısını döndürür (getShedCommands'a dahildir).
+     * @return Komut sayısı.
+     */
+    public long getShedByAddress() {
+        return inputLimiter.getShedByAddressCount();
+    }
+
+    /**
+     * Uzunluk sınırını aşan girdi yüzünden kapatılan bağlantı sayısını döndürür.
+     * @return Bağlantı sayısı.
+     */
+    public long getOversizedInputs() {
+        return inputLimiter.getOversizedCount();
+    }
+
+    /**
+     * Son boşta bağlantı taramasında en dolu giden kuyruğun derinliğini döndürür.
+     * @return Mesaj sayısı (canlılık denetimi kapalıysa 0).
+     */
+    public int getMaxQueueDepth() {
+        IdleMonitor monitor = idleMonitor;
+        return monitor != null ? monitor.getMaxQueueDepth() : 0;
+    }
+
+    /**
+     * Son boşta bağlantı taramasında açık bağlantıların giden kuyruklarının ulaştığı en büyük derinliği döndürür.
+     * @return Mesaj sayısı (canlılık denetimi kapalıysa 0).
+     */
+    public int getQueueHighWater() {
+        IdleMonitor monitor = idleMonitor;
+        return monitor != null ? monitor.getQueueHighWater() : 0;
+    }
+
+    /**
+     * Son boşta bağlantı taramasında tüm giden kuyruklarda bekleyen toplam mesaj sayısını döndürür.
+     * @return Mesaj sayısı (canlılık denetimi kapalıysa 0).
+     */
+    public long getQueuedMessages() {
+        IdleMonitor monitor = idleMonitor;
+        return monitor != null ? monitor.getQueuedMessages() : 0;
+    }
+
+    /**
+     * Yeni kabul edilmiş bir bağlantıyı canlılık denetimine alır (denetim kapalıysa bir şey yapmaz).
+     * @param connection Bağlantı.
+     */
+    public void track(PlayerConnection connection) {
+        IdleMonitor monitor = idleMonitor;
+        if (monitor != null) {
+            monitor.register(connection);
+        }
+    }
+
+    /**
+     * Kapanan bir bağlantıyı canlılık denetiminden çıkarır.
+     * @param connection Bağlantı.
+     */
+    public void untrack(PlayerConnection connection) {
+        IdleMonitor monitor = idleMonitor;
+        if (monitor != null) {
+            monitor.unregister(connection);
+        }
+    }
+
+    long getTurnMillis() {
+        return turnMillis;
+    }
+
+    /**
+     * Odaların olaylarını izleyicilere dağıtan aşamayı döndürür.
+     * @return Dağıtım aşaması.
+     */
+    SpectatorFanout getFanout() {
+        return fanout;
+    }
+
+    /**
+     * Odaların posta kutularını işleyen havuzu yeniden yapılandırır. Odalar zamanlayıcılarını
+     * oluşturuldukları anda aldığı için hiçbir oda açılmadan (setJournal'dan da önce) çağrılmalıdır.
+     * @param workers İşçi thread sayısı.
+     * @param batchSize Bir odanın bir etkinleştirmede işleyeceği en fazla komut sayısı.
+     */
+    public void setRoomScheduling(int workers, int batchSize) {
+        RoomScheduler previous = scheduler;
+        scheduler = new RoomScheduler(workers, batchSize);
+        previous.shutdown(0); // Henüz oda açılmadığı için eski havuzda iş yoktur.
+    }
+
+    /**
+     * Odaların posta kutularını işleyen havuzu döndürür.
+     * @return Oda zamanlayıcısı.
+     */
+    RoomScheduler getScheduler() {
+        return scheduler;
+    }
+
+    /**
+     * Son çağrıdan bu yana her oda işçisinin posta kutusu işlemekle geçirdiği sürenin oranını döndürür.
+     * @return İşçi başına 0 ile 1 arasında doluluk oranı.
+     */
+    public double[] getWorkerUtilization() {
+        return scheduler.getWorkerUtilization();
+    }
+
+    /**
+     * Oda etkinleştirmesi başına işlenen ortalama komut sayısını döndürür.
+     * @return Ortalama toplu işleme boyutu (henüz etkinleştirme yoksa 0).
+     */
+    public double getAverageRoomBatch() {
+        RoomScheduler current = scheduler;
+        long activations = current.getActivationCount();
+        return activations > 0 ? current.getMessageCount() / (double) activations : 0;
+    }
+
+    /**
+     * Odaların tur sürelerini kurduğu zamanlayıcı çarkını döndürür.
+     * @return Tur süresi çarkı.
+     */
+    TimerWheel getTurnTimer() {
+        return turnTimer;
+    }
+
+    /**
+     * Yeni bir oyuncuyu lobiye ekler. Oyuncu, eşleştirme aşamasının bir sonraki turunda bir odaya
+     * yerleştirilir; çağıran thread hiçbir zaman beklemez.
+     * @param player Odaya yerleştirilecek oyuncu bağlantısı.
+     */
+    public void join(PlayerConnection player) {
+        matchmaker.join(player, player.getRating());
+    }
+
+    /**
+     * Lobideki bir bağlantının "RATING:n" ile bildirdiği beceri puanını saklar ve bağlantıyı
+     * yeni puanla eşleştirme kuyruğuna yeniden ekler. Puan istemcinin kendi beyanıdır; yalnızca
+     * puan tabanlı eşleştirme (--rated) açıkken eşleştirmeyi etkiler.
+     * @param connection İsteği gönderen, henüz bir odaya yerleşmemiş bağlantı.
+     * @param argument "RATING:" sonrası: 0 ile MAX_RATING arasında bir tam sayı.
+     */
+    public void rate(PlayerConnection connection, String argument) {
+        rate(connection, argument, true);
+    }
+
+    /**
+     * Bir bağlantının beceri puanını saklar.
+     * @param connection İsteği gönderen bağlantı.
+     * @param argument "RATING:" sonrası.
+     * @param inLobby Bağlantı lobide mi (false ise henüz lobiye eklenmemiş yeni bir bağlantı; lobiye eklenir).
+     */
+    void rate(PlayerConnection connection, String argument, boolean inLobby) {
+        int rating;
+        try {
+            rating = Integer.parseInt(argument.trim());
+        } catch (NumberFormatException e) {
+            rating = -1;
+        }
+        if (rating < 0 || rating > MAX_RATING) {
+            connection.sendMessage("INFO:Geçersiz puan. Puan 0 ile " + MAX_RATING + " arasında olmalı.");
+        } else {
+            connection.setRating(rating);
+        }
+        if (!inLobby || matchmaker.leave(connection)) {
+            join(connection); // Bilet puanla birlikte oluşturulduğu için kuyruğa yeniden eklenir.
+        }
+    }
+
+    /**
+     * Yeni kabul edilmiş bir bağlantıyı ilk satırını beklemeye alır; bağlantı bu sırada lobide
+     * değildir. Hiç satır göndermeyen (eski metin istemcileri gibi) bağlantılar FIRST_LINE_MILLIS
+     * sonra lobiye eklenir. Süre tur çarkında izlenir.
+     * @param connection Yeni bağlantı.
+     */
+    public void awaitFirstLine(PlayerConnection connection) {
+        greeting.add(connection);
+        turnTimer.schedule(() -> {
+            if (greeting.remove(connection)) {
+                join(connection); // İlk satır gelmedi; bağlantı yeni bir oyun beklesin.
+            }
+        }, FIRST_LINE_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Yeni bir bağlantının ilk satırını işler. Satır RESUME ise bağlantı koltuğuna, WATCH ise
+     * izleyicilere yönlendirilir; bunlar başarısız olursa bağlantı lobiye eklenir. RATING ise
+     * bağlantı bildirdiği puanla lobiye eklenir. Diğer tüm
+     * satırlarda (ikili protokol isteği dahil) bağlantı lobiye eklenir ve satır normal işlenmelidir.
+     * Bağlantı ilk satırını beklemiyorsa (satır ilk satır değilse veya bağlantı süresi dolduğu için
+     * lobiye eklenmişse) hiçbir şey yapmaz.
+     * @param connection Satırı gönderen bağlantı.
+     * @param line Bağlantıdan gelen satır.
+     * @return Satır burada tüketildiyse (RESUME, WATCH veya RATING) true.
+     */
+    private boolean handleFirstLine(PlayerConnection connection, String line) {
+        if (!greeting.remove(connection)) {
+            return false; // Bağlantı zaten lobide.
+        }
+        if (line.regionMatches(true, 0, "RESUME:", 0, 7)) {
+            resume(connection, line.substring(7), false); // Anahtar konsola yazılmaz.
+            return true;
+        }
+        if (line.regionMatches(true, 0, "WATCH", 0, 5)) {
+            watch(connection, line.substring(5), false);
+            return true;
+        }
+        if (line.regionMatches(true, 0, "RATING:", 0, 7)) {
+            rate(connection, line.substring(7), false);
+            return true;
+        }
+        join(connection);
+        return false;
+    }
+
+    /**
+     * Bir bağlantıdan gelen ve ROLL/MOVE olarak çözülmemiş bir satırı lobi düzeyinde işler. Her iki
+     * bağlantı türünün (PlayerHandler, NioConnection) okuma yolu bu yöntemi çağırır. Odaya yerleşmemiş
+     * bağlantının ilk satırı handleFirstLine ile yönlendirilir; sonraki RESUME, RATING ve WATCH
+     * satırları burada işlenir. İkili protokol isteği (PROTO:BIN) bağlantıya iletilir. Geri kalan
+     * satırlar COMMAND kategorisinde günlüğe bırakılır; bağlantı onları odasına iletir veya oyuncu
+     * henüz yerleşmediyse rejectUnseated ile bilgilendirir.
+     * @param connection Satırı gönderen bağlantı.
+     * @param line Satır sonu olmadan satır.
+     * @return Satır burada işlendiyse true.
+     */
+    public boolean handleLobbyLine(PlayerConnection connection, String line) {
+        if (connection.getGameManager() == null) {
+            if (handleFirstLine(connection, line)) {
+                return true; // RESUME, WATCH veya RATING ilk satırı.
+            }
+            if (line.regionMatches(true, 0, "RESUME:", 0, 7)) {
+                resume(connection, line.substring(7)); // Kopan bir oturuma geri dön (anahtar konsola yazılmaz).
+                return true;
+            }
+            if (line.regionMatches(true, 0, "RATING:", 0, 7)) {
+                rate(connection, line.substring(7)); // Puan tabanlı eşleştirme için beceri puanı.
+                return true;
+            }
+            if (line.regionMatches(true, 0, "WATCH", 0, 5)) {
+                watch(connection, line.substring(5)); // Bir odayı izleyici olarak izle.
+                return true;
+            }
+        }
+        Log.info(Log.Category.COMMAND, "Oyuncu {}: {}", connection.getPlayerId(), line); // Gelen mesajı günlük yazıcısına bırak.
+        return line.equals(BinaryProtocol.HELLO) && connection.switchToBinary(); // İstemci ikili protokolü istedi.
+    }
+
+    /**
+     * Henüz bir odaya yerleşmemiş bir oyuncuyu lobiden çıkarır (bağlantısı koptuğunda).
+     * @param player Lobiden çıkarılacak oyuncu.
+     */
+    public void leave(PlayerConnection player) {
+        greeting.remove(player); // İlk satırını göndermeden kopan bağlantı lobiye eklenmesin.
+        matchmaker.leave(player);
+        GameManager room = watching.remove(player);
+        if (room != null) {
+            room.removeSpectator(player);
+        }
+    }
+
+    /**
+     * Lobideki bir bağlantıdan gelen WATCH isteğini işler. Bağlantı eşleştirmeden çıkarılır ve
+     * istenen odaya izleyici olarak eklenir; zaten bir odayı izliyorsa yeni odaya geçer.
+     * @param spectator İsteği gönderen, henüz bir odaya yerleşmemiş bağlantı.
+     * @param argument "WATCH" sonrası: ":odaID" veya boş (açık odalardan en eskisi izlenir).
+     */
+    public void watch(PlayerConnection spectator, String argument) {
+        watch(spectator, argument, true);
+    }
+
+    /**
+     * Bir bağlantıyı izleyici yapar.
+     * @param spectator İzleyici olacak bağlantı.
+     * @param argument "WATCH" sonrası: ":odaID" veya boş.
+     * @param inLobby Bağlantı lobide mi (false ise henüz lobiye eklenmemiş yeni bir bağlantı).
+     */
+    void watch(PlayerConnection spectator, String argument, boolean inLobby) {
+        String roomId = argument.startsWith(":") ? argument.substring(1).trim() : argument.trim();
+        GameManager room;
+        try {
+            room = roomId.isEmpty() ? oldestRoom() : rooms.get(Long.parseLong(roomId));
+        } catch (NumberFormatException e) {
+            room = null;
+        }
+        if (room == null) {
+            spectator.sendMessage("INFO:İzlenecek oda bulunamadı.");
+            if (!inLobby) {
+                join(spectator); // İzleyemeyen yeni bağlantı yeni bir oyun beklesin.
+            }
+            return;
+        }
+        GameManager previous = watching.put(spectator, room);
+        if (previous != null) {
+            previous.removeSpectator(spectator);
+        } else if (inLobby && !matchmaker.leave(spectator)) {
+            watching.remove(spectator, room); // Eşleştirme bu arada bağlantıyı bir masaya yerleştirdi.
+            spectator.sendMessage("INFO:İzleme isteği işlenemedi. Lütfen tekrar deneyin.");
+            return;
+        }
+        room.addSpectator(spectator);
+        spectator.sendMessage("INFO:Oda " + room.getRoomId() + " izleniyor. İzleyiciler hamle yapamaz.");
+        Log.info(Log.Category.ROOM, "Oda {} izleyici sayısı: {}", room.getRoomId(), room.getSpectatorCount());
+    }
+
+    /**
+     * Bağlantının bir odayı izleyip izlemediğini döndürür.
+     * @param connection Bağlantı.
+     * @return İzleyiciyse true.
+     */
+    public boolean isWatching(PlayerConnection connection) {
+        return watching.containsKey(connection);
+    }
+
+    /**
+     * Henüz bir masaya yerleşmemiş bir bağlantının gönderdiği oyun komutunu cevaplar.
+     * @param connection Komutu gönderen bağlantı.
+     */
+    public void rejectUnseated(PlayerConnection connection) {
+        connection.sendMessage(isWatching(connection) ? "INFO:İzleyiciler hamle yapamaz." : "INFO:Diğer oyuncular bekleniyor.");
+    }
+
+    /**
+     * Açık odalardan ID'si en küçük olanı (en eski odayı) döndürür.
+     * @return Oda, açık oda yoksa null.
+     */
+    private GameManager oldestRoom() {
+        Map.Entry<Long, GameManager> oldest = roomsById.firstEntry();
+        return oldest == null ? null : oldest.getValue();
+    }
+
+    /**
+     * Oda tohumlarının türetileceği ana tohumu ayarlar. Aynı ana tohumla çalışan bir sunucuda
+     * aynı ID'li odalar aynı zar dizilerini üretir; yük testleri ve itiraz edilen oyunlar bu
+     * sayede birebir tekrarlanabilir.
+     * @param seed Ana tohum.
+     */
+    public void setBaseSeed(long seed) {
+        this.baseSeed = seed;
+        this.seeded = true;
+    }
+
+    /**
+     * Odaların durum geçişlerini yazacağı günlüğü ayarlar ve günlükten kurtarılan, henüz bitmemiş
+     * oyunların odalarını yeniden açar. Kurtarılan odalardaki koltuklar DetachedPlayer yer
+     * tutucularıyla doldurulur ve günlükteki oturum anahtarlarıyla bekleme süresi boyunca tutulur;
+     * süre içinde dönmeyen oyuncuların odaları kapatılır. Oda açılmadan önce çağrılmalıdır.
+     * @param journal Açılmış günlük.
+     */
+    public void setJournal(GameJournal journal) {
+        this.journal = journal;
+        long maxRoomId = 0;
+        for (Map.Entry<Long, GameState> entry : journal.getRecoveredGames().entrySet()) {
+            long roomId = entry.getKey();
+            GameState state = entry.getValue();
+            List<PlayerConnection> seats = new ArrayList<>();
+            for (int i = 0; i < state.getGameLog().getPlayerCount(); i++) {
+                seats.add(new DetachedPlayer(i));
+            }
+            GameManager room = new GameManager(seats, roomId, this, state);
+            rooms.put(roomId, room);
+            roomsById.put(roomId, room);
+            long[] tokens = journal.getRecoveredSessions().get(roomId);
+            for (int i = 0; i < seats.size(); i++) {
+                if (tokens != null && i < tokens.length && tokens[i] != 0) {
+                    room.setSessionToken(i, tokens[i]);
+                    sessions.put(tokens[i], new Session(room, i));
+                }
+                holdSeat(room, i);
+            }
+            room.startTurnTimer(); // Sıradaki oyuncu geri dönmese de oyun ilerlesin.
+            maxRoomId = Math.max(maxRoomId, roomId);
+            if (Log.isEnabled(Log.Category.JOURNAL, Log.Level.INFO)) {
+                Log.info(Log.Category.JOURNAL, "{}", "Oda " + roomId + " günlükten kurtarıldı: " + state.getGameLog().size()
+                        + " olay, tur " + state.getRound() + ", sıra Oyuncu " + (state.getCurrentPlayerIndex() + 1) + "'da.");
+            }
+        }
+        nextRoomId.accumulateAndGet(maxRoomId + 1, Math::max); // Yeni odalar kurtarılanlarla çakışmasın.
+    }
+
+    /**
+     * Bir koltuk için yeni bir oturum anahtarı üretir, kaydeder ve günlüğe yazar.
+     * @param room Koltuğun odası.
+     * @param playerId Koltuğun oyuncu ID'si.
+     * @return Oturum anahtarı (hiçbir zaman 0 değildir).
+     */
+    private long createSession(GameManager room, int playerId) {
+        long token;
+        do {
+            token = tokenSource.nextLong();
+        } while (token == 0 || sessions.putIfAbsent(token, new Session(room, playerId)) != null);
+        room.setSessionToken(playerId, token);
+        if (journal != null) {
+            journal.recordSession(room.getRoomId(), playerId, token);
+        }
+        return token;
+    }
+
+    /**
+     * Bağlantısı kopan bir oyuncunun koltuğunu bekleme süresi boyunca tutar. Süre dolduğunda
+     * oyuncu dönmediyse GameManager.seatExpired çağrılır.
+     * @param room Koltuğun odası.
+     * @param playerId Koltuğun oyuncu ID'si.
+     */
+    void holdSeat(GameManager room, int playerId) {
+        long token = room.getSessionToken(playerId);
+        Session session = token != 0 ? sessions.get(token) : null;
+        ScheduledFuture<?> expiry = seatTimer.schedule(() -> room.seatExpired(playerId), graceMillis, TimeUnit.MILLISECONDS);
+        if (session != null) {
+            session.expiry = expiry;
+        }
+    }
+
+    /**
+     * Lobideki bir bağlantıdan gelen RESUME isteğini işler. Anahtar tutulan bir koltuğa aitse bağlantı
+     * lobiden çıkarılır ve koltuğa yerleştirilmek üzere odanın posta kutusuna gönderilir; aksi
+     * takdirde lobide kalır ve yeni bir oyun bekler.
+     * @param player İsteği gönderen, henüz bir odaya yerleşmemiş bağlantı.
+     * @param token Onaltılık oturum anahtarı.
+     */
+    public void resume(PlayerConnection player, String token) {
+        resume(player, token, true);
+    }
+
+    /**
+     * Bir RESUME isteğini işler.
+     * @param player İsteği gönderen bağlantı.
+     * @param token Onaltılık oturum anahtarı.
+     * @param inLobby Bağlantı lobide mi (false ise henüz lobiye eklenmemiş yeni bir bağlantı;
+     *                koltuk bulunamazsa lobiye eklenir).
+     */
+    void resume(PlayerConnection player, String token, boolean inLobby) {
+        Session session;
+        try {
+            session = sessions.get(Long.parseUnsignedLong(token.trim(), 16));
+        } catch (NumberFormatException e) {
+            session = null;
+        }
+        if (session == null || (inLobby && !matchmaker.leave(player))) {
+            if (!inLobby) {
+                join(player); // Dönülecek koltuk yok; yeni bir oyun beklesin.
+            }
+            player.sendMessage("INFO:Oturum bulunamadı veya süresi doldu.");
+            player.sendMessage("INFO:Yeni oyun başlıyor. Lütfen bekleyin.");
+            return;
+        }
+        // Süre burada iptal edilir; oda bu arada kapanırsa reattach bağlantıyı resumeFailed ile geri gönderir.
+        ScheduledFuture<?> expiry = session.expiry;
+        if (expiry != null) {
+            expiry.cancel(false);
+            session.expiry = null;
+        }
+        session.room.reattach(session.playerId, player);
+    }
+
+    /**
+     * Koltuğuna yerleştirilemeyen (odası RESUME işlenirken kapanan) bir bağlantıyı lobiye geri
+     * gönderir. Odanın thread'inde çağrılır.
+     * @param player Yeniden bağlanan oyuncunun bağlantısı.
+     */
+    void resumeFailed(PlayerConnection player) {
+        join(player); // Oda bu arada kapandı; yeni bir oyun beklesin.
+        player.sendMessage("INFO:Oturum bulunamadı veya süresi doldu.");
+        player.sendMessage("INFO:Yeni oyun başlıyor. Lütfen bekleyin.");
+    }
+
+    /**
+     * Odaların durum geçişlerini yazdığı günlüğü döndürür.
+     * @return Günlük, kalıcılık kapalıysa null.
+     */
+    GameJournal getJournal() {
+        return journal;
+    }
+
+    /**
+     * Bir odanın oyun tohumlarını üretecek tohumu döndürür.
+     * @param roomId Oda ID'si.
+     * @return Ana tohum ayarlandıysa ondan ve oda ID'sinden türetilen, aksi takdirde rastgele bir tohum.
+     */
+    long roomSeed(long roomId) {
+        if (!seeded) {
+            return ThreadLocalRandom.current().nextLong();
+        }
+        return baseSeed ^ (roomId * 0x9E3779B97F4A7C15L); // Oda ID'lerini tohum uzayına yayar.
+    }
+
+    /**
+     * Belirtilen ID'ye sahip odayı döndürür.
+     * @param roomId Oda ID'si.
+     * @return Oda bulunamazsa null.
+     */
+    public GameManager getRoom(long roomId) {
+        return rooms.get(roomId);
+    }
+
+    /**
+     * Şu anda açık olan oda sayısını döndürür.
+     * @return Oda sayısı.
+     */
+    public int getRoomCount() {
+        return rooms.size();
+    }
+
+    /**
+     * Lobide bekleyen oyuncu sayısını döndürür.
+     * @return Bekleyen oyuncu sayısı.
+     */
+    public int getLobbySize() {
+        return matchmaker.getWaitingCount();
+    }
+
+    /**
+     * Bir odayı kayıttan kaldırır. Odadaki diğer oyuncular yeni bir rakip bulmak üzere
+     * lobiye geri gönderilir. Aynı oda için birden fazla kez çağrılması güvenlidir. Odanın
+     * thread'inde (GameManager'ın posta kutusundan) çağrılır.
+     * @param room Kapatılacak oda.
+     * @param leavingPlayerId Odadan ayrılan oyuncunun ID'si.
+     */
+    void closeRoom(GameManager room, int leavingPlayerId) {
+        if (!rooms.remove(room.getRoomId(), room)) {
+            return; // Oda zaten kapatılmış.
+        }
+        roomsById.remove(room.getRoomId(), room);
+        if (journal != null) {
+            journal.recordEnd(room.getRoomId());
+        }
+        room.cancelTurnTimer();
+        Log.info(Log.Category.ROOM, "Oda {} kapatıldı. Açık oda sayısı: {}", room.getRoomId(), rooms.size());
+        for (PlayerConnection spectator : room.removeAllSpectators()) {
+            if (watching.remove(spectator, room)) {
+                spectator.sendMessage("INFO:İzlediğiniz oda kapandı.");
+            }
+        }
+        for (int i = 0; i < room.getPlayers().size(); i++) {
+            Session session = sessions.remove(room.getSessionToken(i));
+            if (session != null && session.expiry != null) {
+                session.expiry.cancel(false);
+            }
+        }
+        for (PlayerConnection player : room.getPlayers()) {
+            if (player instanceof DetachedPlayer) {
+                continue; // Bağlantısı kopmuş koltuk; lobiye gönderilecek bir bağlantı yok.
+            }
+            if (player.getPlayerId() != leavingPlayerId) {
+                player.setGameManager(null);
+                player.sendMessage("INFO:Yeni oyun başlıyor. Lütfen bekleyin.");
+                join(player);
+            }
+        }
+    }
+
+    /**
+     * Verilen oyuncular için yeni bir oda oluşturur, kayda ekler ve oyunu başlatır.
+     * Matchmaker tarafından eşleştirme thread'inde çağrılır.
+     * @param table Odaya yerleştirilecek oyuncular.
+     */
+    void openRoom(List<PlayerConnection> table) {
+        long roomId = nextRoomId.getAndIncrement();
+        GameManager room = new GameManager(table, roomId, this);
+        rooms.put(roomId, room);
+        roomsById.put(roomId, room);
+        for (int i = 0; i < table.size(); i++) {
+            PlayerConnection player = table.get(i);
+            player.setPlayerId(i);
+            player.setGameManager(room);
+            player.sendMessage("PLAYERS:" + table.size()); // İstemci skor tablosunu oyuncu sayısına göre boyutlandırır.
+            player.sendIndex(i); // Oyuncuya kendi ID'sini gönder.
+            player.sendMessage("SESSION:" + Long.toHexString(createSession(room, i))); // Yeniden bağlanmak için oturum anahtarı.
+        }
+        Log.info(Log.Category.ROOM, "Oda {} oluşturuldu. Açık oda sayısı: {}", roomId, rooms.size());
+        room.startGame();
+    }
+}
@@ -0,0 +1,192 @@
+package Server;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * RoomScheduler, odaların posta kutularını iş çalan (work-stealing) bir ForkJoinPool
+ * üzerinde çalıştırır. Her oda (GameManager) tek yazıcılı bir aktördür: odaya gelen tüm
+ * komutlar, zamanlayıcı olayları ve bağlantı kopmaları odanın kilitsiz posta kutusuna mesaj
+ * olarak eklenir ve aynı anda yalnızca bir işçi tarafından sırayla işlenir. Böylece oda
+ * durumu kilit gerektirmez; farklı odalar ise farklı işçilerde paralel ilerler.
+ *
+ * Bir oda, posta kutusu boşken ilk mesajı aldığında bir kez zamanlanır (etkinleştirme).
+ * İşçi bir etkinleştirmede en fazla batchSize mesaj işler; böylece zamanlama maliyeti
+ * birden fazla komuta yayılır ve yoğun bir oda diğerlerini bekletmez. Kalan mesajlar için
+ * oda, işçinin kendi yerel kuyruğuna yeniden eklenir: bir odanın ardışık etkinleştirmeleri
+ * boşta bir işçi onu çalmadıkça aynı işçide (ve aynı çekirdeğin önbelleğinde) kalır. Bağlantı
+ * thread'lerinden gelen zamanlamalar havuzun paylaşılan giriş kuyruklarına düşer ve boşta
+ * kalan işçiler tarafından çalınır. Havuz FIFO (asyncMode) çalışır; etkinleştirmeler hiçbir
+ * zaman join edilmediği için olay işleme düzeni korunur.
+ *
+ * Her işçi meşgul geçirdiği süreyi, etkinleştirme ve mesaj sayısını kendisi tutar;
+ * getWorkerUtilization bunlardan işçi başına doluluk oranını hesaplar.
+ */
+class RoomScheduler {
+
+    /** Bir odanın bir etkinleştirmede işleyeceği varsayılan en fazla mesaj sayısı. */
+    static final int DEFAULT_BATCH_SIZE = 32;
+
+    /**
+     * İstatistik tutan havuz işçisi. Havuz uzun süre boşta kalan işçileri sonlandırır;
+     * sonlanan işçi istatistik listesinden çıkar.
+     */
+    private static final class Worker extends ForkJoinWorkerThread {
+        private final List<Worker> live; // İşçinin kayıtlı olduğu işçi listesi.
+        volatile long busyNanos; // Posta kutusu işlemekle geçen toplam süre (yalnızca bu işçi yazar).
+        long sampledBusyNanos; // Son doluluk örneğindeki busyNanos (örnekleyici thread'de).
+        long sampledAt; // Son doluluk örneğinin zamanı (örnekleyici thread'de).
+
+        Worker(ForkJoinPool pool, List<Worker> live) {
+            super(pool);
+            this.live = live;
+            this.sampledAt = System.nanoTime();
+            setName("room-worker-" + getPoolIndex());
+            live.add(this);
+        }
+
+        @Override
+        protected void onTermination(Throwable exception) {
+            live.remove(this);
+            super.onTermination(exception);
+        }
+    }
+
+    private final ForkJoinPool pool; // Odaların posta kutularını işleyen iş çalan havuz.
+    private final int batchSize; // Bir etkinleştirmede işlenecek en fazla mesaj sayısı.
+    private final List<Worker> workers = new CopyOnWriteArrayList<>(); // Havuzun şu anki işçileri.
+    private final LongAdder activations = new LongAdder(); // Toplam oda etkinleştirmesi.
+    private final LongAdder messages = new LongAdder(); // Etkinleştirmelerde işlenen toplam mesaj.
+
+    /**
+     * Tek oyunlu kullanımda (oda kaydı olmadan) oluşturulan odaların paylaştığı zamanlayıcı.
+     * İlk kullanıldığında oluşturulur.
+     */
+    private static final class Common {
+        static final RoomScheduler INSTANCE = new RoomScheduler(Runtime.getRuntime().availableProcessors(), DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Zamanlayıcıyı oluşturur. İşçi thread'leri ilk iş geldiğinde başlatılır.
+     * @param threads İşçi thread sayısı (havuzun paralellik düzeyi).
+     * @param batchSize Bir odanın bir etkinleştirmede işleyeceği en fazla mesaj sayısı.
+     */
+    RoomScheduler(int threads, int batchSize) {
+        this.batchSize = Math.max(1, batchSize);
+        this.pool = new ForkJoinPool(Math.max(1, threads), p -> new Worker(p, workers), (t, e) -> {
+            Log.error(Log.Category.ROOM, "Oda işçisi {} hata verdi", t.getName(), e);
+        }, true);
+    }
+
+    /**
+     * Oda kaydı olmadan oluşturulan odaların kullandığı ortak zamanlayıcıyı döndürür.
+     * @return Ortak zamanlayıcı.
+     */
+    static RoomScheduler common() {
+        return Common.INSTANCE;
+    }
+
+    /**
+     * Bir odanın posta kutusunu işleyecek etkinleştirmeyi havuza ekler. Bir işçiden çağrılırsa
+     * iş o işçinin yerel kuyruğuna, aksi takdirde havuzun giriş kuyruklarından birine eklenir.
+     * @param drain Odanın posta kutusunu işleyen görev.
+     */
+    void schedule(Runnable drain) {
+        pool.execute(drain);
+    }
+
+    /**
+     * Bir etkinleştirmede işlenecek en fazla mesaj sayısını döndürür.
+     * @return Mesaj sayısı.
+     */
+    int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Tamamlanan bir etkinleştirmeyi, onu çalıştıran işçinin istatistiklerine ekler.
+     * @param processed Etkinleştirmede işlenen mesaj sayısı.
+     * @param nanos Etkinleştirmenin süresi.
+     */
+    void recordActivation(int processed, long nanos) {
+        activations.increment();
+        messages.add(processed);
+        Thread current = Thread.currentThread();
+        if (current instanceof Worker) {
+            Worker worker = (Worker) current;
+            worker.busyNanos = worker.busyNanos + nanos; // Tek yazıcı; okuyucular son değeri görür.
+        }
+    }
+
+    /**
+     * İşçi başına doluluk oranını döndürür: bir önceki çağrıdan (ilk çağrıda işçinin
+     * başlamasından) bu yana işçinin posta kutusu işlemekle geçirdiği sürenin oranı. Tek bir
+     * istatistik thread'inden çağrılmalıdır; son iki çağrı arasındaki dilimi ölçer.
+     * @return Her işçi için 0 ile 1 arasında doluluk oranı.
+     */
+    double[] getWorkerUtilization() {
+        long now = System.nanoTime();
+        Worker[] current = workers.toArray(new Worker[0]);
+        double[] utilization = new double[current.length];
+        for (int i = 0; i < current.length; i++) {
+            Worker worker = current[i];
+            long busy = worker.busyNanos;
+            long elapsed = now - worker.sampledAt;
+            utilization[i] = elapsed > 0 ? Math.min(1.0, (busy - worker.sampledBusyNanos) / (double) elapsed) : 0;
+            worker.sampledBusyNanos = busy;
+            worker.sampledAt = now;
+        }
+        return utilization;
+    }
+
+    /**
+     * Toplam oda etkinleştirmesi sayısını döndürür.
+     * @return Etkinleştirme sayısı.
+     */
+    long getActivationCount() {
+        return activations.sum();
+    }
+
+    /**
+     * Etkinleştirmelerde işlenen toplam mesaj sayısını döndürür; etkinleştirme sayısına
+     * bölündüğünde ortalama toplu işleme boyutunu verir.
+     * @return Mesaj sayısı.
+     */
+    long getMessageCount() {
+        return messages.sum();
+    }
+
+    /**
+     * Havuzun paralellik düzeyini döndürür.
+     * @return İşçi thread sayısı.
+     */
+    int getThreadCount() {
+        return pool.getParallelism();
+    }
+
+    /**
+     * Havuzdan çalınan iş sayısını döndürür (bir işçinin başka bir işçinin kuyruğundan aldığı
+     * etkinleştirmeler).
+     * @return Çalınan iş sayısı.
+     */
+    long getStealCount() {
+        return pool.getStealCount();
+    }
+
+    /**
+     * Havuzu kapatır; kuyruktaki etkinleştirmeler en fazla verilen süre kadar beklenir.
+     * @param timeoutMillis Bekleme süresi (ms).
+     */
+    void shutdown(long timeoutMillis) {
+        pool.shutdown();
+        try {
+            pool.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
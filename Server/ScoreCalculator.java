@@ -3,27 +3,21 @@ package Server;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Set;
-import java.util.HashSet;
 import java.util.List;
 import java.util.ArrayList;
 
 
 /**
  * Yahtzee oyununda belirli bir zar kombinasyonu için kategoriye göre skoru
- * hesaplayan yardımcı sınıftır.
+ * hesaplayan yardımcı sınıftır. Geçerli zarlar için puanlar önceden hesaplanmış
+ * ScoreTable'dan okunur; buradaki hesaplama metodları tablonun oluşturulmasında
+ * ve tabloya sığmayan (1-6 dışı) zar değerleri için kullanılır.
  */
 public class ScoreCalculator {
 
-    // Yahtzee'deki tüm geçerli kategori adlarının küçük harflerle tutulduğu sabit küme.
-    private static final Set<String> ALL_CATEGORIES = new HashSet<>(Arrays.asList(
-            "ones", "twos", "threes", "fours", "fives", "sixes", // Üst bölüm kategorileri
-            "three of a kind", "four of a kind", "full house", "small straight", // Alt bölüm kategorileri
-            "large straight", "yahtzee", "chance" // Diğer alt bölüm kategorileri
-    ));
-
     /**
      * Verilen zar kombinasyonu için belirtilen kategoriye ait skoru hesaplar.
+     * Metin protokolünden gelen adlar için bir cephe (facade) metodudur; ad Category'ye çevrilir.
      *
      * @param category Hesaplama yapılacak kategori adı (büyük/küçük harf duyarsız).
      * @param dice Hesaplama için kullanılacak 5 zarın değerleri (1-6 arası).
@@ -31,20 +25,45 @@ public class ScoreCalculator {
      * uymuyorsa 0 döner (bazı kategoriler için durum farklı olabilir, örneğin "Chance" her zaman toplamı döner).
      */
     public static int calculate(String category, int[] dice) {
+        // Kategori adını Category sabitine çevir (büyük/küçük harf duyarsız).
+        Category selected = Category.fromName(category);
+        if (selected == null) {
+            Log.warn(Log.Category.GAME, "Geçersiz kategori adı: {}", category);
+            return 0; // Geçersiz kategori adı durumunda 0 dön.
+        }
+        return calculate(selected, dice);
+    }
+
+    /**
+     * Verilen zar kombinasyonu için belirtilen kategoriye ait skoru hesaplar.
+     *
+     * @param category Hesaplama yapılacak kategori.
+     * @param dice Hesaplama için kullanılacak 5 zarın değerleri (1-6 arası).
+     * @return Hesaplanan puan. Kombinasyon kategoriye uymuyorsa 0 döner.
+     */
+    public static int calculate(Category category, int[] dice) {
         // Zar dizisinin null olup olmadığını veya boyutunun 5 olup olmadığını kontrol et.
         if (dice == null || dice.length != 5) {
-            System.err.println("Hata: Geçersiz zar dizisi boyutu: " + (dice != null ? dice.length : "null"));
+            Log.warn(Log.Category.GAME, "Geçersiz zar dizisi boyutu: {}", dice != null ? dice.length : "null");
             return 0; // Geçersiz dizi boyutu durumunda 0 dön.
         }
 
-        // Kategori adını küçük harfe çevirerek karşılaştırmayı kolaylaştır.
-        String lowerCategory = category.toLowerCase();
-        // Belirtilen kategorinin geçerli kategoriler kümesinde olup olmadığını kontrol et.
-        if (!ALL_CATEGORIES.contains(lowerCategory)) {
-            System.err.println("Hata: Geçersiz kategori adı: " + category);
-            return 0; // Geçersiz kategori adı durumunda 0 dön.
+        // Geçerli zarlar için puan, önceden hesaplanmış tablodan tek bir okuma ile bulunur.
+        if (ScoreTable.isValidRoll(dice)) {
+            return ScoreTable.score(category, dice);
         }
+        return computeScore(category, dice);
+    }
 
+    /**
+     * Verilen zar kombinasyonu için kategorinin puanını tabloya bakmadan hesaplar.
+     * ScoreTable bu metodla oluşturulur.
+     *
+     * @param category Kategori.
+     * @param dice 5 zarın değerleri.
+     * @return Hesaplanan puan.
+     */
+    static int computeScore(Category category, int[] dice) {
         // Zar değerlerinin bir kopyasını oluştur ve sırala. Bu, düz veya ardışık kontrolleri için faydalıdır.
         int[] sortedDice = Arrays.copyOf(dice, dice.length);
         Arrays.sort(sortedDice);
@@ -54,36 +73,36 @@ public class ScoreCalculator {
         Map<Integer, Integer> freq = getFrequencyMap(dice);
 
         // Kategoriye göre ilgili skor hesaplama metodunu çağır.
-        switch (lowerCategory) {
-            case "ones":
+        switch (category) {
+            case ONES:
                 return calculateUpperSection(sortedDice, 1);
-            case "twos":
+            case TWOS:
                 return calculateUpperSection(sortedDice, 2);
-            case "threes":
+            case THREES:
                 return calculateUpperSection(sortedDice, 3);
-            case "fours":
+            case FOURS:
                 return calculateUpperSection(sortedDice, 4);
-            case "fives":
+            case FIVES:
                 return calculateUpperSection(sortedDice, 5);
-            case "sixes":
+            case SIXES:
                 return calculateUpperSection(sortedDice, 6);
-            case "three of a kind":
+            case THREE_OF_A_KIND:
                 return calculateNOfAKind(freq, 3); // Üçlü kombinasyon kontrolü.
-            case "four of a kind":
+            case FOUR_OF_A_KIND:
                 return calculateNOfAKind(freq, 4); // Dörtlü kombinasyon kontrolü.
-            case "full house":
+            case FULL_HOUSE:
                 return calculateFullHouse(freq); // Full House kontrolü.
-            case "small straight":
+            case SMALL_STRAIGHT:
                 return calculateStraight(sortedDice, 4); // Küçük düz (4 ardışık zar) kontrolü.
-            case "large straight":
+            case LARGE_STRAIGHT:
                 return calculateStraight(sortedDice, 5); // Büyük düz (5 ardışık zar) kontrolü.
-            case "yahtzee":
+            case YAHTZEE:
                 return calculateYahtzee(freq); // Yahtzee (beş aynı zar) kontrolü.
-            case "chance":
+            case CHANCE:
                 return calculateChance(sortedDice); // Tüm zarların toplamı.
 
             default:
-                // Bu duruma, kategorinin geçerliliği yukarıda kontrol edildiği için normalde gelinmemelidir.
+                // Tüm kategoriler yukarıda ele alındığı için bu duruma normalde gelinmemelidir.
                 return 0;
         }
     }
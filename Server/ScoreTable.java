@@ -0,0 +1,69 @@
+package Server;
+
+/**
+ * ScoreTable, ScoreCalculator'ın tablo tabanlı puanlama motorudur. Beş zarın
+ * alabileceği 7776 sıralı kombinasyonun (252 farklı çoklu küme) her biri için
+ * 13 kategorinin puanı sınıf yüklenirken bir kez hesaplanır ve tek bir bayt
+ * dizisine yazılır (yaklaşık 100 KB). Bir puanı bulmak, zarları
+ * BinaryProtocol.packDice ile paketleyip tek bir dizi elemanını okumaktır;
+ * sıralama, frekans haritası veya kutulama yapılmaz.
+ *
+ * Tablo kategori boyutunda Category.ordinal() ile indekslenir.
+ */
+public final class ScoreTable {
+
+    /** Beş zarın alabileceği farklı sıralı kombinasyon sayısı (6^5). */
+    public static final int ROLL_COUNT = 7776;
+    // [zar anahtarı * Category.COUNT + kategori ordinal'i] -> puan. En yüksek puan 50 olduğu için bir bayt yeterlidir.
+    private static final byte[] SCORES = new byte[ROLL_COUNT * Category.COUNT];
+
+    static {
+        int[] dice = new int[5];
+        for (int key = 0; key < ROLL_COUNT; key++) {
+            BinaryProtocol.unpackDice(key, dice);
+            for (Category category : Category.values()) {
+                SCORES[key * Category.COUNT + category.ordinal()] = (byte) ScoreCalculator.computeScore(category, dice);
+            }
+        }
+    }
+
+    private ScoreTable() {
+    }
+
+    /**
+     * Paketlenmiş zar anahtarı için bir kategorinin puanını döndürür.
+     * @param category Kategori.
+     * @param diceKey BinaryProtocol.packDice ile üretilmiş zar anahtarı (0-7775).
+     * @return Kategorinin puanı.
+     */
+    public static int score(Category category, int diceKey) {
+        return SCORES[diceKey * Category.COUNT + category.ordinal()];
+    }
+
+    /**
+     * Beş zar için bir kategorinin puanını döndürür.
+     * @param category Kategori.
+     * @param dice 1-6 arası beş zar değeri.
+     * @return Kategorinin puanı.
+     */
+    public static int score(Category category, int[] dice) {
+        return score(category, BinaryProtocol.packDice(dice));
+    }
+
+    /**
+     * Zar değerlerinin tabloda aranabilir olup olmadığını kontrol eder.
+     * @param dice Kontrol edilecek zar dizisi.
+     * @return Dizi 1-6 arası tam olarak beş değer içeriyorsa true.
+     */
+    public static boolean isValidRoll(int[] dice) {
+        if (dice == null || dice.length != 5) {
+            return false;
+        }
+        for (int die : dice) {
+            if (die < 1 || die > 6) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
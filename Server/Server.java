@@ -1,89 +1,134 @@
 package Server;
 
 import java.io.IOException;
-import java.io.PrintWriter;
 import java.net.ServerSocket;
 import java.net.Socket;
-import java.util.ArrayList;
-import java.util.Collections; // 'players' listesini senkronize etmek için kullanılır.
-import java.util.List;
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Server sınıfı, Yahtzee oyununun sunucu uygulamasının ana giriş noktasıdır.
- * İstemci bağlantılarını kabul eder, oyuncuları yönetir ve oyun mantığını (GameManager) başlatır.
+ * İstemci bağlantılarını kabul eder ve oyuncuları RoomRegistry aracılığıyla
+ * oyun odalarına (her biri kendi GameManager nesnesine sahip) yerleştirir.
  */
 public class Server {
 
-    private static final int PORT = 12345; // Sunucunun dinleyeceği port numarası.
-    private static final int MAX_PLAYERS = 2; // Oyuna katılabilecek maksimum oyuncu sayısı.
-    // Eşzamanlı erişimler için thread-safe bir oyuncu listesi oluşturulur.
-    private static List<PlayerHandler> players = Collections.synchronizedList(new ArrayList<>());
-    private static GameManager gameManager; // Oyunun tüm kurallarını ve akışını yönetecek nesne.
+    static final int PORT = 12345; // Sunucunun dinleyeceği port numarası.
+    private static final int PLAYERS_PER_ROOM = 2; // Bir odada (masada) oynayan varsayılan oyuncu sayısı.
+    private static RoomRegistry registry; // Sunucudaki tüm oyun odalarını tutan kayıt.
     private static ServerSocket serverSocket; // Sunucu soketi, istemci bağlantılarını kabul etmek için kullanılır.
+    private static ExecutorService connectionExecutor; // Kabul döngüsünü ve PlayerHandler'ları çalıştıran executor.
 
     /**
-     * Sunucu uygulamasının ana metodudur. Sunucuyu başlatır ve oyun döngüsünü yönetir.
-     * @param args Komut satırı argümanları (kullanılmıyor).
+     * Sunucu uygulamasının ana metodudur. Sunucuyu başlatır ve bağlantıları kabul eder.
+     * @param args Komut satırı argümanları. "--nio" verilirse Selector tabanlı bloklamayan sunucu
+     * modu kullanılır; "--loops=N" ile bu moddaki olay döngüsü sayısı ayarlanabilir. "--virtual" verilirse
+     * kabul döngüsü ve tüm PlayerHandler'lar platform thread'leri yerine sanal thread'lerde çalışır.
+     * "--min-players=N" ve "--max-players=N" oda boyutunu, "--rated" beceri puanına göre eşleştirmeyi ayarlar
+     * (puanı istemciler "RATING:n" satırıyla bildirir).
+     * "--seed=N" verilirse odaların zar tohumları bu ana tohumdan türetilir (tekrarlanabilir oyunlar için).
+     * "--journal=DİZİN" verilirse oyunların durum geçişleri bu dizindeki günlüğe yazılır ve sunucu
+     * açılırken yarıda kalmış oyunlar günlükten kurtarılır. "--snapshot-interval=SN" günlüğün anlık
+     * görüntü aralığını saniye cinsinden ayarlar. "--grace=SN" bağlantısı kopan oyuncunun koltuğunun
+     * yeniden bağlanması için ne kadar tutulacağını ayarlar. "--turn-timeout=SN" sıradaki oyuncunun hamle
+     * süresini ayarlar (varsayılan 120, 0 ise sınırsız); süre dolarsa en iyi kategori otomatik seçilir.
+     * "--heartbeat=SN" bu kadar sessiz kalan bağlantılara PING gönderir (varsayılan 15, 0 ise kapalı);
+     * "--idle-timeout=SN" bu kadar süre hiç veri göndermeyen bağlantıları kapatır (varsayılan 45).
+     * "--room-workers=N" odaların komutlarını işleyen iş çalan havuzun işçi sayısını (varsayılan işlemci
+     * sayısı), "--room-batch=N" bir odanın bir etkinleştirmede işleyeceği en fazla komut sayısını
+     * (varsayılan 32) ayarlar. "--stats=SN" verilirse oda sayısı, lobi, ortalama toplu işleme boyutu
+     * ve işçi başına doluluk bu aralıkla konsola yazılır. "--rate=N" bağlantı başına (varsayılan 20),
+     * "--ip-rate=N" IP adresi başına (varsayılan 200) saniyedeki komut sınırını ayarlar (0 ise sınırsız);
+     * sınırı aşan komutlar ayrıştırılmadan atılır. "--max-line=N" bir satırın veya çerçevenin en fazla
+     * kaç bayt olabileceğini ayarlar (varsayılan 1024); daha uzun girdi gönderen bağlantı kapatılır.
+     * "--log=KATEGORİ:SEVİYE[/N],..." günlük kategorilerinin (CONNECTION, COMMAND, GAME, ROOM, JOURNAL,
+     * SERVER veya ALL) en düşük seviyesini (DEBUG, INFO, WARN, ERROR, OFF) ve örnekleme oranını ayarlar;
+     * ör. "--log=COMMAND:OFF,GAME:INFO/100" komutları yazmaz, oyun olaylarının yüzde birini yazar.
      */
     public static void main(String[] args) {
         System.out.println("Sunucu başlatılıyor..."); // Sunucu başlatma mesajı.
+        String logSpec = stringOption(args, "--log=");
+        if (logSpec != null) {
+            try {
+                Log.configure(logSpec);
+            } catch (IllegalArgumentException e) {
+                System.err.println("Hata: Geçersiz günlük ayarı: --log=" + logSpec + " (" + e.getMessage() + ")");
+            }
+        }
+        int minPlayers = intOption(args, "--min-players=", PLAYERS_PER_ROOM);
+        int maxPlayers = intOption(args, "--max-players=", Math.max(minPlayers, PLAYERS_PER_ROOM));
+        registry = new RoomRegistry(minPlayers, maxPlayers, hasOption(args, "--rated"));
+        String seed = stringOption(args, "--seed=");
+        if (seed != null) {
+            try {
+                registry.setBaseSeed(Long.parseLong(seed));
+                System.out.println("Zar tohumu: " + seed);
+            } catch (NumberFormatException e) {
+                System.err.println("Hata: Geçersiz sayısal seçenek: --seed=" + seed);
+            }
+        }
+        registry.setGraceMillis(intOption(args, "--grace=", 30) * 1000L);
+        registry.setTurnMillis(intOption(args, "--turn-timeout=", 120) * 1000L);
+        int heartbeat = intOption(args, "--heartbeat=", 15);
+        if (heartbeat > 0) {
+            registry.setHeartbeat(heartbeat * 1000L, intOption(args, "--idle-timeout=", 45) * 1000L);
+        }
+        if (stringOption(args, "--room-workers=") != null || stringOption(args, "--room-batch=") != null) {
+            int workers = intOption(args, "--room-workers=", Runtime.getRuntime().availableProcessors());
+            int batch = intOption(args, "--room-batch=", RoomScheduler.DEFAULT_BATCH_SIZE);
+            registry.setRoomScheduling(workers, batch); // Kurtarılan odalar açılmadan önce.
+            System.out.println("Oda işçileri: " + workers + ", etkinleştirme başına en fazla " + batch + " komut.");
+        }
+        registry.setInputLimits(intOption(args, "--rate=", InputLimiter.DEFAULT_CONNECTION_RATE),
+                intOption(args, "--ip-rate=", InputLimiter.DEFAULT_ADDRESS_RATE),
+                intOption(args, "--max-line=", InputLimiter.DEFAULT_MAX_LINE_LENGTH));
+        int stats = intOption(args, "--stats=", 0);
+        if (stats > 0) {
+            startStatsReporter(stats);
+        }
+        String journalDir = stringOption(args, "--journal=");
+        if (journalDir != null) {
+            try {
+                long start = System.nanoTime();
+                long snapshotMillis = intOption(args, "--snapshot-interval=", 30) * 1000L;
+                GameJournal journal = new GameJournal(Paths.get(journalDir), snapshotMillis);
+                registry.setJournal(journal);
+                System.out.printf("Oyun günlüğü: %s (%d oda kurtarıldı, %.1f ms)%n", journalDir,
+                        journal.getRecoveredGames().size(), (System.nanoTime() - start) / 1e6);
+            } catch (IOException e) {
+                System.err.println("Hata: Oyun günlüğü açılamadı: " + e.getMessage());
+            }
+        }
+
+        // Bloklamayan mod istendiyse oyuncu başına thread açan klasik döngü yerine NioServer kullanılır.
+        if (hasOption(args, "--nio")) {
+            int loops = intOption(args, "--loops=", Runtime.getRuntime().availableProcessors());
+            try {
+                new NioServer(PORT, registry, loops).start();
+            } catch (IOException e) {
+                System.err.println("Sunucu hatası: " + e.getMessage());
+                e.printStackTrace();
+            }
+            return;
+        }
+
+        connectionExecutor = newConnectionExecutor(hasOption(args, "--virtual"));
 
         try {
             serverSocket = new ServerSocket(PORT); // Belirtilen port üzerinde yeni bir ServerSocket oluştur.
             System.out.println("Sunucu port " + PORT + " üzerinde dinleniyor."); // Dinleme portunu konsola yazdır.
 
-            // Yeni istemci bağlantılarını kabul etmek için ayrı bir thread başlatılır.
-            // Bu, ana thread'in oyun mantığını yönetirken bağlantı beklemeye devam etmesini sağlar.
-            new Thread(() -> acceptConnections()).start();
-
-            // Ana oyun döngüsü. Bu döngü, oyuncular bağlanana ve oyun bitene kadar devam eder.
-            while (true) {
-                // Tüm gerekli oyuncular bağlanana kadar beklemek için senkronize blok kullanılır.
-                synchronized (players) {
-                    while (players.size() < MAX_PLAYERS) {
-                        System.out.println("Oyuncu bekleniyor... (" + players.size() + "/" + MAX_PLAYERS + ")");
-                        // 'players' listesi üzerinde bekleyerek yeni bir oyuncunun bağlanmasını bekler.
-                        players.wait();
-                    }
-                }
-
-                System.out.println("Tüm oyuncular bağlandı. Oyun başlatılıyor/sıfırlanıyor...");
-
-                // GameManager'ı ilk kez oluştur veya mevcutsa sıfırla.
-                if (gameManager == null) {
-                    gameManager = new GameManager(players); // Oyuncularla yeni bir GameManager oluştur.
-                } else {
-                    // Oyun bittiğinde veya yeni bir oyun istendiğinde GameManager'ı sıfırla.
-                    gameManager.resetGame(players);
-                }
-
-                // Bağlı her PlayerHandler'a güncel GameManager referansını set et ve thread'lerini başlat.
-                for (PlayerHandler player : players) {
-                    player.setGameManager(gameManager); // GameManager referansını güncelle.
-                    player.sendMessage("INDEX:" + player.getPlayerId()); // Oyuncuya kendi ID'sini gönder.
-                    // PlayerHandler thread'ini sadece bir kez başlat (eğer henüz başlamadıysa).
-                    if (!player.isThreadRunning()) {
-                        new Thread(player).start(); // PlayerHandler'ı ayrı bir thread olarak başlat.
-                        player.setThreadRunning(true); // Thread'in çalıştığını işaretle.
-                    }
-                }
-
-                gameManager.startGame(); // Oyunu başlat (ilk turu veya sıfırlanmış oyunu).
-
-                // Oyunun bitmesini beklemek için GameManager üzerinde senkronize blok kullanılır.
-                synchronized (gameManager) {
-                    // GameManager, oyun bittiğinde veya yeniden başlatma için yeterli istek geldiğinde
-                    // notifyAll() metodunu çağırarak buradaki wait() metodunu sonlandırır.
-                    gameManager.wait();
-                }
-
-                System.out.println("Oyun turu sona erdi. Yeni oyun istekleri bekleniyor...");
-                // Bu noktada oyunun bir turu tamamlanmıştır. Main döngüsü devam eder ve
-                // oyuncuların "RESTART" komutları beklenir. Yeterli "RESTART" isteği gelirse,
-                // GameManager.requestNewGame() metodu aracılığıyla oyun sıfırlanır ve yeni tur başlar.
-            }
+            // Kabul döngüsü de bağlantı executor'ında çalışır (sanal thread modunda sanal bir thread'de).
+            // Ana thread, döngü sona erene kadar bekler.
+            Future<?> acceptor = connectionExecutor.submit(() -> acceptConnections());
+            acceptor.get();
 
-        } catch (IOException | InterruptedException e) {
+        } catch (IOException | InterruptedException | ExecutionException e) {
             // Sunucu soketi hataları veya thread kesintileri durumunda hatayı yazdır.
             System.err.println("Sunucu hatası: " + e.getMessage());
             e.printStackTrace();
@@ -93,10 +138,7 @@ public class Server {
                 if (serverSocket != null && !serverSocket.isClosed()) {
                     serverSocket.close(); // ServerSocket'i kapat.
                 }
-                // Uygulama kapanırken bağlı tüm oyuncu bağlantılarını kapat.
-                if (gameManager != null) {
-                    gameManager.closeAllConnections();
-                }
+                connectionExecutor.shutdownNow();
             } catch (IOException e) {
                 e.printStackTrace(); // Kapatma sırasında hata oluşursa yazdır.
             }
@@ -104,65 +146,128 @@ public class Server {
     }
 
     /**
-     * Yeni istemci bağlantılarını kabul eden yardımcı metod. Ayrı bir thread üzerinde çalışır.
+     * Bağlantı thread'lerini çalıştıracak executor'ı oluşturur. Sanal thread istendiğinde
+     * Executors.newVirtualThreadPerTaskExecutor() (Java 21+) yansıma ile çağrılır; böylece kod
+     * daha eski JDK'larda da derlenir ve bu durumda platform thread'lerine geri düşülür.
+     * @param virtual Sanal thread kullanılıp kullanılmayacağı.
+     * @return Her görev için yeni bir thread (veya boşta olanı) kullanan executor.
+     */
+    private static ExecutorService newConnectionExecutor(boolean virtual) {
+        if (virtual) {
+            try {
+                ExecutorService executor = (ExecutorService) Executors.class
+                        .getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+                System.out.println("Bağlantılar sanal thread'lerde çalıştırılacak.");
+                return executor;
+            } catch (ReflectiveOperationException e) {
+                System.err.println("Sanal thread'ler bu JVM'de desteklenmiyor, platform thread'leri kullanılacak.");
+            }
+        }
+        return Executors.newCachedThreadPool();
+    }
+
+    /**
+     * Sunucu istatistiklerini belirtilen aralıkla konsola yazan bir daemon thread başlatır.
+     * @param seconds Yazma aralığı (sn).
+     */
+    private static void startStatsReporter(int seconds) {
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "stats-reporter");
+            t.setDaemon(true);
+            return t;
+        });
+        reporter.scheduleAtFixedRate(() -> {
+            if (!Log.isEnabled(Log.Category.SERVER, Log.Level.INFO)) {
+                return; // İstatistik kaydı kapalıyken satır hiç oluşturulmaz.
+            }
+            StringBuilder workers = new StringBuilder();
+            for (double utilization : registry.getWorkerUtilization()) {
+                workers.append(workers.length() > 0 ? " " : "").append(Math.round(utilization * 100)).append('%');
+            }
+            Log.info(Log.Category.SERVER, "{}", String.format("İstatistik: %d oda, lobide %d, etkinleştirme başına %.1f komut, işçi doluluğu [%s],"
+                    + " giden kuyruk en derin %d (tepe %d), atılan komut %d (IP sınırı %d), çok uzun girdi %d, atılan günlük kaydı %d",
+                    registry.getRoomCount(), registry.getLobbySize(), registry.getAverageRoomBatch(), workers,
+                    registry.getMaxQueueDepth(), registry.getQueueHighWater(),
+                    registry.getShedCommands(), registry.getShedByAddress(), registry.getOversizedInputs(), Log.getDroppedCount()));
+        }, seconds, seconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Komut satırı argümanlarında belirtilen seçeneğin olup olmadığını kontrol eder.
+     * @param args Komut satırı argümanları.
+     * @param option Aranan seçenek (ör. "--nio").
+     * @return Seçenek verildiyse true.
+     */
+    private static boolean hasOption(String[] args, String option) {
+        for (String arg : args) {
+            if (arg.equalsIgnoreCase(option)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * "--ad=değer" biçimindeki bir seçeneğin değerini okur.
+     * @param args Komut satırı argümanları.
+     * @param prefix Seçeneğin "=" dahil öneki (ör. "--seed=").
+     * @return Seçeneğin değeri, seçenek verilmediyse null.
+     */
+    private static String stringOption(String[] args, String prefix) {
+        for (String arg : args) {
+            if (arg.startsWith(prefix)) {
+                return arg.substring(prefix.length());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * "--ad=değer" biçimindeki sayısal bir seçeneği okur.
+     * @param args Komut satırı argümanları.
+     * @param prefix Seçeneğin "=" dahil öneki (ör. "--loops=").
+     * @param defaultValue Seçenek yoksa veya hatalıysa kullanılacak değer.
+     * @return Seçeneğin değeri.
+     */
+    private static int intOption(String[] args, String prefix, int defaultValue) {
+        for (String arg : args) {
+            if (arg.startsWith(prefix)) {
+                try {
+                    return Integer.parseInt(arg.substring(prefix.length()));
+                } catch (NumberFormatException e) {
+                    System.err.println("Hata: Geçersiz sayısal seçenek: " + arg);
+                }
+            }
+        }
+        return defaultValue;
+    }
+
+    /**
+     * Yeni istemci bağlantılarını kabul eden yardımcı metod. Her bağlantı için bir PlayerHandler
+     * başlatır; oyuncu ilk satırı okunduğunda oda kaydının lobisine eklenir.
      */
     private static void acceptConnections() {
         // Sunucu soketi açık olduğu sürece yeni bağlantıları dinlemeye devam et.
         while (!serverSocket.isClosed()) {
             try {
                 Socket clientSocket = serverSocket.accept(); // Yeni bir istemci bağlantısını kabul et.
-                System.out.println("Yeni oyuncu bağlandı: " + clientSocket); // Bağlanan istemcinin bilgilerini yazdır.
-
-                synchronized (players) {
-                    // Eğer maksimum oyuncu sayısına henüz ulaşılmadıysa, yeni oyuncuyu ekle.
-                    if (players.size() < MAX_PLAYERS) {
-                        int playerId = players.size(); // Oyuncuya benzersiz bir ID ata (0'dan başlayarak).
-                        // PlayerHandler nesnesini oluştururken GameManager referansı geçici olarak null olabilir,
-                        // çünkü asıl atama main döngüsünde setGameManager ile yapılacaktır.
-                        PlayerHandler newPlayer = new PlayerHandler(clientSocket, playerId, null);
-                        players.add(newPlayer); // Yeni oyuncuyu listeye ekle.
-                        newPlayer.sendMessage("INFO:Sunucuya bağlandınız. Diğer oyuncular bekleniyor."); // Oyuncuya hoş geldin mesajı gönder.
-                        // Yeni bir oyuncu bağlandığında, 'players.wait()' durumunda olan ana thread'i uyandır.
-                        players.notifyAll();
-                    } else {
-                        // Maksimum oyuncu sayısına ulaşıldıysa, yeni bağlantıyı reddet.
-                        PrintWriter out = new PrintWriter(clientSocket.getOutputStream(), true);
-                        out.println("INFO:Sunucu dolu. Lütfen daha sonra tekrar deneyin.");
-                        clientSocket.close(); // İstemci soketini kapat.
-                        System.out.println("Sunucu dolu, yeni bağlantı reddedildi.");
-                    }
-                }
+                Log.info(Log.Category.CONNECTION, "Yeni oyuncu bağlandı: {}", clientSocket); // Bağlanan istemcinin bilgilerini günlüğe bırak.
+
+                PlayerHandler newPlayer = new PlayerHandler(clientSocket, registry, connectionExecutor); // Yazmalar da aynı executor'da.
+                newPlayer.sendMessage("INFO:Sunucuya bağlandınız. Diğer oyuncular bekleniyor."); // Oyuncuya hoş geldin mesajı gönder.
+                newPlayer.setThreadRunning(true); // Thread'in çalıştığını işaretle.
+                registry.track(newPlayer); // Cevap vermeyen bağlantılar boşta bağlantı taramasında kapatılır.
+                registry.awaitFirstLine(newPlayer); // Lobiye ilk satırı (RESUME/WATCH değilse) okunduğunda eklenir.
+                connectionExecutor.execute(newPlayer);
             } catch (IOException e) {
                 // ServerSocket kapatıldığında veya bir ağ hatası oluştuğunda bu exception fırlayabilir.
-                System.err.println("Bağlantı kabul etme hatası: " + e.getMessage());
+                Log.warn(Log.Category.CONNECTION, "Bağlantı kabul etme hatası: {}", e.getMessage());
                 // Eğer serverSocket kapatıldıysa, bu thread'in döngüsünden çık.
                 if (serverSocket.isClosed()) {
-                    System.out.println("ServerSocket kapatıldı, bağlantı kabul etme döngüsü sonlanıyor.");
+                    Log.info(Log.Category.SERVER, "ServerSocket kapatıldı, bağlantı kabul etme döngüsü sonlanıyor.");
                     break;
                 }
             }
         }
     }
-
-    /**
-     * Oyuncu listesinden belirli bir PlayerHandler nesnesini kaldırır.
-     * Bu metod genellikle bir oyuncunun bağlantısı kesildiğinde GameManager tarafından çağrılır.
-     * @param playerId Kaldırılacak oyuncunun ID'si.
-     */
-    public static void removePlayer(int playerId) {
-        synchronized (players) {
-            // Belirtilen ID'ye sahip oyuncuyu listeden kaldır.
-            players.removeIf(p -> p.getPlayerId() == playerId);
-            System.out.println("Oyuncu " + playerId + " listeden kaldırıldı. Kalan oyuncu sayısı: " + players.size());
-
-            // Eğer oyun devam ederken oyuncu sayısı maksimum oyuncu sayısının altına düşerse,
-            // ana thread'i tekrar oyuncu beklemeye alabiliriz.
-            if (gameManager != null && !gameManager.isGameOver() && players.size() < MAX_PLAYERS) {
-                System.out.println("Oyuncu sayısı yetersiz hale geldi (" + players.size() + "/" + MAX_PLAYERS + "). Yeni oyuncular bekleniyor...");
-                // Bu çağrı, ana sunucu thread'ini (players.wait() konumunda olanı) uyandırır.
-                // Ana döngü, oyuncu sayısının yetersiz olduğunu fark edecek ve tekrar beklemeye geçecektir.
-                players.notifyAll();
-            }
-        }
-    }
 }
\ No newline at end of file
@@ -0,0 +1,162 @@
+package Server;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * SharedMessage, bir odadaki tüm oyunculara yayınlanan tek bir mesajın bir kez kodlanmış
+ * halidir. Mesaj, alıcı sayısından bağımsız olarak protokol başına en fazla bir kez baytlara
+ * çevrilir: metin protokolü için UTF-8 satır, ikili protokol için BinaryProtocol çerçevesi.
+ * Her alıcının giden kuyruğuna aynı baytları paylaşan ayrı bir görünüm (ByteBuffer.duplicate)
+ * eklenir; görünümlerin yalnızca konumları bağımsızdır, bayt dizisi kopyalanmaz.
+ *
+ * Paylaşılan baytlar kodlandıktan sonra değiştirilmez. Görünümler salt okunur
+ * (asReadOnlyBuffer) yapılmaz, çünkü PlayerHandler baytları doğrudan dizisinden akışa yazar.
+ */
+final class SharedMessage {
+
+    private final String line; // Metin protokolündeki mesaj (satır sonu olmadan).
+    private final byte kind; // Mesajın OutboundQueue türü.
+    private volatile ByteBuffer lineBytes; // Satır sonu eklenmiş UTF-8 baytlar (ilk metin alıcısında kodlanır).
+    private volatile ByteBuffer frame; // İkili protokol çerçevesi (ilk ikili alıcıda kodlanır).
+
+    private SharedMessage(String line, ByteBuffer frame, byte kind) {
+        this.line = line;
+        this.frame = frame;
+        this.kind = kind;
+    }
+
+    /**
+     * Bir metin mesajı (INFO, GAME_OVER_SUMMARY vb.) oluşturur. İkili alıcılara TEXT çerçevesi olarak gider.
+     * @param message Mesaj.
+     * @return Yayınlanacak mesaj.
+     */
+    static SharedMessage text(String message) {
+        return new SharedMessage(message, null, OutboundQueue.OTHER);
+    }
+
+    /**
+     * Bir skor tablosu güncellemesi oluşturur.
+     * @param row Skor tablosundaki satır.
+     * @param column Skor tablosundaki sütun (oyuncu).
+     * @param score Kaydedilen puan.
+     * @return Yayınlanacak mesaj.
+     */
+    static SharedMessage score(int row, int column, int score) {
+        return new SharedMessage("SCORE:" + row + "," + column + "," + score,
+                BinaryProtocol.encodeScore(row, column, score), OutboundQueue.OTHER);
+    }
+
+    /**
+     * Sıra bilgisi oluşturur.
+     * @param playerIndex Sıradaki oyuncunun indeksi.
+     * @return Yayınlanacak mesaj.
+     */
+    static SharedMessage turn(int playerIndex) {
+        return new SharedMessage("TURN:" + playerIndex, BinaryProtocol.encodeTurn(playerIndex), OutboundQueue.TURN);
+    }
+
+    /**
+     * Zar değerlerini oluşturur.
+     * @param dice Beş zar değeri.
+     * @return Yayınlanacak mesaj.
+     */
+    static SharedMessage dice(int[] dice) {
+        return new SharedMessage(diceLine(dice), BinaryProtocol.encodeDice(dice), OutboundQueue.DICE);
+    }
+
+    /**
+     * Zar değerlerinin metin protokolündeki satırını oluşturur.
+     * @param dice Beş zar değeri.
+     * @return "DICE:a b c d e" satırı (satır sonu olmadan).
+     */
+    static String diceLine(int[] dice) {
+        StringBuilder sb = new StringBuilder("DICE:");
+        for (int i = 0; i < dice.length; i++) {
+            if (i > 0) {
+                sb.append(' ');
+            }
+            sb.append(dice[i]);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Oyunun güncel durumunu (skor tablosu, sıradaki oyuncunun zarları ve sıra) oluşturur. İkili
+     * alıcılara tek bir STATE çerçevesi, metin alıcılarına PlayerConnection.sendState'in gönderdiği
+     * SCORE, DICE ve TURN satırları gider. Durum değişmeden okunmalıdır (oda thread'inde).
+     * @param state Oyunun güncel durumu.
+     * @param playerCount Oyuncu sayısı.
+     * @return Yayınlanacak mesaj.
+     */
+    static SharedMessage state(GameState state, int playerCount) {
+        return new SharedMessage(stateLines(state, playerCount), BinaryProtocol.encodeState(state, playerCount), OutboundQueue.OTHER);
+    }
+
+    /**
+     * Oyunun güncel durumunun metin protokolündeki SCORE, DICE ve TURN satırlarını oluşturur.
+     * @param state Oyunun güncel durumu.
+     * @param playerCount Oyuncu sayısı.
+     * @return Satır sonlarıyla ayrılmış satırlar (son satır sonu olmadan).
+     */
+    static String stateLines(GameState state, int playerCount) {
+        StringBuilder sb = new StringBuilder();
+        for (int p = 0; p < playerCount; p++) {
+            for (Category category : Category.values()) {
+                if (state.isCategoryUsed(p, category)) {
+                    sb.append("SCORE:").append(category.ordinal() + 1).append(',').append(p).append(',')
+                            .append(state.getScore(p, category)).append('\n'); // İstemcide satır = kategori ID'si + 1.
+                }
+            }
+        }
+        int[] dice = state.getCurrentPlayerDice();
+        if (ScoreTable.isValidRoll(dice)) {
+            sb.append(diceLine(dice)).append('\n');
+        }
+        sb.append("TURN:").append(state.getCurrentPlayerIndex());
+        return sb.toString();
+    }
+
+    /**
+     * Mesajın metin protokolündeki halini döndürür (kuyruğu olmayan bağlantılar için).
+     * @return Son satır sonu olmadan mesaj (durum mesajında birden fazla satır).
+     */
+    String getLine() {
+        return line;
+    }
+
+    /**
+     * Mesajın OutboundQueue türünü döndürür.
+     * @return OTHER, DICE veya TURN.
+     */
+    byte getKind() {
+        return kind;
+    }
+
+    /**
+     * Metin protokolü alıcısı için paylaşılan baytların yeni bir görünümünü döndürür.
+     * @return Satır sonu dahil UTF-8 baytlar.
+     */
+    ByteBuffer lineView() {
+        ByteBuffer bytes = lineBytes;
+        if (bytes == null) {
+            // Aynı anda iki thread kodlarsa sonuçlar eşittir; hangisinin saklandığı önemsizdir.
+            bytes = ByteBuffer.wrap((line + "\n").getBytes(StandardCharsets.UTF_8));
+            lineBytes = bytes;
+        }
+        return bytes.duplicate();
+    }
+
+    /**
+     * İkili protokol alıcısı için paylaşılan çerçevenin yeni bir görünümünü döndürür.
+     * @return BinaryProtocol çerçevesi.
+     */
+    ByteBuffer frameView() {
+        ByteBuffer bytes = frame;
+        if (bytes == null) {
+            bytes = BinaryProtocol.encodeText(line);
+            frame = bytes;
+        }
+        return bytes.duplicate();
+    }
+}
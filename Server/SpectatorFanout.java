@@ -0,0 +1,282 @@
+package Server;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * SpectatorFanout, odaların DICE, SCORE ve TURN akışını izleyicilere dağıtan ayrı bir
+ * aşamadır. Oyun thread'i bir olayı yalnızca bu aşamanın kuyruğuna bırakır (izleyicisi
+ * olmayan odalarda hiçbir şey yapmaz); izleyici sayısı ne olursa olsun hamle işleme
+ * süresine yalnızca tek bir kuyruğa ekleme eklenir. Her olay SharedMessage olarak bir kez
+ * kodlanır ve tüm izleyicilerin giden kuyruklarına aynı baytlar paylaşılarak eklenir.
+ *
+ * Dağıtım, oda ID'sine göre seçilen sabit sayıda thread'de yapılır; bir odanın olayları
+ * hep aynı thread'den ve sırayla geçer. Aşama kayıplıdır: giden kuyruğu LAG_LIMIT'i aşan
+ * yavaş izleyiciye yeni olaylar gönderilmez, kuyruğu boşaldığında ona tek bir durum
+ * mesajı (STATE) gönderilerek güncel duruma getirilir. Durum mesajı odanın posta kutusundan
+ * istenir; oda onu o ana kadar yayınladığı olaylardan sonra aynı kuyruğa bırakır, böylece
+ * durum hiçbir olayı atlamaz veya tekrarlamaz. Aşamanın kendi kuyruğu dolarsa
+ * olay atılır ve odanın tüm izleyicileri aynı yolla yeniden eşitlenir. Yavaş izleyiciler
+ * böylece ne oyuncuları ne de diğer izleyicileri bekletir ve giden kuyrukları taşmaz.
+ */
+class SpectatorFanout {
+
+    /** Giden kuyruğu bu derinliğe ulaşan izleyici geride kalmış sayılır. */
+    static final int LAG_LIMIT = 64;
+
+    private static final int QUEUE_CAPACITY = 4096; // Her dağıtım thread'inin bekleyen olay sınırı.
+
+    /**
+     * Bir odanın izleyicileri. İzleyici ekleme ve çıkarma herhangi bir thread'den yapılabilir;
+     * geride kalma bilgisi yalnızca odanın dağıtım thread'inde değiştirilir.
+     */
+    static final class Group {
+
+        /**
+         * Tek bir izleyici.
+         */
+        private static final class Viewer {
+            final PlayerConnection connection; // İzleyicinin bağlantısı.
+            boolean lagging = true; // Durum mesajı bekliyor mu (yeni izleyiciler önce durumu alır).
+
+            Viewer(PlayerConnection connection) {
+                this.connection = connection;
+            }
+        }
+
+        private final GameManager room; // İzlenen oda.
+        private final Map<PlayerConnection, Viewer> viewers = new ConcurrentHashMap<>(); // Bağlantı -> izleyici.
+        private volatile boolean resyncAll = false; // Olay atıldı veya oyun sıfırlandı; tüm izleyiciler yeniden eşitlenmeli.
+        private boolean stateRequested = false; // Odadan durum mesajı istendi ve henüz gelmedi (dağıtım thread'inde).
+
+        /**
+         * Bir odanın izleyici grubunu oluşturur.
+         * @param room İzlenen oda.
+         */
+        Group(GameManager room) {
+            this.room = room;
+        }
+
+        /**
+         * Grupta izleyici olup olmadığını döndürür.
+         * @return İzleyici yoksa true.
+         */
+        boolean isEmpty() {
+            return viewers.isEmpty();
+        }
+
+        /**
+         * İzleyici sayısını döndürür.
+         * @return İzleyici sayısı.
+         */
+        int size() {
+            return viewers.size();
+        }
+
+        /**
+         * Bir izleyici ekler. İzleyici, dağıtım thread'inin bir sonraki geçişinde durumu alır.
+         * @param connection İzleyicinin bağlantısı.
+         */
+        void add(PlayerConnection connection) {
+            viewers.put(connection, new Viewer(connection));
+        }
+
+        /**
+         * Bir izleyiciyi çıkarır.
+         * @param connection İzleyicinin bağlantısı.
+         * @return İzleyici gruptaysa true.
+         */
+        boolean remove(PlayerConnection connection) {
+            return viewers.remove(connection) != null;
+        }
+
+        /**
+         * Tüm izleyicileri çıkarır (oda kapandığında).
+         * @return Çıkarılan izleyicilerin bağlantıları.
+         */
+        List<PlayerConnection> clear() {
+            List<PlayerConnection> removed = new ArrayList<>(viewers.keySet());
+            viewers.keySet().removeAll(removed);
+            return removed;
+        }
+
+        /**
+         * Tüm izleyicilerin bir sonraki geçişte durum mesajıyla yeniden eşitlenmesini ister.
+         */
+        void requestResync() {
+            resyncAll = true;
+        }
+
+        /**
+         * Bir olayı izleyicilere dağıtır. Geride kalan izleyicilere olay gönderilmez; kuyruğu
+         * boşalmış olan varsa odadan bir durum mesajı istenir. Yalnızca grubun dağıtım thread'inde
+         * çağrılır.
+         * @param message Olay; null ise yalnızca geride kalan izleyiciler için durum istenir.
+         * @param fanout İstatistiklerin yazılacağı aşama.
+         */
+        private void deliver(SharedMessage message, SpectatorFanout fanout) {
+            boolean resync = resyncAll;
+            if (resync) {
+                resyncAll = false;
+                stateRequested = false; // Atılan bir durum mesajı da olabilir; yenisi istenir.
+            }
+            boolean ready = false; // Durum mesajını almaya hazır geride kalan izleyici var mı.
+            for (Viewer viewer : viewers.values()) {
+                PlayerConnection connection = viewer.connection;
+                int depth = connection.getQueueDepth();
+                if (resync) {
+                    viewer.lagging = true;
+                }
+                if (viewer.lagging) {
+                    fanout.skipped.increment(); // Bu olay, gelecek durum mesajında yer alır.
+                    ready |= depth <= LAG_LIMIT / 2;
+                } else if (message != null) {
+                    if (depth >= LAG_LIMIT) {
+                        viewer.lagging = true;
+                        fanout.skipped.increment();
+                        continue;
+                    }
+                    connection.sendShared(message);
+                    fanout.delivered.increment();
+                }
+            }
+            if (ready && !stateRequested) {
+                stateRequested = true;
+                room.requestState();
+            }
+        }
+
+        /**
+         * Odanın gönderdiği durum mesajını kuyruğu boşalmış geride kalan izleyicilere gönderir.
+         * Kuyruğu hâlâ dolu olanlar bir sonraki olayda yeni bir durum mesajı bekler. Yalnızca
+         * grubun dağıtım thread'inde çağrılır.
+         * @param state Odanın güncel durumu.
+         * @param fanout İstatistiklerin yazılacağı aşama.
+         */
+        private void deliverState(SharedMessage state, SpectatorFanout fanout) {
+            stateRequested = false;
+            for (Viewer viewer : viewers.values()) {
+                if (viewer.lagging && viewer.connection.getQueueDepth() <= LAG_LIMIT / 2) {
+                    viewer.connection.sendShared(state);
+                    viewer.lagging = false;
+                    fanout.resyncs.increment();
+                }
+            }
+        }
+    }
+
+    /**
+     * Dağıtım kuyruğundaki tek bir iş: bir grubun bir olayı veya odanın durum mesajı.
+     */
+    private static final class Delivery {
+        final Group group; // Olayın dağıtılacağı grup.
+        final SharedMessage message; // Olay (yalnızca eşitleme için null).
+        final boolean state; // Mesaj, odanın requestState'e cevabı mı.
+
+        Delivery(Group group, SharedMessage message, boolean state) {
+            this.group = group;
+            this.message = message;
+            this.state = state;
+        }
+    }
+
+    private final List<BlockingQueue<Delivery>> queues = new ArrayList<>(); // Dağıtım thread'i başına bekleyen olaylar.
+    private final LongAdder delivered = new LongAdder(); // İzleyicilere gönderilen olay sayısı.
+    private final LongAdder skipped = new LongAdder(); // Geride kalan izleyicilere gönderilmeyen olay sayısı.
+    private final LongAdder resyncs = new LongAdder(); // Gönderilen durum mesajı sayısı.
+    private final LongAdder dropped = new LongAdder(); // Aşamanın kuyruğu dolu olduğu için atılan olay sayısı.
+
+    /**
+     * Dağıtım aşamasını oluşturur ve thread'lerini başlatır.
+     * @param threads Dağıtım thread'i sayısı.
+     */
+    SpectatorFanout(int threads) {
+        for (int i = 0; i < threads; i++) {
+            BlockingQueue<Delivery> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+            queues.add(queue);
+            Thread worker = new Thread(() -> run(queue), "spectator-fanout-" + i);
+            worker.setDaemon(true);
+            worker.start();
+        }
+    }
+
+    /**
+     * Bir olayı grubun dağıtım thread'ine bırakır; hiçbir zaman beklemez. Kuyruk doluysa olay
+     * atılır ve grubun tüm izleyicileri bir sonraki olayda durum mesajıyla eşitlenir.
+     * @param group Odanın izleyici grubu.
+     * @param message Olay; null ise yalnızca geride kalan (ör. yeni katılan) izleyiciler eşitlenir.
+     * @param roomId Dağıtım thread'ini seçmek için oda ID'si.
+     */
+    void publish(Group group, SharedMessage message, long roomId) {
+        offer(new Delivery(group, message, false), roomId);
+    }
+
+    /**
+     * Odanın Group.deliver içinden istenen durum mesajını dağıtım thread'ine bırakır. Oda
+     * thread'inde, o ana kadar yayınlanan olaylardan sonra çağrılır.
+     * @param group Odanın izleyici grubu.
+     * @param state Odanın güncel durumu.
+     * @param roomId Dağıtım thread'ini seçmek için oda ID'si.
+     */
+    void publishState(Group group, SharedMessage state, long roomId) {
+        offer(new Delivery(group, state, true), roomId);
+    }
+
+    /**
+     * Bir işi odanın dağıtım thread'inin kuyruğuna ekler; kuyruk doluysa iş atılır ve grubun
+     * tüm izleyicileri yeniden eşitlenir.
+     * @param delivery Eklenecek iş.
+     * @param roomId Dağıtım thread'ini seçmek için oda ID'si.
+     */
+    private void offer(Delivery delivery, long roomId) {
+        if (!queues.get((int) Math.floorMod(roomId, (long) queues.size())).offer(delivery)) {
+            dropped.increment();
+            delivery.group.requestResync();
+        }
+    }
+
+    long getDeliveredCount() {
+        return delivered.sum();
+    }
+
+    long getSkippedCount() {
+        return skipped.sum();
+    }
+
+    long getResyncCount() {
+        return resyncs.sum();
+    }
+
+    long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * Bir dağıtım thread'inin ana döngüsü.
+     * @param queue Thread'in kuyruğu.
+     */
+    private void run(BlockingQueue<Delivery> queue) {
+        while (true) {
+            Delivery delivery;
+            try {
+                delivery = queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            try {
+                if (delivery.state) {
+                    delivery.group.deliverState(delivery.message, this);
+                } else {
+                    delivery.group.deliver(delivery.message, this);
+                }
+            } catch (RuntimeException e) {
+                Log.error(Log.Category.ROOM, "İzleyicilere dağıtım hata verdi: {}", e, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package Server;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * SplittableDiceSource, SplittableRandom tabanlı hızlı bir zar kaynağıdır.
+ * Her oyun kendi örneğini kullanır ve örnek yalnızca o odanın komutlarını
+ * işleyen thread'den çağrılır; bu yüzden senkronizasyon gerekmez ve atışlar
+ * paylaşılan bir üretici (Math.random) üzerinde sıralanmaz.
+ *
+ * Kaynağın konumu tohum ve o ana kadar atılan zar sayısıyla tam olarak
+ * belirlenir; anlık görüntüler (GameSnapshot) bu iki değeri saklar.
+ */
+public class SplittableDiceSource implements DiceSource {
+
+    private final long seed; // Bu oyunun tohumu.
+    private final SplittableRandom random; // Oyuna özel rastgele sayı üreticisi.
+    private long draws; // Bu kaynaktan şimdiye kadar atılan zar sayısı.
+
+    /**
+     * Rastgele bir tohumla yeni bir zar kaynağı oluşturur.
+     */
+    public SplittableDiceSource() {
+        this(ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     * Verilen tohumla yeni bir zar kaynağı oluşturur. Aynı tohum aynı atış dizisini üretir.
+     * @param seed Oyunun tohumu.
+     */
+    public SplittableDiceSource(long seed) {
+        this(seed, 0);
+    }
+
+    /**
+     * Verilen tohumla oluşturulup draws kez zar atılmış bir kaynağın konumundan devam eden
+     * bir zar kaynağı oluşturur.
+     * @param seed Oyunun tohumu.
+     * @param draws Daha önce atılmış zar sayısı.
+     */
+    public SplittableDiceSource(long seed, long draws) {
+        this.seed = seed;
+        this.random = new SplittableRandom(seed);
+        for (long i = 0; i < draws; i++) {
+            random.nextInt(6); // Bir oyun en fazla birkaç yüz zar attığı için ileri sarmak ucuzdur.
+        }
+        this.draws = draws;
+    }
+
+    /**
+     * Bu kaynağın tohumunu döndürür.
+     * @return Oyunun tohumu.
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Bu kaynaktan şimdiye kadar atılan zar sayısını döndürür.
+     * @return Atılan zar sayısı.
+     */
+    public long getDraws() {
+        return draws;
+    }
+
+    @Override
+    public void roll(int[] dice, int heldMask) {
+        for (int i = 0; i < dice.length; i++) {
+            if ((heldMask & (1 << i)) == 0) {
+                dice[i] = random.nextInt(6) + 1; // Tutulmayan zarı 1-6 arasında yeniden at.
+                draws++;
+            }
+        }
+    }
+}
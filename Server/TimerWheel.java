@@ -0,0 +1,249 @@
+package Server;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * TimerWheel, çok sayıda kısa ömürlü zaman aşımını (ör. her odanın tur süresi) tek bir
+ * thread ile izleyen karma (hashed) bir zamanlayıcı çarkıdır. Çark sabit sayıda kovadan
+ * oluşur; her tikte yalnızca sıradaki kova taranır. Bir zaman aşımı, bitiş anının düştüğü
+ * kovaya kalan tam tur sayısıyla birlikte yerleştirilir.
+ *
+ * schedule ve cancel çağrıları yalnızca kilitsiz bir kuyruğa ekleme ve bir CAS yapar, bu
+ * yüzden oda sayısından bağımsız olarak O(1)'dir; ScheduledExecutorService'in öncelik
+ * kuyruğundaki O(log n) ekleme/silme ve iptal edilen görevlerin birikmesi yaşanmaz.
+ * Kovalar yalnızca çark thread'inde değiştirildiği için kilitlenmez. Çözünürlük tik
+ * süresi kadardır; tur süreleri gibi saniyeler mertebesindeki süreler için yeterlidir.
+ *
+ * Görevler çark thread'inde çalıştırılır; uzun süren bir görev diğer zaman aşımlarını
+ * geciktireceği için görevler kısa tutulmalıdır.
+ */
+class TimerWheel {
+
+    private static final int PENDING = 0; // Zaman aşımı kurulu.
+    private static final int CANCELLED = 1; // İptal edildi, kovadan silinmeyi bekliyor.
+    private static final int EXPIRED = 2; // Görev çalıştırıldı.
+
+    /**
+     * Kurulmuş tek bir zaman aşımı. cancel ile herhangi bir thread'den iptal edilebilir.
+     */
+    static final class Timeout {
+
+        private static final AtomicIntegerFieldUpdater<Timeout> STATE =
+                AtomicIntegerFieldUpdater.newUpdater(Timeout.class, "state");
+
+        private final TimerWheel wheel; // Zaman aşımının kurulduğu çark.
+        private final Runnable task; // Süre dolduğunda çalıştırılacak görev.
+        private final long deadline; // Çarkın başlangıcına göre bitiş anı (ns).
+        private volatile int state = PENDING; // PENDING, CANCELLED veya EXPIRED.
+        private long remainingRounds; // Görev çalışmadan önce çarkın daha kaç tam tur döneceği.
+        private Timeout next; // Kovadaki sonraki zaman aşımı.
+        private Timeout prev; // Kovadaki önceki zaman aşımı.
+        private Bucket bucket; // Zaman aşımının bulunduğu kova (henüz yerleşmediyse null).
+
+        private Timeout(TimerWheel wheel, Runnable task, long deadline) {
+            this.wheel = wheel;
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Zaman aşımını iptal eder. Görev henüz çalışmadıysa artık çalışmaz; kova
+         * bağlantısı çark thread'inin bir sonraki tikinde kaldırılır.
+         * @return İptal edildiyse true, görev zaten çalıştıysa veya iptal edilmişse false.
+         */
+        boolean cancel() {
+            if (!STATE.compareAndSet(this, PENDING, CANCELLED)) {
+                return false;
+            }
+            wheel.cancelled.add(this);
+            return true;
+        }
+
+        /**
+         * Zaman aşımının iptal edilip edilmediğini döndürür.
+         * @return İptal edildiyse true.
+         */
+        boolean isCancelled() {
+            return state == CANCELLED;
+        }
+    }
+
+    /**
+     * Çarktaki tek bir kova: zaman aşımlarının çift yönlü bağlı listesi. Ekleme ve
+     * silme O(1)'dir ve yalnızca çark thread'inde yapılır.
+     */
+    private static final class Bucket {
+        private Timeout head; // Listenin başı.
+        private Timeout tail; // Listenin sonu.
+
+        void add(Timeout timeout) {
+            timeout.bucket = this;
+            if (head == null) {
+                head = tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.prev = tail;
+                tail = timeout;
+            }
+        }
+
+        Timeout remove(Timeout timeout) {
+            Timeout next = timeout.next;
+            if (timeout.prev != null) {
+                timeout.prev.next = next;
+            }
+            if (next != null) {
+                next.prev = timeout.prev;
+            }
+            if (timeout == head) {
+                head = next;
+            }
+            if (timeout == tail) {
+                tail = timeout.prev;
+            }
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.bucket = null;
+            return next;
+        }
+
+        /**
+         * Bu turda süresi dolan zaman aşımlarının görevlerini çalıştırır, iptal edilenleri
+         * siler ve kalanların tur sayısını azaltır.
+         */
+        void expire() {
+            Timeout timeout = head;
+            while (timeout != null) {
+                if (timeout.remainingRounds <= 0) {
+                    Timeout next = remove(timeout);
+                    if (Timeout.STATE.compareAndSet(timeout, PENDING, EXPIRED)) {
+                        try {
+                            timeout.task.run();
+                        } catch (Throwable t) {
+                            Log.error(Log.Category.SERVER, "Zamanlayıcı görevi hata verdi: {}", t, t);
+                        }
+                    }
+                    timeout = next;
+                } else if (timeout.isCancelled()) {
+                    timeout = remove(timeout);
+                } else {
+                    timeout.remainingRounds--;
+                    timeout = timeout.next;
+                }
+            }
+        }
+    }
+
+    private static final int MAX_TRANSFERS_PER_TICK = 100_000; // Bir tikte kovalara yerleştirilecek en fazla yeni zaman aşımı.
+
+    private final Bucket[] wheel; // Kovalar; uzunluk ikinin kuvvetidir.
+    private final int mask; // Tik sayısından kova indeksine (wheel.length - 1).
+    private final long tickNanos; // Bir tikin süresi (ns).
+    private final long startTime; // Çarkın başlangıç anı (System.nanoTime).
+    private final Queue<Timeout> pending = new ConcurrentLinkedQueue<>(); // Kurulmuş, henüz kovaya yerleşmemiş zaman aşımları.
+    private final Queue<Timeout> cancelled = new ConcurrentLinkedQueue<>(); // İptal edilmiş, kovadan silinecek zaman aşımları.
+    private long tick; // Çark thread'inin işlediği sonraki tik.
+
+    /**
+     * Bir zamanlayıcı çarkı oluşturur ve çark thread'ini başlatır.
+     * @param name Çark thread'inin adı.
+     * @param tickDuration Bir tikin süresi (zamanlayıcının çözünürlüğü).
+     * @param unit tickDuration'ın birimi.
+     * @param ticksPerWheel Kova sayısı; ikinin bir sonraki kuvvetine yuvarlanır.
+     */
+    TimerWheel(String name, long tickDuration, TimeUnit unit, int ticksPerWheel) {
+        int size = Integer.highestOneBit(Math.max(ticksPerWheel, 2) - 1) << 1;
+        this.wheel = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new Bucket();
+        }
+        this.mask = size - 1;
+        this.tickNanos = Math.max(unit.toNanos(tickDuration), TimeUnit.MILLISECONDS.toNanos(1));
+        this.startTime = System.nanoTime();
+        Thread worker = new Thread(this::run, name);
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Belirtilen süre sonra çalışacak bir görev kurar. Herhangi bir thread'den çağrılabilir.
+     * @param task Süre dolduğunda çark thread'inde çalıştırılacak görev.
+     * @param delay Gecikme.
+     * @param unit Gecikmenin birimi.
+     * @return İptal için kullanılabilecek zaman aşımı.
+     */
+    Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        long deadline = System.nanoTime() - startTime + unit.toNanos(delay);
+        Timeout timeout = new Timeout(this, task, deadline);
+        pending.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Çark thread'inin ana döngüsü: her tikte iptalleri uygular, yeni zaman aşımlarını
+     * kovalara yerleştirir ve sıradaki kovanın süresi dolanlarını çalıştırır.
+     */
+    private void run() {
+        while (true) {
+            waitForNextTick();
+            removeCancelled();
+            transferPending();
+            wheel[(int) (tick & mask)].expire();
+            tick++;
+        }
+    }
+
+    /**
+     * Bir sonraki tikin anına kadar uyur. Tik, bu kovaya düşen tüm bitiş anlarından sonra biter.
+     */
+    private void waitForNextTick() {
+        long deadline = tickNanos * (tick + 1);
+        while (true) {
+            long now = System.nanoTime() - startTime;
+            long sleepMillis = (deadline - now + 999_999) / 1_000_000;
+            if (sleepMillis <= 0) {
+                return;
+            }
+            try {
+                Thread.sleep(sleepMillis);
+            } catch (InterruptedException e) {
+                // Çark thread'i sunucu süreci boyunca çalışır; kesmeler yok sayılır.
+            }
+        }
+    }
+
+    /**
+     * İptal edilmiş zaman aşımlarını kovalarından siler.
+     */
+    private void removeCancelled() {
+        Timeout timeout;
+        while ((timeout = cancelled.poll()) != null) {
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+            }
+        }
+    }
+
+    /**
+     * Yeni kurulan zaman aşımlarını bitiş anlarının düştüğü kovalara yerleştirir. Bir tikte
+     * yerleştirilenlerin sayısı sınırlıdır ki ani bir kurulum dalgası tiki geciktirmesin.
+     */
+    private void transferPending() {
+        for (int i = 0; i < MAX_TRANSFERS_PER_TICK; i++) {
+            Timeout timeout = pending.poll();
+            if (timeout == null) {
+                return;
+            }
+            if (timeout.isCancelled()) {
+                continue; // Kovaya hiç girmeden iptal edildi.
+            }
+            long calculated = timeout.deadline / tickNanos;
+            timeout.remainingRounds = (calculated - tick) / wheel.length;
+            long ticks = Math.max(calculated, tick); // Geçmişte kalmışsa bu tikte çalışır.
+            wheel[(int) (ticks & mask)].add(timeout);
+        }
+    }
+}